@@ -0,0 +1,56 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.util.Log;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Overlay;
+
+// The "before" for BitmapOverlayFrameTimeTest: BitmapOverlay.draw as it was before it was made
+// allocation-free, with new geometry objects and log strings on every frame
+class AllocatingBitmapOverlay extends Overlay {
+    private static final String TAG = "AllocatingBitmapOverlay";
+    private final Bitmap bitmap;
+    private final BoundingBox boundingBox;
+
+    AllocatingBitmapOverlay(Bitmap bitmap, BoundingBox boundingBox) {
+        this.bitmap = bitmap;
+        this.boundingBox = boundingBox;
+    }
+
+    @Override
+    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (shadow || bitmap == null) {
+            Log.w(TAG, "Skipping draw: shadow=" + shadow + ", bitmap=" + (bitmap == null));
+            return;
+        }
+
+        Rect screenRect = new Rect();
+        canvas.getClipBounds(screenRect);
+        Log.d(TAG, "Screen rect: " + screenRect.toString());
+
+        GeoPoint topLeftGeo = new GeoPoint(boundingBox.getLatNorth(), boundingBox.getLonWest());
+        GeoPoint bottomRightGeo = new GeoPoint(boundingBox.getLatSouth(), boundingBox.getLonEast());
+        Point topLeft = mapView.getProjection().toPixels(topLeftGeo, null);
+        Point bottomRight = mapView.getProjection().toPixels(bottomRightGeo, null);
+
+        if (topLeft == null || bottomRight == null) {
+            Log.w(TAG, "Projection returned null coordinates");
+            return;
+        }
+
+        Rect destRect = new Rect(topLeft.x, topLeft.y, bottomRight.x, bottomRight.y);
+        Log.d(TAG, "Drawing bitmap to destRect: " + destRect.toString());
+
+        try {
+            canvas.drawBitmap(bitmap, null, destRect, null);
+            Log.d(TAG, "Bitmap drawn successfully");
+        } catch (Exception e) {
+            Log.e(TAG, "Error drawing bitmap: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Log;
+import androidx.test.ext.junit.rules.ActivityScenarioRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Overlay;
+
+// Frame times of the map image overlay before and after its draw path was made allocation-free,
+// on the same 2048x2048 image while the map sits still, pans and pinch-zooms. Results go to
+// logcat under BitmapOverlayFrameTime; run on a device with connectedDebugAndroidTest.
+@RunWith(AndroidJUnit4.class)
+public class BitmapOverlayFrameTimeTest {
+    private static final String TAG = "BitmapOverlayFrameTime";
+    private static final int FRAMES = 300;
+    private static final BoundingBox AL_BASRAH = new BoundingBox(31.0, 48.0, 30.0, 47.0);
+
+    @Rule
+    public ActivityScenarioRule<MainActivity> activity = new ActivityScenarioRule<>(MainActivity.class);
+
+    @Test
+    public void drawAllocatesLessPerFrameThanBefore() throws InterruptedException {
+        Bitmap bitmap = Bitmap.createBitmap(2048, 2048, Bitmap.Config.RGB_565);
+        bitmap.eraseColor(Color.GRAY);
+        FrameRun.Result[] before = measure("before", new AllocatingBitmapOverlay(bitmap, AL_BASRAH));
+        BitmapOverlay overlay = new BitmapOverlay(AL_BASRAH);
+        overlay.setBitmap(bitmap);
+        Metrics.OVERLAY_DRAW.reset();
+        FrameRun.Result[] after = measure("after", overlay);
+        Log.i(TAG, Metrics.OVERLAY_DRAW.summary());
+
+        for (int i = 0; i < before.length; i++) {
+            Log.i(TAG, before[i].toString());
+            Log.i(TAG, after[i].toString());
+        }
+        for (int i = 0; i < before.length; i++) {
+            assertTrue(after[i].name + " allocates no less than " + before[i].name,
+                    after[i].allocationsPerFrame() < before[i].allocationsPerFrame());
+        }
+    }
+
+    private FrameRun.Result[] measure(String name, Overlay overlay) throws InterruptedException {
+        FrameRun[] run = new FrameRun[1];
+        MapView[] map = new MapView[1];
+        activity.getScenario().onActivity(host -> {
+            MapView mapView = new MapView(host);
+            mapView.setUseDataConnection(false);
+            // Only the overlay under test is drawn
+            mapView.getOverlayManager().getTilesOverlay().setEnabled(false);
+            mapView.getOverlays().add(overlay);
+            mapView.getController().setZoom(10.0);
+            mapView.getController().setCenter(new GeoPoint(30.5, 47.5));
+            run[0] = new FrameRun(host, mapView);
+            map[0] = mapView;
+        });
+        FrameRun frames = run[0];
+        // Layout and first draw
+        frames.run(name + " warm-up", 30, (mapView, frame) -> {
+        });
+        FrameRun.Result[] results = {
+                frames.run(name + " still", FRAMES, (mapView, frame) -> {
+                }),
+                frames.run(name + " pan", FRAMES, (mapView, frame) -> mapView.scrollBy(frame % 100 < 50 ? 4 : -4, 0)),
+                frames.run(name + " pinch", FRAMES,
+                        (mapView, frame) -> mapView.getController().setZoom(10.0 + 1.5 * Math.sin(frame * 0.05)))
+        };
+        activity.getScenario().onActivity(host -> map[0].onDetach());
+        return results;
+    }
+}
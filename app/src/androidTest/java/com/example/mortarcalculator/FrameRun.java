@@ -0,0 +1,161 @@
+package com.example.mortarcalculator;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.view.Choreographer;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.osmdroid.views.MapView;
+
+// Frame-time measurement for overlays on a real MapView. The map replaces the activity's content;
+// run() changes it once per frame through a Step and records on the UI thread how long the map
+// took to draw, the Choreographer frame intervals (janky: longer than 1.5 vsync), and the objects
+// allocated and garbage collections run while the frames were drawn.
+final class FrameRun {
+    private static final long TIMEOUT_SECONDS = 120;
+
+    interface Step {
+        void apply(MapView mapView, int frame);
+    }
+
+    static final class Result {
+        final String name;
+        final int frames;
+        final LatencyHistogram draw;
+        final LatencyHistogram interval;
+        final int janky;
+        final long allocations;
+        final long collections;
+
+        Result(String name, int frames, LatencyHistogram draw, LatencyHistogram interval, int janky,
+               long allocations, long collections) {
+            this.name = name;
+            this.frames = frames;
+            this.draw = draw;
+            this.interval = interval;
+            this.janky = janky;
+            this.allocations = allocations;
+            this.collections = collections;
+        }
+
+        double allocationsPerFrame() {
+            return (double) allocations / frames;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d frames, draw p50=%.2f p90=%.2f p99=%.2f ms, "
+                            + "frame p50=%.1f p90=%.1f p99=%.1f ms, %d janky, %.1f allocations/frame, %d GCs",
+                    name, frames, draw.quantile(0.5) / 1e6, draw.quantile(0.9) / 1e6, draw.quantile(0.99) / 1e6,
+                    interval.quantile(0.5) / 1e6, interval.quantile(0.9) / 1e6, interval.quantile(0.99) / 1e6,
+                    janky, allocationsPerFrame(), collections);
+        }
+    }
+
+    // Times the map's draw; with hardware rendering that is the UI thread's share of the frame
+    private static final class Host extends FrameLayout {
+        LatencyHistogram draw;
+
+        Host(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void dispatchDraw(Canvas canvas) {
+            long start = System.nanoTime();
+            super.dispatchDraw(canvas);
+            if (draw != null) {
+                draw.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private final class Recorder implements Choreographer.FrameCallback {
+        final String name;
+        final int frames;
+        final Step step;
+        final LatencyHistogram draw;
+        final LatencyHistogram interval;
+        final CountDownLatch done = new CountDownLatch(1);
+        int frame = -1;
+        long lastFrameNanos;
+        int janky;
+        long allocations;
+        long collections;
+
+        Recorder(String name, int frames, Step step) {
+            this.name = name;
+            this.frames = frames;
+            this.step = step;
+            draw = new LatencyHistogram(name + "_draw");
+            interval = new LatencyHistogram(name + "_frame");
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (frame < 0) {
+                // Counting starts with the first scripted frame
+                host.draw = draw;
+                collections = collectionCount();
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+            } else {
+                long elapsed = frameTimeNanos - lastFrameNanos;
+                interval.record(elapsed);
+                if (elapsed > vsyncNanos * 3 / 2) {
+                    janky++;
+                }
+            }
+            lastFrameNanos = frameTimeNanos;
+            if (++frame == frames) {
+                Debug.stopAllocCounting();
+                allocations = Debug.getThreadAllocCount();
+                collections = collectionCount() - collections;
+                host.draw = null;
+                done.countDown();
+                return;
+            }
+            step.apply(mapView, frame);
+            mapView.invalidate();
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private final MapView mapView;
+    private final Host host;
+    private final long vsyncNanos;
+
+    // UI thread only
+    FrameRun(Activity activity, MapView mapView) {
+        this.mapView = mapView;
+        host = new Host(activity);
+        host.addView(mapView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        activity.setContentView(host);
+        vsyncNanos = (long) (1e9 / activity.getWindowManager().getDefaultDisplay().getRefreshRate());
+    }
+
+    // From the test thread: draws frames + 1 frames, the first unmeasured
+    Result run(String name, int frames, Step step) throws InterruptedException {
+        Recorder recorder = new Recorder(name, frames, step);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(
+                () -> Choreographer.getInstance().postFrameCallback(recorder));
+        if (!recorder.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new AssertionError(name + ": frames not drawn in " + TIMEOUT_SECONDS + " s");
+        }
+        return new Result(name, frames, recorder.draw, recorder.interval, recorder.janky,
+                recorder.allocations, recorder.collections);
+    }
+
+    private static long collectionCount() {
+        String count = Debug.getRuntimeStat("art.gc.gc-count");
+        return count != null ? Long.parseLong(count) : 0;
+    }
+}
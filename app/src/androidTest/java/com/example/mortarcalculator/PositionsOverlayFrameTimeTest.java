@@ -0,0 +1,117 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+import androidx.test.ext.junit.rules.ActivityScenarioRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.Polygon;
+
+// Frame times of the firing positions at 5, 50 and 200 mortars: the single PositionsOverlay
+// against one osmdroid Marker plus one range Polygon per mortar, as positions were drawn before,
+// while the map sits still, pans and pinch-zooms. Results go to logcat under
+// PositionsFrameTime; run on a device with connectedDebugAndroidTest.
+@RunWith(AndroidJUnit4.class)
+public class PositionsOverlayFrameTimeTest {
+    private static final String TAG = "PositionsFrameTime";
+    private static final int FRAMES = 300;
+    private static final int[] POSITIONS = {5, 50, 200};
+    private static final double ORIGIN_LAT = 30.5;
+    private static final double ORIGIN_LON = 47.5;
+    private static final double RANGE = 5000;
+
+    @Rule
+    public ActivityScenarioRule<MainActivity> activity = new ActivityScenarioRule<>(MainActivity.class);
+
+    @Test
+    public void batchedDrawStaysFlatAsPositionsGrow() throws InterruptedException {
+        FrameRun.Result[][] batched = new FrameRun.Result[POSITIONS.length][];
+        FrameRun.Result[][] separate = new FrameRun.Result[POSITIONS.length][];
+        for (int i = 0; i < POSITIONS.length; i++) {
+            Metrics.POSITIONS_DRAW.reset();
+            batched[i] = measure(POSITIONS[i], true);
+            Log.i(TAG, POSITIONS[i] + " positions " + Metrics.POSITIONS_DRAW.summary());
+            separate[i] = measure(POSITIONS[i], false);
+        }
+        for (int i = 0; i < POSITIONS.length; i++) {
+            for (int run = 0; run < batched[i].length; run++) {
+                Log.i(TAG, batched[i][run].toString());
+                Log.i(TAG, separate[i][run].toString());
+            }
+        }
+
+        // Each scenario's median draw at 200 positions over 5: near 1 is flat
+        int last = POSITIONS.length - 1;
+        for (int run = 0; run < batched[last].length; run++) {
+            Log.i(TAG, String.format(Locale.US, "%s growth 5 -> 200: batched x%.1f, separate x%.1f",
+                    batched[last][run].name, growth(batched[0][run], batched[last][run]),
+                    growth(separate[0][run], separate[last][run])));
+            assertTrue(batched[last][run].name + " draws no faster than " + separate[last][run].name,
+                    batched[last][run].draw.quantile(0.5) < separate[last][run].draw.quantile(0.5));
+        }
+    }
+
+    private static double growth(FrameRun.Result small, FrameRun.Result large) {
+        return (double) large.draw.quantile(0.5) / Math.max(small.draw.quantile(0.5), 1);
+    }
+
+    private FrameRun.Result[] measure(int count, boolean batched) throws InterruptedException {
+        String name = count + (batched ? " batched" : " separate");
+        FrameRun[] run = new FrameRun[1];
+        MapView[] map = new MapView[1];
+        activity.getScenario().onActivity(host -> {
+            MapView mapView = new MapView(host);
+            mapView.setUseDataConnection(false);
+            // Only the positions are drawn
+            mapView.getOverlayManager().getTilesOverlay().setEnabled(false);
+            Random random = new Random(3);
+            PositionIndex mortars = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+            for (int i = 0; i < count; i++) {
+                double lat = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.1;
+                double lon = ORIGIN_LON + (random.nextDouble() - 0.5) * 0.1;
+                if (batched) {
+                    mortars.add(lat, lon);
+                    continue;
+                }
+                GeoPoint point = new GeoPoint(lat, lon);
+                Marker marker = new Marker(mapView);
+                marker.setPosition(point);
+                marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
+                mapView.getOverlays().add(marker);
+                Polygon ring = new Polygon();
+                ring.setPoints(Polygon.pointsAsCircle(point, RANGE));
+                mapView.getOverlays().add(ring);
+            }
+            if (batched) {
+                mapView.getOverlays().add(new PositionsOverlay(mortars, new PositionIndex(ORIGIN_LAT, ORIGIN_LON),
+                        RANGE, host.getResources().getDisplayMetrics().density));
+            }
+            mapView.getController().setZoom(12.0);
+            mapView.getController().setCenter(new GeoPoint(ORIGIN_LAT, ORIGIN_LON));
+            run[0] = new FrameRun(host, mapView);
+            map[0] = mapView;
+        });
+        FrameRun frames = run[0];
+        // Layout, first draw and the cached zoom layout
+        frames.run(name + " warm-up", 30, (mapView, frame) -> {
+        });
+        FrameRun.Result[] results = {
+                frames.run(name + " still", FRAMES, (mapView, frame) -> {
+                }),
+                frames.run(name + " pan", FRAMES, (mapView, frame) -> mapView.scrollBy(frame % 100 < 50 ? 4 : -4, 0)),
+                frames.run(name + " pinch", FRAMES,
+                        (mapView, frame) -> mapView.getController().setZoom(12.0 + 1.5 * Math.sin(frame * 0.05)))
+        };
+        activity.getScenario().onActivity(host -> map[0].onDetach());
+        return results;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.widget.Spinner;
+import androidx.test.ext.junit.rules.ActivityScenarioRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.osmdroid.tileprovider.MapTileProviderBase;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.MapTileIndex;
+import org.osmdroid.views.MapView;
+
+// The catalog's tile map, selected in the picker like a user would, after an image map was shown:
+// tiles come out of the packed pyramid and are drawn by the map view, and past the pyramid's last
+// zoom they are synthesized by OverzoomTileProvider.
+@RunWith(AndroidJUnit4.class)
+public class TileMapRenderTest {
+    private static final String TILE_MAP = "N053E046";
+    private static final double LAT = 53.5;
+    private static final double LON = 46.5;
+    // The packed pyramid's deepest level
+    private static final int PACK_MAX_ZOOM = 12;
+    private static final int OVERZOOM = PACK_MAX_ZOOM + 2;
+    private static final long TIMEOUT_MS = 15000;
+
+    @Rule
+    public ActivityScenarioRule<MainActivity> activity = new ActivityScenarioRule<>(MainActivity.class);
+
+    @Test
+    public void packedTilesRender() throws InterruptedException {
+        MapView mapView = selectTileMap();
+        Drawable tile = awaitTile(mapView, PACK_MAX_ZOOM);
+        assertNotNull("no zoom " + PACK_MAX_ZOOM + " tile from the pack", tile);
+
+        assertRendered(mapView, PACK_MAX_ZOOM);
+    }
+
+    @Test
+    public void tilesPastThePackAreSynthesized() throws InterruptedException {
+        MapView mapView = selectTileMap();
+        double[] maxZoom = new double[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> maxZoom[0] = mapView.getMaxZoomLevel());
+        assertTrue("map view stops at zoom " + maxZoom[0], maxZoom[0] >= OVERZOOM);
+
+        long synthesized = synthesizedTiles();
+        Drawable tile = awaitTile(mapView, OVERZOOM);
+        assertNotNull("no zoom " + OVERZOOM + " tile", tile);
+        if (PerfTrace.ENABLED) {
+            assertTrue("zoom " + OVERZOOM + " tile not from OverzoomTileProvider", synthesizedTiles() > synthesized);
+        }
+        assertRendered(mapView, OVERZOOM);
+    }
+
+    // Shows an image map first, which turns the tiles overlay off, then picks the tile map and
+    // waits until its tiles are on
+    MapView selectTileMap() throws InterruptedException {
+        MapView[] map = new MapView[1];
+        activity.getScenario().onActivity(host -> map[0] = host.findViewById(R.id.mapView));
+        MapView mapView = map[0];
+        select(false);
+        await("image map's tiles still on", () -> !mapView.getOverlayManager().getTilesOverlay().isEnabled());
+        select(true);
+        await(TILE_MAP + "'s tiles never turned on", () -> mapView.getOverlayManager().getTilesOverlay().isEnabled()
+                && mapView.getTileProvider().getMaximumZoomLevel() >= PACK_MAX_ZOOM);
+        return mapView;
+    }
+
+    private void select(boolean tileMap) {
+        activity.getScenario().onActivity(host -> {
+            Spinner spinner = host.findViewById(R.id.mapSpinner);
+            for (int i = 0; i < spinner.getCount(); i++) {
+                MapDescriptor map = (MapDescriptor) spinner.getItemAtPosition(i);
+                if (tileMap ? map.getId().equals(TILE_MAP) : map.getTiles() == null) {
+                    spinner.setSelection(i);
+                    return;
+                }
+            }
+            throw new AssertionError(tileMap ? TILE_MAP + " not in the catalog" : "no image map in the catalog");
+        });
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    // Polls condition on the UI thread
+    private static void await(String failure, Condition condition) throws InterruptedException {
+        boolean[] holds = new boolean[1];
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> holds[0] = condition.holds());
+            if (holds[0]) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError(failure);
+    }
+
+    // The tile under LAT/LON at zoom, once the provider has loaded it; null on timeout
+    Drawable awaitTile(MapView mapView, int zoom) throws InterruptedException {
+        long index = MapTileIndex.getTileIndex(zoom, tileX(LON, zoom), tileY(LAT, zoom));
+        Drawable[] tile = new Drawable[1];
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                MapTileProviderBase provider = mapView.getTileProvider();
+                tile[0] = provider.getMapTile(index);
+            });
+            if (tile[0] != null) {
+                return tile[0];
+            }
+            Thread.sleep(100);
+        }
+        return null;
+    }
+
+    // Centres LAT/LON at zoom and draws the map view into a bitmap until its centre pixel is an
+    // opaque tile pixel rather than osmdroid's loading background
+    void assertRendered(MapView mapView, double zoom) throws InterruptedException {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            mapView.getController().setZoom(zoom);
+            mapView.getController().setCenter(new GeoPoint(LAT, LON));
+        });
+        int loading = mapView.getOverlayManager().getTilesOverlay().getLoadingBackgroundColor();
+        await("no tile drawn at the map centre at zoom " + zoom, () -> {
+            Bitmap screen = Bitmap.createBitmap(mapView.getWidth(), mapView.getHeight(), Bitmap.Config.ARGB_8888);
+            mapView.draw(new Canvas(screen));
+            int centre = screen.getPixel(screen.getWidth() / 2, screen.getHeight() / 2);
+            screen.recycle();
+            return centre != loading && centre >>> 24 == 0xff;
+        });
+    }
+
+    // Debug builds: tiles OverzoomTileProvider built or found again in its memory or disk cache
+    private static long synthesizedTiles() {
+        return Metrics.TILE_SYNTHESIS.getCount() + Metrics.SYNTHESIZED_MEMORY_HIT.get()
+                + Metrics.SYNTHESIZED_DISK_HIT.get();
+    }
+
+    static int tileX(double lon, int zoom) {
+        return (int) Math.floor((lon + 180) / 360 * (1 << zoom));
+    }
+
+    static int tileY(double lat, int zoom) {
+        double rad = Math.toRadians(lat);
+        return (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * (1 << zoom));
+    }
+}
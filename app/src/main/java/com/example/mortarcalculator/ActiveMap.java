@@ -0,0 +1,328 @@
+package com.example.mortarcalculator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.osmdroid.tileprovider.MapTileProviderArray;
+import org.osmdroid.tileprovider.modules.MapTileAssetsProvider;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.tileprovider.util.SimpleRegisterReceiver;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.views.MapView;
+
+// Everything the currently selected map holds on to: image overlay and its decoders, or the tile
+// provider and prefetcher, plus the terrain clearance grid and reach masks. Nothing is loaded until
+// activate(), and release() drops it all again, so only one map's bitmaps and files are resident at
+// a time. Held by MapSession, it outlives the activity: detach() and attach() move it to the MapView
+// of a recreated activity without decoding anything again.
+public class ActiveMap {
+    private static final String TAG = "ActiveMap";
+    // Offline tiles the user can put in Android/data/<package>/files
+    private static final String MBTILES_FILE = "tiles.mbtiles";
+    private static final String TILE_PACK_EXTENSION = ".pack";
+    private static final String OVERZOOM_CACHE_DIR = "overzoom";
+
+    public interface ClearanceListener {
+        // Called on the UI thread
+        void onClearanceChecker(MapDescriptor map, ClearanceChecker checker);
+    }
+
+    private final Context context;
+    private final MapDescriptor map;
+    // The current activity's view and listener; null while detached
+    private MapView mapView;
+    private MapImageLoader.Callback callback;
+    private MapImageLoader imageLoader;
+    private BitmapOverlay bitmapOverlay;
+    private boolean fullResolution;
+    private TilePrefetcher tilePrefetcher;
+    // Mapped once; kept across attach() so a recreated view does not parse the index again
+    private TilePack tilePack;
+    private ClearanceChecker clearanceChecker;
+    private Future<?> clearanceLoad;
+    // The attached view's; dropped on detach() so a sampling run never calls into a destroyed view
+    private ClearanceListener clearanceListener;
+    private boolean released;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Keyed by firing position id, which survives recreation through PlacementSnapshot
+    private final ReachOverlay reachOverlay;
+    // At the last trim stage osmdroid's cache of visible tiles goes too; they reload from the files
+    private final MemoryBudget.Trimmable tileCacheTrimmer = stage -> {
+        if (mapView != null) {
+            mapView.getTileProvider().clearTileCache();
+        }
+    };
+
+    public ActiveMap(Context context, MapDescriptor map) {
+        this.context = context.getApplicationContext();
+        this.map = map;
+        reachOverlay = new ReachOverlay(MemoryBudget.get(context));
+    }
+
+    public MapDescriptor getMap() {
+        return map;
+    }
+
+    // True once the full-resolution image is on screen; tile maps never report it
+    public boolean isImageReady() {
+        return fullResolution;
+    }
+
+    public ReachOverlay getReachOverlay() {
+        return reachOverlay;
+    }
+
+    // Hands listener the terrain clearance grid: right away if it is sampled, otherwise once the
+    // whole map has been sampled (at most maxCells a side, not finer than the elevation data) on the
+    // elevation loader thread. Sampling runs once per map; a recreated view just listens again.
+    public void loadClearanceChecker(int maxCells, ClearanceListener listener) {
+        clearanceListener = listener;
+        if (clearanceChecker != null) {
+            listener.onClearanceChecker(map, clearanceChecker);
+            return;
+        }
+        if (clearanceLoad != null) {
+            return;
+        }
+        clearanceLoad = ElevationIndex.submit(() -> {
+            ClearanceChecker checker;
+            try {
+                checker = sampleClearance(maxCells);
+            } catch (IOException e) {
+                Log.e(TAG, "No terrain clearance for " + map.getId() + ": " + e.getMessage());
+                return;
+            }
+            mainHandler.post(() -> {
+                if (released) {
+                    return;
+                }
+                clearanceChecker = checker;
+                if (clearanceListener != null) {
+                    clearanceListener.onClearanceChecker(map, checker);
+                }
+            });
+        });
+    }
+
+    private ClearanceChecker sampleClearance(int maxCells) throws IOException {
+        ElevationSource source = ElevationIndex.get(context, map);
+        double halfWidth = (map.getEast() - map.getWest()) / 2 * GeoMath.METERS_PER_DEGREE
+                * Math.cos(Math.toRadians(map.getCenterLat()));
+        double halfHeight = (map.getNorth() - map.getSouth()) / 2 * GeoMath.METERS_PER_DEGREE;
+        double cellSize = Math.max(halfWidth, halfHeight) * 2 / maxCells;
+        if (source instanceof DSMReader) {
+            cellSize = Math.max(cellSize, ((DSMReader) source).getCellSize());
+        } else if (source instanceof HeightmapGrid) {
+            cellSize = Math.max(cellSize, ((HeightmapGrid) source).getCellSize());
+        }
+        long start = System.nanoTime();
+        ClearanceChecker checker = ClearanceChecker.sample(source, map.getCenterLat(), map.getCenterLon(),
+                -halfWidth, -halfHeight, halfWidth, halfHeight, cellSize);
+        Log.d(TAG, "Clearance grid for " + map.getId() + " (" + Math.round(cellSize) + " m cells) in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+        return checker;
+    }
+
+    public void activate(MapView mapView, MapImageLoader.Callback callback) {
+        this.mapView = mapView;
+        this.callback = callback;
+        MemoryBudget.get(context).addTrimmable(tileCacheTrimmer);
+        // Heightmaps are converted on first use; do it now rather than on the first tap
+        ElevationIndex.preload(context, map);
+        if (map.getTiles() != null) {
+            setUpTiles();
+        } else {
+            clearTiles();
+        }
+        if (map.getImage() != null) {
+            setUpImage();
+        }
+    }
+
+    // Moves the loaded map onto a recreated activity's MapView. The decoded image and region cache
+    // are reused as they are; the tile provider is rebuilt because osmdroid detaches it together
+    // with the old view, but its tiles come back from the asset and MBTiles files, not the network.
+    public void attach(MapView mapView, MapImageLoader.Callback callback) {
+        long start = System.nanoTime();
+        this.mapView = mapView;
+        this.callback = callback;
+        MemoryBudget.get(context).addTrimmable(tileCacheTrimmer);
+        if (map.getTiles() != null) {
+            setUpTiles();
+        } else {
+            clearTiles();
+        }
+        if (bitmapOverlay != null) {
+            mapView.getOverlays().add(0, bitmapOverlay);
+        }
+        mapView.invalidate();
+        Log.d(TAG, "Reattached " + map.getId() + " in " + (System.nanoTime() - start) / 1000 + " us");
+    }
+
+    // Unhooks from the activity's views before they are destroyed; everything loaded is kept
+    public void detach() {
+        if (mapView == null) {
+            return;
+        }
+        MemoryBudget.get(context).removeTrimmable(tileCacheTrimmer);
+        if (bitmapOverlay != null) {
+            mapView.getOverlays().remove(bitmapOverlay);
+        }
+        mapView.getOverlays().remove(reachOverlay);
+        if (tilePrefetcher != null) {
+            mapView.removeMapListener(tilePrefetcher);
+            tilePrefetcher = null;
+        }
+        mapView = null;
+        callback = null;
+        clearanceListener = null;
+    }
+
+    public void release() {
+        detach();
+        released = true;
+        if (clearanceLoad != null) {
+            // Not started yet: never runs. Running: finishes, and the result is dropped.
+            clearanceLoad.cancel(false);
+            clearanceLoad = null;
+        }
+        if (imageLoader != null) {
+            imageLoader.cancel();
+            imageLoader = null;
+        }
+        if (bitmapOverlay != null) {
+            bitmapOverlay.release();
+            bitmapOverlay = null;
+        }
+        reachOverlay.release();
+        clearanceChecker = null;
+        tilePack = null;
+        ElevationIndex.release(map);
+        Log.d(TAG, "Released " + map.getId());
+    }
+
+    // The image loads in the background, preview first, then full resolution. Maps larger than
+    // 2048 px load their detail region by region when zoomed in.
+    private void setUpImage() {
+        BitmapOverlay overlay = new BitmapOverlay(
+                new BoundingBox(map.getNorth(), map.getEast(), map.getSouth(), map.getWest()));
+        bitmapOverlay = overlay;
+        // Beneath the firing positions and targets
+        mapView.getOverlays().add(0, overlay);
+        imageLoader = new MapImageLoader(context, map.getImage(), map.getThumbnail());
+        imageLoader.load(new MapImageLoader.Callback() {
+            @Override
+            public void onMapImage(Bitmap bitmap, boolean fullResolution) {
+                overlay.setBitmap(bitmap);
+                ActiveMap.this.fullResolution = fullResolution;
+                if (mapView != null) {
+                    mapView.invalidate();
+                    callback.onMapImage(bitmap, fullResolution);
+                }
+            }
+
+            @Override
+            public void onRegionDecoder(BitmapRegionDecoder decoder) {
+                overlay.setRegionCache(new MapRegionCache(decoder, MemoryBudget.get(context), ActiveMap.this::invalidate));
+                Log.d(TAG, "Region decoding enabled for " + decoder.getWidth() + "x" + decoder.getHeight() + " map");
+            }
+        });
+    }
+
+    // Tile pyramid: one packed file (*.pack, built by the packTiles task) or a folder in assets.
+    // Only the visible tiles of the current zoom are held in memory (osmdroid's cache).
+    // An MBTiles file, if present, is asked first, and tiles around the screen are decoded ahead.
+    // Tiles past the pack's last zoom and in gaps of the pyramid are built from neighbouring levels.
+    // setTileProvider detaches the previous map's provider.
+    private void setUpTiles() {
+        try {
+            SimpleRegisterReceiver receiver = new SimpleRegisterReceiver(context);
+            AssetTileSource tileSource;
+            MapTileModuleProviderBase bundledProvider;
+            OverzoomTileProvider overzoomProvider = null;
+            if (map.getTiles().endsWith(TILE_PACK_EXTENSION)) {
+                if (tilePack == null) {
+                    long start = System.nanoTime();
+                    tilePack = new TilePack(AssetFiles.map(context, map.getTiles()));
+                    Log.d(TAG, "Tile pack " + map.getTiles() + ": " + tilePack.size() + " tiles, opened in "
+                            + (System.nanoTime() - start) / 1000 + " us");
+                }
+                tileSource = new AssetTileSource(map.getTiles(), tilePack.getMinZoom(), tilePack.getMaxZoom(),
+                        tilePack.getTileSize(), ".png", new BoundingBox(tilePack.getNorth(), tilePack.getEast(),
+                        tilePack.getSouth(), tilePack.getWest()));
+                TilePackProvider packProvider = new TilePackProvider(tilePack, MemoryBudget.get(context));
+                bundledProvider = packProvider;
+                File overzoomDir = new File(new File(context.getCacheDir(), OVERZOOM_CACHE_DIR),
+                        map.getId() + "-v" + BuildConfig.VERSION_CODE);
+                overzoomProvider = new OverzoomTileProvider(packProvider, tilePack, tilePack.getMinZoom(),
+                        tilePack.getMaxZoom(), tilePack.getTileSize(), MemoryBudget.get(context), overzoomDir);
+            } else {
+                tileSource = AssetTileSource.fromTileMapResource(context.getAssets(), map.getTiles());
+                bundledProvider = new MapTileAssetsProvider(receiver, context.getAssets(), tileSource);
+            }
+            MBTilesReader mbTilesReader = openMBTiles();
+            List<MapTileModuleProviderBase> modules = new ArrayList<>();
+            if (mbTilesReader != null) {
+                modules.add(mbTilesReader);
+            }
+            modules.add(bundledProvider);
+            if (overzoomProvider != null) {
+                // Asked last: only for tiles the files above do not have, and past their last zoom
+                modules.add(overzoomProvider);
+            }
+            mapView.setTileProvider(new MapTileProviderArray(tileSource, receiver,
+                    modules.toArray(new MapTileModuleProviderBase[0])));
+            // Turned off by clearTiles() when an image map was shown before
+            mapView.getOverlayManager().getTilesOverlay().setEnabled(true);
+            if (mbTilesReader != null) {
+                tilePrefetcher = new TilePrefetcher(mapView, mbTilesReader);
+                mapView.addMapListener(tilePrefetcher);
+            }
+            Log.d(TAG, "Asset tiles: zoom " + tileSource.getMinimumZoomLevel() + "-" + tileSource.getMaximumZoomLevel()
+                    + (overzoomProvider != null ? ", synthesized to " + overzoomProvider.getMaximumZoomLevel() : "")
+                    + ", bounds " + tileSource.getBounds());
+        } catch (IOException e) {
+            Log.e(TAG, "Asset tiles unavailable: " + e.getMessage());
+            clearTiles();
+        }
+    }
+
+    // Image map without tiles: an empty provider instead of the previous map's tiles
+    private void clearTiles() {
+        SimpleRegisterReceiver receiver = new SimpleRegisterReceiver(context);
+        mapView.setTileProvider(new MapTileProviderArray(TileSourceFactory.DEFAULT_TILE_SOURCE, receiver,
+                new MapTileModuleProviderBase[0]));
+        mapView.getOverlayManager().getTilesOverlay().setEnabled(false);
+    }
+
+    private MBTilesReader openMBTiles() {
+        File file = new File(context.getExternalFilesDir(null), MBTILES_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            MBTilesReader reader = new MBTilesReader(file.getPath(), MemoryBudget.get(context));
+            Log.d(TAG, "MBTiles opened: " + file + ", zoom " + reader.getMinimumZoomLevel() + "-" + reader.getMaximumZoomLevel());
+            return reader;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Cannot open " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void invalidate() {
+        if (mapView != null) {
+            mapView.invalidate();
+        }
+    }
+}
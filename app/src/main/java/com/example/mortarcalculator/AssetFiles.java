@@ -0,0 +1,62 @@
+package com.example.mortarcalculator;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public final class AssetFiles {
+    private static final String TAG = "AssetFiles";
+
+    private AssetFiles() {
+    }
+
+    // Maps an asset read-only. Uncompressed assets are mapped in place inside the APK,
+    // compressed ones are copied to the cache dir once and mapped from there.
+    public static MappedByteBuffer map(Context context, String assetPath) throws IOException {
+        try (AssetFileDescriptor afd = context.getAssets().openFd(assetPath);
+             FileInputStream in = afd.createInputStream()) {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getDeclaredLength());
+        } catch (FileNotFoundException e) {
+            Log.w(TAG, "Asset " + assetPath + " is compressed, mapping a cached copy");
+            return mapFile(copyToCache(context, assetPath));
+        }
+    }
+
+    public static MappedByteBuffer mapFile(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static File copyToCache(Context context, String assetPath) throws IOException {
+        File cached = new File(context.getCacheDir(), assetPath.replace('/', '_'));
+        if (cached.exists()) {
+            return cached;
+        }
+        File temp = new File(cached.getPath() + ".tmp");
+        try (InputStream in = context.getAssets().open(assetPath);
+             OutputStream out = new FileOutputStream(temp)) {
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        }
+        if (!temp.renameTo(cached)) {
+            throw new IOException("Cannot move " + temp + " to " + cached);
+        }
+        return cached;
+    }
+}
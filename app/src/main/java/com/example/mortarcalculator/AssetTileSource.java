@@ -0,0 +1,82 @@
+package com.example.mortarcalculator;
+
+import android.content.res.AssetManager;
+import android.util.Xml;
+
+import org.osmdroid.tileprovider.tilesource.BitmapTileSourceBase;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.MapTileIndex;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Tile source for a gdal2tiles TMS pyramid bundled under assets/<basePath>/{z}/{x}/{y}.png.
+// TMS counts rows from the south, osmdroid from the north, so y is flipped here.
+public class AssetTileSource extends BitmapTileSourceBase {
+    private final String basePath;
+    private final BoundingBox bounds;
+
+    public AssetTileSource(String basePath, int minZoom, int maxZoom, int tileSize, String extension, BoundingBox bounds) {
+        super(basePath, minZoom, maxZoom, tileSize, extension);
+        this.basePath = basePath;
+        this.bounds = bounds;
+    }
+
+    // Reads zoom range, tile format and extent from the pyramid's tilemapresource.xml
+    public static AssetTileSource fromTileMapResource(AssetManager assets, String basePath) throws IOException {
+        int minZoom = Integer.MAX_VALUE;
+        int maxZoom = Integer.MIN_VALUE;
+        int tileSize = 256;
+        String extension = ".png";
+        BoundingBox bounds = null;
+        try (InputStream in = assets.open(basePath + "/tilemapresource.xml")) {
+            XmlPullParser parser = Xml.newPullParser();
+            parser.setInput(in, null);
+            for (int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+                if (event != XmlPullParser.START_TAG) {
+                    continue;
+                }
+                switch (parser.getName()) {
+                    case "TileSet":
+                        int order = Integer.parseInt(parser.getAttributeValue(null, "order"));
+                        minZoom = Math.min(minZoom, order);
+                        maxZoom = Math.max(maxZoom, order);
+                        break;
+                    case "TileFormat":
+                        tileSize = Integer.parseInt(parser.getAttributeValue(null, "width"));
+                        extension = "." + parser.getAttributeValue(null, "extension");
+                        break;
+                    case "BoundingBox":
+                        // gdal2tiles writes geodetic degrees here: x is longitude, y is latitude
+                        bounds = new BoundingBox(
+                                Double.parseDouble(parser.getAttributeValue(null, "maxy")),
+                                Double.parseDouble(parser.getAttributeValue(null, "maxx")),
+                                Double.parseDouble(parser.getAttributeValue(null, "miny")),
+                                Double.parseDouble(parser.getAttributeValue(null, "minx")));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XmlPullParserException | NumberFormatException | NullPointerException e) {
+            throw new IOException("Bad " + basePath + "/tilemapresource.xml", e);
+        }
+        if (minZoom > maxZoom || bounds == null) {
+            throw new IOException(basePath + "/tilemapresource.xml has no tile sets");
+        }
+        return new AssetTileSource(basePath, minZoom, maxZoom, tileSize, extension, bounds);
+    }
+
+    @Override
+    public String getTileRelativeFilenameString(long mapTileIndex) {
+        int zoom = MapTileIndex.getZoom(mapTileIndex);
+        int tmsY = (1 << zoom) - 1 - MapTileIndex.getY(mapTileIndex);
+        return basePath + "/" + zoom + "/" + MapTileIndex.getX(mapTileIndex) + "/" + tmsY + imageFilenameEnding();
+    }
+
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+}
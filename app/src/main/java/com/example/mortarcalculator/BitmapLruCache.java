@@ -0,0 +1,54 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+// Byte-accounted bitmap LRU sized by MemoryBudget: a weighted share of the app's bitmap budget,
+// scaled down while the system is short of memory. While disabled (the budget's last trim stage)
+// nothing should be put; whatever still is gets evicted straight away.
+public class BitmapLruCache<K> extends LruCache<K, Bitmap> {
+    public interface OnRemoved<K> {
+        // evicted is false when the entry was replaced or remove()d by the owner
+        void onRemoved(K key, Bitmap bitmap, boolean evicted);
+    }
+
+    private final String name;
+    private final int weight;
+    private final OnRemoved<K> onRemoved;
+    private volatile boolean enabled = true;
+
+    BitmapLruCache(String name, int weight, int maxBytes, OnRemoved<K> onRemoved) {
+        super(Math.max(maxBytes, 1));
+        this.name = name;
+        this.weight = weight;
+        this.onRemoved = onRemoved;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Called by MemoryBudget; 0 empties and disables the cache
+    void setLimit(int maxBytes) {
+        enabled = maxBytes > 0;
+        resize(Math.max(maxBytes, 1));
+    }
+
+    @Override
+    protected int sizeOf(K key, Bitmap bitmap) {
+        return bitmap.getAllocationByteCount();
+    }
+
+    @Override
+    protected void entryRemoved(boolean evicted, K key, Bitmap oldValue, Bitmap newValue) {
+        onRemoved.onRemoved(key, oldValue, evicted);
+    }
+}
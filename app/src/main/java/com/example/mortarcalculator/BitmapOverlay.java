@@ -1,8 +1,6 @@
 package com.example.mortarcalculator;
 
-import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Point;
 import android.graphics.Rect;
@@ -10,98 +8,85 @@ import android.util.Log;
 import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
 import org.osmdroid.views.overlay.Overlay;
 
-import java.io.IOException;
-import java.io.InputStream;
-
 public class BitmapOverlay extends Overlay {
     private static final String TAG = "BitmapOverlay";
-    private final Bitmap bitmap;
+    private Bitmap bitmap;
+    private MapRegionCache regionCache;
     private final BoundingBox boundingBox;
+    private final GeoPoint topLeftGeo;
+    private final GeoPoint bottomRightGeo;
 
-    public BitmapOverlay(Context context, MapView mapView) {
-        super();
-        Bitmap tempBitmap = null;
-        try (InputStream inputStream = context.getAssets().open("al_basrah/map.png")) {
-            // Decode bitmap with scaling
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeStream(inputStream, null, options);
-            inputStream.reset();
-            options.inSampleSize = calculateInSampleSize(options, 2048, 2048);
-            options.inJustDecodeBounds = false;
-            tempBitmap = BitmapFactory.decodeStream(inputStream, null, options);
-            if (tempBitmap == null) {
-                throw new IOException("BitmapFactory returned null");
-            }
-            Log.d(TAG, "Bitmap loaded: " + tempBitmap.getWidth() + "x" + tempBitmap.getHeight());
-        } catch (IOException e) {
-            Log.e(TAG, "Failed to load map.png: " + e.getMessage());
-            throw new RuntimeException("Cannot load map.png", e);
-        } catch (OutOfMemoryError e) {
-            Log.e(TAG, "OutOfMemoryError loading map.png: " + e.getMessage());
-            throw new RuntimeException("OutOfMemoryError loading map.png", e);
-        }
-        this.bitmap = tempBitmap;
+    // Reused by draw(), which runs every frame
+    private final Point topLeft = new Point();
+    private final Point bottomRight = new Point();
+    private final Rect destRect = new Rect();
+    private final Rect clipRect = new Rect();
+    private Projection projectedWith;
+    private double projectedZoom;
+    private long projectedOffsetX;
+    private long projectedOffsetY;
 
-        // Map boundaries for Al Basrah
-        double north = 31.0;
-        double south = 30.0;
-        double east = 48.0;
-        double west = 47.0;
-        boundingBox = new BoundingBox(north, east, south, west);
+    public BitmapOverlay(BoundingBox boundingBox) {
+        super();
+        this.boundingBox = boundingBox;
+        topLeftGeo = new GeoPoint(boundingBox.getLatNorth(), boundingBox.getLonWest());
+        bottomRightGeo = new GeoPoint(boundingBox.getLatSouth(), boundingBox.getLonEast());
         Log.d(TAG, "BoundingBox set: " + boundingBox.toString());
     }
 
-    @Override
-    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
-        if (shadow || bitmap == null) {
-            Log.w(TAG, "Skipping draw: shadow=" + shadow + ", bitmap=" + (bitmap == null));
-            return;
+    // UI thread only: swaps in a new image (preview, then full resolution) and frees the old one
+    public void setBitmap(Bitmap bitmap) {
+        Bitmap previous = this.bitmap;
+        this.bitmap = bitmap;
+        if (previous != null && previous != bitmap) {
+            previous.recycle();
         }
+        if (bitmap != null) {
+            Log.d(TAG, "Bitmap set: " + bitmap.getWidth() + "x" + bitmap.getHeight());
+        }
+    }
 
-        // Get map projection
-        Rect screenRect = new Rect();
-        canvas.getClipBounds(screenRect);
-        Log.d(TAG, "Screen rect: " + screenRect.toString());
+    // UI thread only: full-resolution regions drawn over the base bitmap when zoomed in
+    public void setRegionCache(MapRegionCache regionCache) {
+        if (this.regionCache != null) {
+            this.regionCache.release();
+        }
+        this.regionCache = regionCache;
+    }
 
-        // Convert geographic coordinates to pixels
-        GeoPoint topLeftGeo = new GeoPoint(boundingBox.getLatNorth(), boundingBox.getLonWest());
-        GeoPoint bottomRightGeo = new GeoPoint(boundingBox.getLatSouth(), boundingBox.getLonEast());
-        Point topLeft = mapView.getProjection().toPixels(topLeftGeo, null);
-        Point bottomRight = mapView.getProjection().toPixels(bottomRightGeo, null);
+    public void release() {
+        setRegionCache(null);
+        setBitmap(null);
+    }
 
-        if (topLeft == null || bottomRight == null) {
-            Log.w(TAG, "Projection returned null coordinates");
+    @Override
+    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (shadow || bitmap == null) {
             return;
         }
+        long start = PerfTrace.begin("BitmapOverlay.draw");
 
-        // Define drawing area
-        Rect destRect = new Rect(topLeft.x, topLeft.y, bottomRight.x, bottomRight.y);
-        Log.d(TAG, "Drawing bitmap to destRect: " + destRect.toString());
-
-        // Draw the bitmap
-        try {
-            canvas.drawBitmap(bitmap, null, destRect, null);
-            Log.d(TAG, "Bitmap drawn successfully");
-        } catch (Exception e) {
-            Log.e(TAG, "Error drawing bitmap: " + e.getMessage());
+        // Reproject the corners only when osmdroid hands out a new projection (scroll, zoom, layout)
+        Projection projection = mapView.getProjection();
+        if (projection != projectedWith || projection.getZoomLevel() != projectedZoom
+                || projection.getOffsetX() != projectedOffsetX || projection.getOffsetY() != projectedOffsetY) {
+            projection.toPixels(topLeftGeo, topLeft);
+            projection.toPixels(bottomRightGeo, bottomRight);
+            destRect.set(topLeft.x, topLeft.y, bottomRight.x, bottomRight.y);
+            projectedWith = projection;
+            projectedZoom = projection.getZoomLevel();
+            projectedOffsetX = projection.getOffsetX();
+            projectedOffsetY = projection.getOffsetY();
         }
-    }
-
-    private static int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        final int height = options.outHeight;
-        final int width = options.outWidth;
-        int inSampleSize = 1;
 
-        if (height > reqHeight || width > reqWidth) {
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
-            while ((halfHeight / inSampleSize) >= reqHeight && (halfWidth / inSampleSize) >= reqWidth) {
-                inSampleSize *= 2;
-            }
+        canvas.drawBitmap(bitmap, null, destRect, null);
+        if (regionCache != null) {
+            canvas.getClipBounds(clipRect);
+            regionCache.draw(canvas, destRect, clipRect, bitmap);
         }
-        return inSampleSize;
+        PerfTrace.end(Metrics.OVERLAY_DRAW, start);
     }
 }
\ No newline at end of file
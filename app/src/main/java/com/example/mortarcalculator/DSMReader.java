@@ -1,10 +0,0 @@
-package com.example.mortarcalculator;
-
-import java.io.InputStream;
-
-public class DSMReader {
-    public static double getElevation(double lat, double lon, InputStream tifStream) {
-        // Placeholder: return a test elevation
-        return 100.0;
-    }
-}
\ No newline at end of file
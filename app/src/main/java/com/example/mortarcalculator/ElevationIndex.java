@@ -0,0 +1,129 @@
+package com.example.mortarcalculator;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Process-wide elevation sources: each raster or heightmap is opened and indexed once and shared
+// by all views. Sources are dropped again when their map is switched away from.
+// Opening, trimming and releasing all happen on one background loader thread, so nothing is
+// opened under a lock; the UI thread only peek()s, and sends lookups that would wait to submit().
+public final class ElevationIndex {
+    private static final String TAG = "ElevationIndex";
+
+    // Written on the loader thread only
+    private static final Map<String, ElevationSource> sources = new ConcurrentHashMap<>();
+    // Maps whose elevation could not be opened: lookups fail fast instead of retrying the asset
+    private static final Map<String, IOException> failures = new ConcurrentHashMap<>();
+    // Opens sources ahead of the first tap: converting a heightmap PNG takes far too long for the UI thread
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "elevation-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // At the budget's last stage decoded DSM blocks are dropped and every source is forgotten; the
+    // next lookup maps the raster or the converted heightmap file again, which is cheap
+    private static final MemoryBudget.Trimmable trimmer = stage -> loader.execute(ElevationIndex::trim);
+    // Loader thread only
+    private static boolean trimmerRegistered;
+
+    private ElevationIndex() {
+    }
+
+    // Elevation for a map: its own heightmap when it ships one, its DSM raster otherwise. Opens it
+    // on first use, which can take seconds for a heightmap, so only ever called on the loader
+    // thread: from preload() or a task passed to submit().
+    public static ElevationSource get(Context context, MapDescriptor map) throws IOException {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("ElevationIndex.get() on the UI thread; use peek() or submit()");
+        }
+        ElevationSource source = sources.get(map.getId());
+        if (source == null) {
+            IOException failure = failures.get(map.getId());
+            if (failure != null) {
+                throw new IOException(failure.getMessage(), failure);
+            }
+            long start = System.nanoTime();
+            Context appContext = context.getApplicationContext();
+            try {
+                if (map.getHeightmap() != null) {
+                    source = HeightmapStore.load(appContext, map);
+                } else if (map.getDsm() != null) {
+                    DSMReader reader = new DSMReader(AssetFiles.map(appContext, map.getDsm()));
+                    if (reader.isCompressed()) {
+                        // Blocks around a miss are decoded ahead on the shared pool
+                        reader.setPrefetchExecutor(ForkJoinPool.commonPool());
+                    }
+                    source = reader;
+                } else {
+                    throw new IOException("Map " + map.getId() + " has no elevation data");
+                }
+            } catch (IOException e) {
+                failures.put(map.getId(), e);
+                Log.w(TAG, "Elevation for " + map.getId() + " unavailable: " + e.getMessage());
+                throw e;
+            }
+            sources.put(map.getId(), source);
+            if (!trimmerRegistered) {
+                MemoryBudget.get(appContext).addTrimmable(trimmer);
+                trimmerRegistered = true;
+            }
+            Log.d(TAG, "Elevation for " + map.getId() + " indexed in " + (System.nanoTime() - start) / 1000 + " us");
+        }
+        return source;
+    }
+
+    // Never blocks: the map's elevation if it is open, null while it is still loading or if it failed
+    public static ElevationSource peek(MapDescriptor map) {
+        return sources.get(map.getId());
+    }
+
+    // Opens the map's elevation in the background; call when the map is selected so peek() from the
+    // UI thread finds it ready. A failure is logged and remembered by get().
+    public static Future<?> preload(Context context, MapDescriptor map) {
+        Context appContext = context.getApplicationContext();
+        return loader.submit(() -> {
+            try {
+                get(appContext, map);
+            } catch (IOException e) {
+                // already logged
+            }
+        });
+    }
+
+    // Runs work that reads elevation on the same background thread, after any open queued before it
+    public static Future<?> submit(Runnable task) {
+        return loader.submit(task);
+    }
+
+    private static void trim() {
+        for (ElevationSource source : sources.values()) {
+            if (source instanceof DSMReader) {
+                ((DSMReader) source).clearBlockCache();
+            }
+        }
+        Log.d(TAG, "Trimmed: dropped " + sources.size() + " elevation sources");
+        sources.clear();
+    }
+
+    // Also forgets a failure, so selecting the map again retries. Queued behind any open in progress,
+    // which would otherwise put the source back after it was released.
+    public static void release(MapDescriptor map) {
+        loader.execute(() -> {
+            sources.remove(map.getId());
+            failures.remove(map.getId());
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mortarcalculator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Decodes a map's heightmap PNG once into a HeightmapGrid file under filesDir;
+// later launches just map that file.
+public final class HeightmapStore {
+    private static final String TAG = "HeightmapStore";
+
+    private HeightmapStore() {
+    }
+
+    public static HeightmapGrid load(Context context, MapDescriptor map) throws IOException {
+        File dir = new File(context.getFilesDir(), "heightmaps");
+        File cached = new File(dir, map.getId() + "-v" + BuildConfig.VERSION_CODE + ".hmap");
+        if (cached.exists()) {
+            try {
+                return HeightmapGrid.open(cached);
+            } catch (IOException e) {
+                Log.w(TAG, "Discarding unreadable heightmap cache " + cached + ": " + e.getMessage());
+            }
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        long start = System.nanoTime();
+        Bitmap bitmap;
+        try (InputStream in = context.getAssets().open(map.getHeightmap())) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            options.inScaled = false;
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("BitmapFactory returned null for " + map.getHeightmap());
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        short[] samples = new short[width * height];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1);
+            for (int x = 0; x < width; x++) {
+                // Grayscale heightmap: the red channel carries the height
+                samples[y * width + x] = (short) ((row[x] >> 16) & 0xFF);
+            }
+        }
+        bitmap.recycle();
+
+        HeightmapGrid.write(cached, width, height, samples,
+                map.getNorth(), map.getSouth(), map.getEast(), map.getWest(),
+                map.getHeightScale(), map.getHeightOffset());
+        Log.d(TAG, "Heightmap " + map.getId() + " converted in " + (System.nanoTime() - start) / 1000000 + " ms");
+        return HeightmapGrid.open(cached);
+    }
+}
@@ -1,53 +1,222 @@
 package com.example.mortarcalculator;
 
-import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.util.Log;
 
-public class MBTilesReader {
-    private SQLiteDatabase database;
-    private int minZoom;
-    private int maxZoom;
+import org.osmdroid.tileprovider.BitmapPool;
+import org.osmdroid.tileprovider.ReusableBitmapDrawable;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
 
-    public MBTilesReader(String mbTilesPath) {
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// osmdroid tile module over an MBTiles file. Tiles are decoded on the module's worker threads
+// (never on the UI thread) into pooled bitmaps; tiles around the viewport can be prefetched into
+// a byte-bounded LRU, sized by MemoryBudget, so a fast pan finds them already decoded.
+public class MBTilesReader extends MapTileModuleProviderBase implements TilePrefetcher.Target {
+    private static final String TAG = "MBTilesReader";
+    private static final int THREADS = 2;
+    private static final int PENDING_QUEUE_SIZE = 40;
+    // Share of the memory budget against other caches' weights
+    private static final int BUDGET_WEIGHT = 1;
+    private static final String TILE_QUERY =
+            "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?";
+
+    private final SQLiteDatabase database;
+    private final int minZoom;
+    private final int maxZoom;
+    private int tileSize = 256;
+
+    // SQLiteStatement is not thread-safe: each worker compiles its own once
+    private final List<SQLiteStatement> statements = new ArrayList<>();
+    private final ThreadLocal<SQLiteStatement> tileStatement = new ThreadLocal<SQLiteStatement>() {
+        @Override
+        protected SQLiteStatement initialValue() {
+            SQLiteStatement statement = database.compileStatement(TILE_QUERY);
+            synchronized (statements) {
+                statements.add(statement);
+            }
+            return statement;
+        }
+    };
+
+    private final MemoryBudget budget;
+    private final BitmapLruCache<Long> decodedTiles;
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    public MBTilesReader(String mbTilesPath, MemoryBudget budget) {
+        super(THREADS, PENDING_QUEUE_SIZE);
         try {
             database = SQLiteDatabase.openDatabase(mbTilesPath, null, SQLiteDatabase.OPEN_READONLY);
-            Cursor cursor = database.rawQuery("SELECT MIN(zoom_level), MAX(zoom_level) FROM tiles", null);
-            if (cursor.moveToFirst()) {
-                minZoom = cursor.getInt(0);
-                maxZoom = cursor.getInt(1);
+            try (SQLiteStatement min = database.compileStatement("SELECT MIN(zoom_level) FROM tiles");
+                 SQLiteStatement max = database.compileStatement("SELECT MAX(zoom_level) FROM tiles")) {
+                minZoom = (int) min.simpleQueryForLong();
+                maxZoom = (int) max.simpleQueryForLong();
             }
-            cursor.close();
         } catch (Exception e) {
             throw new RuntimeException("Failed to open MBTiles file: " + mbTilesPath, e);
         }
+
+        this.budget = budget;
+        decodedTiles = budget.newCache("prefetched tiles", BUDGET_WEIGHT, (key, bitmap, evicted) -> {
+            // Prefetched but never shown: give the memory back for inBitmap reuse
+            if (evicted) {
+                BitmapPool.getInstance().returnDrawableToPool(new ReusableBitmapDrawable(bitmap));
+            }
+        });
+
+        prefetchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "mbtiles-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
+    // Decodes one tile on the calling thread; osmdroid's workers and the prefetcher call this.
     public Bitmap getTile(int zoom, int tileX, int tileY) {
         int tmsTileY = (1 << zoom) - 1 - tileY;
-        String query = "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?";
-        Cursor cursor = database.rawQuery(query, new String[]{String.valueOf(zoom), String.valueOf(tileX), String.valueOf(tmsTileY)});
-        Bitmap bitmap = null;
-        if (cursor.moveToFirst()) {
-            byte[] tileData = cursor.getBlob(0);
-            bitmap = BitmapFactory.decodeByteArray(tileData, 0, tileData.length);
+        SQLiteStatement statement = tileStatement.get();
+        statement.bindLong(1, zoom);
+        statement.bindLong(2, tileX);
+        statement.bindLong(3, tmsTileY);
+        try (ParcelFileDescriptor blob = statement.simpleQueryForBlobFileDescriptor()) {
+            if (blob == null) {
+                return null;
+            }
+            long start = PerfTrace.begin("MBTiles.decode");
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            BitmapPool.getInstance().applyReusableOptions(options, tileSize, tileSize);
+            try {
+                return BitmapFactory.decodeFileDescriptor(blob.getFileDescriptor(), null, options);
+            } catch (IllegalArgumentException e) {
+                // Pooled bitmap did not fit this tile; decode into fresh memory
+                options.inBitmap = null;
+                return BitmapFactory.decodeFileDescriptor(blob.getFileDescriptor(), null, options);
+            } catch (OutOfMemoryError e) {
+                // osmdroid asks for the tile again on a later frame
+                budget.onOutOfMemory();
+                return null;
+            } finally {
+                PerfTrace.end(Metrics.TILE_DECODE, start);
+            }
+        } catch (SQLiteDoneException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Tile blob close failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void prefetch(long[] mapTileIndices, int count) {
+        // Only the latest viewport matters: drop whatever is still queued from earlier pans
+        prefetchExecutor.getQueue().clear();
+        if (!decodedTiles.isEnabled()) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            long index = mapTileIndices[i];
+            int zoom = MapTileIndex.getZoom(index);
+            if (zoom < minZoom || zoom > maxZoom) {
+                continue;
+            }
+            prefetchExecutor.execute(() -> {
+                if (decodedTiles.get(index) != null) {
+                    return;
+                }
+                Bitmap bitmap = getTile(zoom, MapTileIndex.getX(index), MapTileIndex.getY(index));
+                if (bitmap != null) {
+                    decodedTiles.put(index, bitmap);
+                }
+            });
         }
-        cursor.close();
-        return bitmap;
+    }
+
+    @Override
+    public TileLoader getTileLoader() {
+        return new TileLoader() {
+            @Override
+            public Drawable loadTile(long mapTileIndex) {
+                // A prefetched tile moves to osmdroid's tile cache, which recycles it into the pool
+                Bitmap bitmap = decodedTiles.get(mapTileIndex);
+                if (bitmap != null) {
+                    decodedTiles.remove(mapTileIndex);
+                }
+                PerfTrace.count(bitmap != null ? Metrics.TILE_CACHE_HIT : Metrics.TILE_CACHE_MISS);
+                if (bitmap == null) {
+                    bitmap = getTile(MapTileIndex.getZoom(mapTileIndex),
+                            MapTileIndex.getX(mapTileIndex), MapTileIndex.getY(mapTileIndex));
+                }
+                return bitmap == null ? null : new ReusableBitmapDrawable(bitmap);
+            }
+        };
+    }
+
+    @Override
+    public void detach() {
+        super.detach();
+        close();
     }
 
     public void close() {
+        prefetchExecutor.shutdownNow();
+        budget.release(decodedTiles);
+        synchronized (statements) {
+            for (SQLiteStatement statement : statements) {
+                statement.close();
+            }
+            statements.clear();
+        }
         if (database != null && database.isOpen()) {
             database.close();
         }
     }
 
-    public int getMaxZoom() {
+    @Override
+    public boolean getUsesDataConnection() {
+        return false;
+    }
+
+    @Override
+    protected String getName() {
+        return "MBTiles Provider";
+    }
+
+    @Override
+    protected String getThreadGroupName() {
+        return "mbtiles";
+    }
+
+    @Override
+    public void setTileSource(ITileSource tileSource) {
+        if (tileSource != null) {
+            tileSize = tileSource.getTileSizePixels();
+        }
+    }
+
+    @Override
+    public int getMaximumZoomLevel() {
         return maxZoom;
     }
 
-    public int getMinZoom() {
+    @Override
+    public int getMinimumZoomLevel() {
         return minZoom;
     }
-}
\ No newline at end of file
+}
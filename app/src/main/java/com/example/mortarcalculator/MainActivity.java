@@ -1,23 +1,56 @@
 package com.example.mortarcalculator;
 
+import android.graphics.Bitmap;
+import android.graphics.Typeface;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.ScrollView;
+import android.widget.Spinner;
 import android.widget.TextView;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+
+import java.io.IOException;
+import java.util.List;
 import org.osmdroid.config.Configuration;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
+    private static final String STATE_PLACEMENTS = "placements";
     private MapView mapView;
     private TouchableImageView touchableImageView;
+    // Survives recreation; activeMap is the part of it shown by this activity
+    private MapSession session;
+    private ActiveMap activeMap;
+    // Placements saved by the previous instance, applied when its map is selected again
+    private PlacementSnapshot pendingSnapshot;
+    private boolean recreated;
+    private long createStartNanos;
+    private boolean fullyDrawnReported;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        createStartNanos = System.nanoTime();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        session = new ViewModelProvider(this).get(MapSession.class);
+        recreated = savedInstanceState != null;
+        byte[] placements = savedInstanceState != null ? savedInstanceState.getByteArray(STATE_PLACEMENTS) : null;
+        if (placements != null) {
+            try {
+                pendingSnapshot = PlacementSnapshot.fromBytes(placements);
+            } catch (IOException e) {
+                Log.w(TAG, "Saved placements dropped: " + e.getMessage());
+            }
+        }
 
         // Инициализация osmdroid
         Configuration.getInstance().setUserAgentValue(getPackageName());
@@ -26,14 +59,9 @@ public class MainActivity extends AppCompatActivity {
         mapView = findViewById(R.id.mapView);
         mapView.setMultiTouchControls(true);
         mapView.setTilesScaledToDpi(true);
-        // Отключаем тайлы, так как используется BitmapOverlay
+        // Только локальные тайлы из assets, без сети
         mapView.setUseDataConnection(false);
-        Log.d(TAG, "MapView initialized without tile source");
-
-        // Центрирование карты (пример координат для Al Basrah)
-        mapView.getController().setCenter(new GeoPoint(30.5, 47.8));
-        mapView.getController().setZoom(12.0);
-        Log.d(TAG, "MapView centered");
+        Log.d(TAG, "MapView initialized");
 
         // Настройка TouchableImageView
         touchableImageView = findViewById(R.id.touchableImageView);
@@ -55,11 +83,135 @@ public class MainActivity extends AppCompatActivity {
             touchableImageView.reset();
             Log.d(TAG, "Reset button clicked");
         });
+        // Долгое нажатие в debug-сборке: сводка метрик и памяти на экране и в logcat (тег PerfTrace)
+        if (PerfTrace.ENABLED) {
+            resetButton.setOnLongClickListener(v -> {
+                PerfTrace.dump();
+                showDebugStats();
+                return true;
+            });
+        }
+
+        // Таблица стрельбы: из сессии после поворота, иначе из кэша в filesDir
+        // или строится в фоне сессией (один раз, даже если экран повернули во время сборки)
+        session.loadRangeTable(TouchableImageView.getWeapon(), touchableImageView::setRangeTable);
+
+        // Выбор карты: ресурсы грузятся только для выбранной, прежняя освобождается
+        List<MapDescriptor> maps = MapCatalog.discover(getAssets());
+        Spinner mapSpinner = findViewById(R.id.mapSpinner);
+        ArrayAdapter<MapDescriptor> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, maps);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        mapSpinner.setAdapter(adapter);
+        mapSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                selectMap(maps.get(position));
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    private void selectMap(MapDescriptor map) {
+        if (activeMap != null && activeMap.getMap().getId().equals(map.getId())) {
+            return;
+        }
+        long start = System.nanoTime();
+        // Миномёты и цель привязаны к координатам прежней карты
+        touchableImageView.reset();
+        // После поворота карта уже загружена в сессии: только переподключается к новому MapView
+        ActiveMap retained = session.getActiveMap();
+        // MapCatalog parses the descriptors again in every onCreate, so maps are matched by id
+        if (retained != null && retained.getMap().getId().equals(map.getId())) {
+            activeMap = retained;
+            activeMap.attach(mapView, (bitmap, fullResolution) -> onMapImage(fullResolution));
+        } else {
+            activeMap = new ActiveMap(this, map);
+            session.setActiveMap(activeMap);
+            activeMap.activate(mapView, (bitmap, fullResolution) -> onMapImage(fullResolution));
+        }
+
+        PlacementSnapshot snapshot = pendingSnapshot;
+        pendingSnapshot = null;
+        if (snapshot != null && !snapshot.getMapId().equals(map.getId())) {
+            snapshot = null;
+        }
+        if (snapshot != null) {
+            mapView.getController().setZoom(snapshot.getZoom());
+            mapView.getController().setCenter(new GeoPoint(snapshot.getCenterLat(), snapshot.getCenterLon()));
+        } else {
+            mapView.getController().setZoom(map.getZoom());
+            mapView.getController().setCenter(new GeoPoint(map.getCenterLat(), map.getCenterLon()));
+        }
+        touchableImageView.setMap(activeMap);
+        if (snapshot != null) {
+            touchableImageView.restore(snapshot);
+        }
+        mapView.invalidate();
+        Log.d(TAG, "Map " + map.getId() + (activeMap == retained ? " reattached" : " selected") + " in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+        if (activeMap.isImageReady()) {
+            onMapImage(true);
+        }
+    }
+
+    // Time to a usable map, from onCreate: cold start, or recreation after a configuration change
+    private void onMapImage(boolean fullResolution) {
+        if (fullyDrawnReported) {
+            return;
+        }
+        long elapsedMs = (System.nanoTime() - createStartNanos) / 1000000;
+        String phase = recreated ? "Recreated" : "Startup";
+        if (fullResolution) {
+            fullyDrawnReported = true;
+            reportFullyDrawn();
+            Log.d(TAG, phase + ": full map after " + elapsedMs + " ms");
+        } else {
+            Log.d(TAG, phase + ": map preview after " + elapsedMs + " ms");
+        }
+        // The frame that first draws it: time to the first interactive frame showing the map
+        String shown = fullResolution ? "full map" : "map preview";
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos -> Log.d(TAG, phase + ": " + shown
+                + " on screen after " + (frameTimeNanos - createStartNanos) / 1000000 + " ms"));
+    }
+
+    // Debug builds only: latency histograms, cache hit rates and resident bitmap bytes
+    private void showDebugStats() {
+        TextView stats = new TextView(this);
+        stats.setTypeface(Typeface.MONOSPACE);
+        stats.setTextSize(11);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        stats.setPadding(padding, padding, padding, padding);
+        stats.setText(MemoryBudget.get(this).summary() + "\n" + Metrics.summary());
+        ScrollView scroll = new ScrollView(this);
+        scroll.addView(stats);
+        new AlertDialog.Builder(this)
+                .setTitle("Память и метрики")
+                .setView(scroll)
+                .setPositiveButton("Закрыть", null)
+                .setNeutralButton("Сбросить метрики", (dialog, which) -> Metrics.reset())
+                .show();
+    }
 
-        // Добавление наложения карты
-        BitmapOverlay bitmapOverlay = new BitmapOverlay(this, mapView);
-        mapView.getOverlays().add(bitmapOverlay);
-        Log.d(TAG, "BitmapOverlay added");
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (activeMap != null) {
+            outState.putByteArray(STATE_PLACEMENTS, touchableImageView.snapshot().toBytes());
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        session.removeRangeTableListener();
+        touchableImageView.release();
+        // The session releases the map when the activity finishes for good
+        if (activeMap != null) {
+            activeMap.detach();
+        }
     }
 
     @Override
@@ -73,4 +225,4 @@ public class MainActivity extends AppCompatActivity {
         super.onPause();
         mapView.onPause();
     }
-}
\ No newline at end of file
+}
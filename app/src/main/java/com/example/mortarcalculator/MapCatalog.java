@@ -0,0 +1,96 @@
+package com.example.mortarcalculator;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+// Maps shipped in the APK: every top-level assets folder with a map.properties file whose
+// image or tiles are actually there. A map missing one is left out of the picker rather than
+// shown blank. Elevation is optional: without its heightmap or DSM a map is listed as having
+// none, and heights on it are reported as unavailable instead of read as 0 m.
+public final class MapCatalog {
+    private static final String TAG = "MapCatalog";
+    private static final String DESCRIPTOR = "map.properties";
+    private static final String TILE_PACK_EXTENSION = ".pack";
+    private static final String TILE_MAP_RESOURCE = "/tilemapresource.xml";
+
+    private MapCatalog() {
+    }
+
+    public static List<MapDescriptor> discover(AssetManager assets) {
+        List<MapDescriptor> maps = new ArrayList<>();
+        String[] folders;
+        try {
+            folders = assets.list("");
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot list assets: " + e.getMessage());
+            return maps;
+        }
+        if (folders == null) {
+            return maps;
+        }
+        for (String folder : folders) {
+            try (InputStream in = assets.open(folder + "/" + DESCRIPTOR)) {
+                Properties properties = new Properties();
+                properties.load(in);
+                MapDescriptor map = MapDescriptor.parse(folder, properties);
+                checkAssets(assets, map);
+                if (!hasElevation(assets, map)) {
+                    map = map.withoutElevation();
+                }
+                if (map.isPlaceholder()) {
+                    Log.w(TAG, "Map " + folder + " has placeholder bounds and heights");
+                }
+                maps.add(map);
+            } catch (FileNotFoundException e) {
+                // not a map folder
+            } catch (IOException e) {
+                Log.e(TAG, "Skipping map " + folder + ": " + e.getMessage());
+            }
+        }
+        Collections.sort(maps, (a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+        Log.d(TAG, "Found " + maps.size() + " maps");
+        return maps;
+    }
+
+    // The thumbnail is optional: MapImageLoader falls back to a subsampled decode of the image
+    private static void checkAssets(AssetManager assets, MapDescriptor map) throws IOException {
+        if (map.getImage() != null) {
+            checkAsset(assets, map.getImage());
+        }
+        if (map.getTiles() != null) {
+            checkAsset(assets, map.getTiles().endsWith(TILE_PACK_EXTENSION)
+                    ? map.getTiles() : map.getTiles() + TILE_MAP_RESOURCE);
+        }
+    }
+
+    private static boolean hasElevation(AssetManager assets, MapDescriptor map) {
+        String elevation = map.getHeightmap() != null ? map.getHeightmap() : map.getDsm();
+        if (elevation == null) {
+            Log.w(TAG, "Map " + map.getId() + " has no elevation: no heightmap or dsm");
+            return false;
+        }
+        try {
+            checkAsset(assets, elevation);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Map " + map.getId() + " has no elevation: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void checkAsset(AssetManager assets, String path) throws IOException {
+        try (InputStream in = assets.open(path)) {
+            // present
+        } catch (FileNotFoundException e) {
+            throw new IOException("missing asset " + path, e);
+        }
+    }
+}
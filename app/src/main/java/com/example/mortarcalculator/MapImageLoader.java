@@ -0,0 +1,177 @@
+package com.example.mortarcalculator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Loads a map image off the UI thread: first a small preview (pre-generated thumbnail asset,
+// or a coarse decode), then the base bitmap of at most MAX_SIZE. Both go through BitmapRegionDecoder,
+// so only the sampled output is ever allocated and the asset stream is never rewound. If the image
+// is larger than that, the decoder itself is handed over for on-demand region decoding.
+// The base bitmap is opaque, so it is decoded in MemoryBudget's opaque config and, on a
+// hardware-accelerated map, moved to a HARDWARE bitmap that lives only in graphics memory.
+public class MapImageLoader {
+    private static final String TAG = "MapImageLoader";
+    private static final int MAX_SIZE = 2048;
+    private static final int PREVIEW_SIZE = 256;
+
+    public interface Callback {
+        // Called on the UI thread; the callback owns the bitmap
+        void onMapImage(Bitmap bitmap, boolean fullResolution);
+
+        // Called on the UI thread when the full image had to be downsampled; the callback owns the decoder
+        default void onRegionDecoder(BitmapRegionDecoder decoder) {
+            decoder.recycle();
+        }
+    }
+
+    private final Context context;
+    private final String imageAsset;
+    private final String thumbnailAsset;
+    private final MemoryBudget budget;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "map-image-loader"));
+    private volatile boolean cancelled;
+
+    public MapImageLoader(Context context, String imageAsset, String thumbnailAsset) {
+        this.context = context.getApplicationContext();
+        this.imageAsset = imageAsset;
+        this.thumbnailAsset = thumbnailAsset;
+        budget = MemoryBudget.get(context);
+    }
+
+    public void load(Callback callback) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            // The thumbnail goes up before the full image is even opened: a region decoder over a
+            // PNG reads the whole file first
+            Bitmap thumbnail = decodeThumbnail();
+            if (thumbnail != null) {
+                deliver(callback, thumbnail, false);
+                Log.d(TAG, "Preview from " + thumbnailAsset + " ready in " + (System.nanoTime() - start) / 1000000 + " ms");
+            }
+            try (InputStream in = context.getAssets().open(imageAsset)) {
+                BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(in, false);
+                boolean keepDecoder = false;
+                try {
+                    Rect full = new Rect(0, 0, decoder.getWidth(), decoder.getHeight());
+                    if (thumbnail == null) {
+                        deliver(callback, decode(decoder, full, PREVIEW_SIZE), false);
+                        Log.d(TAG, "Preview decoded in " + (System.nanoTime() - start) / 1000000 + " ms");
+                    }
+
+                    Bitmap image = toHardware(decode(decoder, full, MAX_SIZE));
+                    deliver(callback, image, true);
+                    Log.d(TAG, "Full image ready in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+                    // Downsampled: hand the decoder over so zoomed-in views can decode full-resolution regions
+                    keepDecoder = image == null || image.getWidth() < decoder.getWidth();
+                    if (keepDecoder) {
+                        mainHandler.post(() -> {
+                            if (cancelled) {
+                                decoder.recycle();
+                            } else {
+                                callback.onRegionDecoder(decoder);
+                            }
+                        });
+                    }
+                } finally {
+                    if (!keepDecoder) {
+                        decoder.recycle();
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to load " + imageAsset + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public void cancel() {
+        cancelled = true;
+        executor.shutdownNow();
+    }
+
+    private Bitmap decodeThumbnail() {
+        if (thumbnailAsset == null) {
+            return null;
+        }
+        try (InputStream in = context.getAssets().open(thumbnailAsset)) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = budget.opaqueConfig();
+            return BitmapFactory.decodeStream(in, null, options);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Bitmap decode(BitmapRegionDecoder decoder, Rect region, int maxSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(region.width(), region.height(), maxSize, maxSize);
+        options.inPreferredConfig = budget.opaqueConfig();
+        while (true) {
+            try {
+                return decoder.decodeRegion(region, options);
+            } catch (OutOfMemoryError e) {
+                // Free the caches and degrade resolution instead of failing the map
+                budget.onOutOfMemory();
+                options.inSampleSize *= 2;
+                Log.w(TAG, "OutOfMemoryError decoding " + imageAsset + ", retrying with inSampleSize=" + options.inSampleSize);
+                if (options.inSampleSize > 64) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    // Keeps the software bitmap if the copy fails; either way only one of them survives
+    private Bitmap toHardware(Bitmap bitmap) {
+        if (bitmap == null || !budget.useHardwareBitmaps()) {
+            return bitmap;
+        }
+        try {
+            Bitmap hardware = bitmap.copy(Bitmap.Config.HARDWARE, false);
+            if (hardware != null) {
+                bitmap.recycle();
+                return hardware;
+            }
+        } catch (OutOfMemoryError e) {
+            budget.onOutOfMemory();
+        }
+        return bitmap;
+    }
+
+    private void deliver(Callback callback, Bitmap bitmap, boolean fullResolution) {
+        if (bitmap == null) {
+            return;
+        }
+        mainHandler.post(() -> {
+            if (cancelled) {
+                bitmap.recycle();
+                return;
+            }
+            callback.onMapImage(bitmap, fullResolution);
+        });
+    }
+
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (height > reqHeight || width > reqWidth) {
+            final int halfHeight = height / 2;
+            final int halfWidth = width / 2;
+            while ((halfHeight / inSampleSize) >= reqHeight && (halfWidth / inSampleSize) >= reqWidth) {
+                inSampleSize *= 2;
+            }
+        }
+        return inSampleSize;
+    }
+}
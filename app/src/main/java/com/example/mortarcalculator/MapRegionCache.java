@@ -0,0 +1,209 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LongSparseArray;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Full-resolution detail for a large map image. The image is split into a grid of regions per
+// power-of-two sample size; only regions visible at the current zoom are decoded, on a background
+// thread, and kept in a byte-bounded LRU sized by MemoryBudget. Until a region arrives the nearest
+// coarser level still cached is drawn in its place (after zooming in, the regions just shown); with
+// none, or while the budget has the cache disabled, the overlay's base bitmap shows through.
+// All cache access happens on the UI thread, so evicted bitmaps can be recycled safely.
+public class MapRegionCache {
+    private static final String TAG = "MapRegionCache";
+    // Side of a decoded region in output pixels
+    private static final int REGION_SIZE = 512;
+    // Share of the memory budget against other caches' weights
+    private static final int BUDGET_WEIGHT = 2;
+
+    private final BitmapRegionDecoder decoder;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final Runnable onRegionDecoded;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MemoryBudget budget;
+    private final BitmapLruCache<Long> regions;
+    // One Long per known region key, so per-frame lookups do not box; entries go with their region
+    private final LongSparseArray<Long> keys = new LongSparseArray<>();
+    private final LongSparseArray<Boolean> pending = new LongSparseArray<>();
+    // Coarsest useful sample size: one region covers the whole image
+    private final int maxSample;
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "map-region-decoder"));
+
+    // Latest visible cell range, read by the decoder thread to skip stale requests
+    private volatile int wantedSample;
+    private volatile int wantedLeft;
+    private volatile int wantedTop;
+    private volatile int wantedRight;
+    private volatile int wantedBottom;
+
+    private final Rect regionSource = new Rect();
+    private final Rect regionDest = new Rect();
+
+    public MapRegionCache(BitmapRegionDecoder decoder, MemoryBudget budget, Runnable onRegionDecoded) {
+        this.decoder = decoder;
+        this.imageWidth = decoder.getWidth();
+        this.imageHeight = decoder.getHeight();
+        this.onRegionDecoded = onRegionDecoded;
+        this.budget = budget;
+        regions = budget.newCache("map regions", BUDGET_WEIGHT, (key, bitmap, evicted) -> {
+            keys.remove(key);
+            bitmap.recycle();
+        });
+        int sample = 1;
+        while ((long) REGION_SIZE * sample < Math.max(imageWidth, imageHeight)) {
+            sample *= 2;
+        }
+        maxSample = sample;
+    }
+
+    // imageRect is where the whole image lands on screen, clip the visible part of the canvas
+    public void draw(Canvas canvas, Rect imageRect, Rect clip, Bitmap base) {
+        if (imageRect.width() <= 0 || imageRect.height() <= 0) {
+            return;
+        }
+        double scale = (double) imageRect.width() / imageWidth;
+        int sample = 1;
+        while (sample * 2 * scale <= 1.0) {
+            sample *= 2;
+        }
+        int baseSample = base == null ? Integer.MAX_VALUE : Math.max(1, imageWidth / base.getWidth());
+        if (sample >= baseSample || !regions.isEnabled()) {
+            wantedSample = 0;
+            return; // the base bitmap already has this much detail, or memory is short
+        }
+
+        int cellSize = REGION_SIZE * sample;
+        int left = clampToImage((clip.left - imageRect.left) / scale, imageWidth) / cellSize;
+        int top = clampToImage((clip.top - imageRect.top) / scale, imageHeight) / cellSize;
+        int right = (clampToImage((clip.right - imageRect.left) / scale, imageWidth) - 1) / cellSize;
+        int bottom = (clampToImage((clip.bottom - imageRect.top) / scale, imageHeight) - 1) / cellSize;
+        wantedSample = sample;
+        wantedLeft = left;
+        wantedTop = top;
+        wantedRight = right;
+        wantedBottom = bottom;
+
+        for (int cellY = top; cellY <= bottom; cellY++) {
+            for (int cellX = left; cellX <= right; cellX++) {
+                long key = key(sample, cellX, cellY);
+                Bitmap region = cached(key);
+                PerfTrace.count(region != null ? Metrics.REGION_CACHE_HIT : Metrics.REGION_CACHE_MISS);
+                int sourceLeft = cellX * cellSize;
+                int sourceTop = cellY * cellSize;
+                int sourceRight = Math.min(sourceLeft + cellSize, imageWidth);
+                int sourceBottom = Math.min(sourceTop + cellSize, imageHeight);
+                regionDest.set(imageRect.left + (int) Math.floor(sourceLeft * scale),
+                        imageRect.top + (int) Math.floor(sourceTop * scale),
+                        imageRect.left + (int) Math.ceil(sourceRight * scale),
+                        imageRect.top + (int) Math.ceil(sourceBottom * scale));
+                if (region != null) {
+                    canvas.drawBitmap(region, null, regionDest, null);
+                    continue;
+                }
+                request(key, sample, cellX, cellY, cellSize);
+                // Stand-in from the nearest coarser level still cached, cropped to this cell
+                for (int coarse = sample * 2; coarse < baseSample && coarse <= maxSample; coarse *= 2) {
+                    int coarseCellSize = REGION_SIZE * coarse;
+                    int coarseX = sourceLeft / coarseCellSize;
+                    int coarseY = sourceTop / coarseCellSize;
+                    Bitmap stand = cached(key(coarse, coarseX, coarseY));
+                    if (stand == null) {
+                        continue;
+                    }
+                    int originX = coarseX * coarseCellSize;
+                    int originY = coarseY * coarseCellSize;
+                    regionSource.set((sourceLeft - originX) / coarse, (sourceTop - originY) / coarse,
+                            Math.min((sourceRight - originX + coarse - 1) / coarse, stand.getWidth()),
+                            Math.min((sourceBottom - originY + coarse - 1) / coarse, stand.getHeight()));
+                    canvas.drawBitmap(stand, regionSource, regionDest, null);
+                    break;
+                }
+            }
+        }
+    }
+
+    private Bitmap cached(long key) {
+        Long boxed = keys.get(key);
+        return boxed == null ? null : regions.get(boxed);
+    }
+
+    public void release() {
+        executor.shutdownNow();
+        budget.release(regions);
+        pending.clear();
+        keys.clear();
+        decoder.recycle();
+    }
+
+    private void request(long key, int sample, int cellX, int cellY, int cellSize) {
+        if (pending.get(key) != null) {
+            return;
+        }
+        pending.put(key, Boolean.TRUE);
+        executor.execute(() -> {
+            Bitmap bitmap = null;
+            if (isWanted(sample, cellX, cellY) && !decoder.isRecycled()) {
+                Rect source = new Rect(cellX * cellSize, cellY * cellSize,
+                        Math.min((cellX + 1) * cellSize, imageWidth), Math.min((cellY + 1) * cellSize, imageHeight));
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inSampleSize = sample;
+                // Map imagery is opaque
+                options.inPreferredConfig = budget.opaqueConfig();
+                long start = PerfTrace.begin("MapRegionCache.decode");
+                try {
+                    bitmap = decoder.decodeRegion(source, options);
+                } catch (OutOfMemoryError e) {
+                    budget.onOutOfMemory();
+                } catch (IllegalStateException e) {
+                    Log.w(TAG, "Region decode failed: " + e);
+                } finally {
+                    PerfTrace.end(Metrics.REGION_DECODE, start);
+                }
+            }
+            Bitmap decoded = bitmap;
+            mainHandler.post(() -> {
+                pending.remove(key);
+                if (decoded == null) {
+                    return;
+                }
+                if (executor.isShutdown() || !regions.isEnabled()) {
+                    decoded.recycle();
+                    return;
+                }
+                Long boxed = keys.get(key);
+                if (boxed == null) {
+                    boxed = key;
+                    keys.put(key, boxed);
+                }
+                regions.put(boxed, decoded);
+                onRegionDecoded.run();
+            });
+        });
+    }
+
+    private boolean isWanted(int sample, int cellX, int cellY) {
+        return sample == wantedSample && cellX >= wantedLeft && cellX <= wantedRight
+                && cellY >= wantedTop && cellY <= wantedBottom;
+    }
+
+    private static int clampToImage(double value, int size) {
+        return (int) Math.min(Math.max(value, 0), size);
+    }
+
+    private static long key(int sample, int cellX, int cellY) {
+        return ((long) Integer.numberOfTrailingZeros(sample) << 48) | ((long) cellY << 24) | cellX;
+    }
+}
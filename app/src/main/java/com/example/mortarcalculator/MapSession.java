@@ -0,0 +1,95 @@
+package com.example.mortarcalculator;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// What outlives MainActivity across configuration changes: the loaded map (image, decoders, tile
+// files, clearance grid, reach masks) and the range table. Placements are not kept here; they go
+// through onSaveInstanceState as a PlacementSnapshot so they also survive process death.
+public class MapSession extends AndroidViewModel {
+    private static final String TAG = "MapSession";
+
+    public interface RangeTableListener {
+        // Called on the UI thread
+        void onRangeTable(RangeTable table);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Builds the range table once per session, however often the activity is recreated meanwhile
+    private final ExecutorService rangeTableLoader = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "range-table"));
+    private ActiveMap activeMap;
+    // UI thread only
+    private RangeTable rangeTable;
+    private boolean rangeTableLoading;
+    private RangeTableListener rangeTableListener;
+
+    public MapSession(@NonNull Application application) {
+        super(application);
+    }
+
+    public ActiveMap getActiveMap() {
+        return activeMap;
+    }
+
+    // Releases the previous map, if any
+    public void setActiveMap(ActiveMap activeMap) {
+        if (this.activeMap != null && this.activeMap != activeMap) {
+            this.activeMap.release();
+        }
+        this.activeMap = activeMap;
+    }
+
+    // Hands the profile's range table to listener: right away if the session has it, otherwise once
+    // it is read from the filesDir cache or built. A build already running is not started again; the
+    // listener just replaces the previous activity's.
+    public void loadRangeTable(WeaponProfile profile, RangeTableListener listener) {
+        rangeTableListener = listener;
+        if (rangeTable != null) {
+            listener.onRangeTable(rangeTable);
+            return;
+        }
+        if (rangeTableLoading) {
+            return;
+        }
+        rangeTableLoading = true;
+        Application application = getApplication();
+        rangeTableLoader.execute(() -> {
+            RangeTable table = null;
+            try {
+                table = RangeTableStore.load(application, profile);
+            } catch (IOException e) {
+                Log.e(TAG, "Range table unavailable: " + e.getMessage());
+            }
+            RangeTable loaded = table;
+            mainHandler.post(() -> {
+                rangeTableLoading = false;
+                rangeTable = loaded;
+                if (loaded != null && rangeTableListener != null) {
+                    rangeTableListener.onRangeTable(loaded);
+                }
+            });
+        });
+    }
+
+    // Call when the listener's activity is destroyed, so a build still running does not keep it alive
+    public void removeRangeTableListener() {
+        rangeTableListener = null;
+    }
+
+    @Override
+    protected void onCleared() {
+        rangeTableListener = null;
+        rangeTableLoader.shutdownNow();
+        setActiveMap(null);
+        Log.d(TAG, "Session cleared");
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.mortarcalculator;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// One bitmap memory budget for the whole process: a share of ActivityManager.getMemoryClass(),
+// split between the registered caches by weight. onTrimMemory() shrinks every cache in stages,
+// down to empty and disabled; RECOVERY_DELAY_MS after the last trim the full budget comes back and
+// the caches refill as tiles and regions are drawn again. Holders that are not caches (the osmdroid
+// tile cache, for one) register a Trimmable and are only asked to let go at the last stage.
+public final class MemoryBudget implements ComponentCallbacks2 {
+    private static final String TAG = "MemoryBudget";
+    // Share of the heap class for cached bitmaps; the map's base image is not counted
+    private static final int SHARE_DIVISOR = 4;
+    private static final int LOW_RAM_SHARE_DIVISOR = 8;
+    private static final long RECOVERY_DELAY_MS = 30_000;
+
+    public static final int STAGE_FULL = 0;
+    public static final int STAGE_HALF = 1;
+    public static final int STAGE_QUARTER = 2;
+    public static final int STAGE_EMPTY = 3;
+
+    public interface Trimmable {
+        // UI thread
+        void onTrim(int stage);
+    }
+
+    private static MemoryBudget instance;
+
+    private final int memoryClassMb;
+    private final boolean lowRam;
+    private final int budgetBytes;
+    private final List<BitmapLruCache<?>> caches = new CopyOnWriteArrayList<>();
+    private final List<Trimmable> trimmables = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable recover = () -> setStage(STAGE_FULL);
+    private volatile int stage = STAGE_FULL;
+    private int trimCount;
+
+    private MemoryBudget(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        memoryClassMb = activityManager.getMemoryClass();
+        lowRam = activityManager.isLowRamDevice();
+        budgetBytes = memoryClassMb * 1024 * 1024 / (lowRam ? LOW_RAM_SHARE_DIVISOR : SHARE_DIVISOR);
+    }
+
+    public static synchronized MemoryBudget get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new MemoryBudget(appContext);
+            appContext.registerComponentCallbacks(instance);
+            Log.d(TAG, "Bitmap budget " + instance.budgetBytes / (1024 * 1024) + " MB of " + instance.memoryClassMb
+                    + " MB heap" + (instance.lowRam ? ", low-RAM device" : ""));
+        }
+        return instance;
+    }
+
+    public <K> BitmapLruCache<K> newCache(String name, int weight, BitmapLruCache.OnRemoved<K> onRemoved) {
+        BitmapLruCache<K> cache = new BitmapLruCache<>(name, weight, 0, onRemoved);
+        caches.add(cache);
+        resizeCaches();
+        return cache;
+    }
+
+    // Empties the cache and hands its share back to the others
+    public void release(BitmapLruCache<?> cache) {
+        caches.remove(cache);
+        cache.evictAll();
+        resizeCaches();
+    }
+
+    public void addTrimmable(Trimmable trimmable) {
+        trimmables.add(trimmable);
+    }
+
+    public void removeTrimmable(Trimmable trimmable) {
+        trimmables.remove(trimmable);
+    }
+
+    // Config for bitmaps without alpha: half the bytes on low-RAM devices and while trimmed
+    public Bitmap.Config opaqueConfig() {
+        return lowRam || stage != STAGE_FULL ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+
+    // Long-lived bitmaps that are only drawn can live in graphics memory alone, as HARDWARE
+    // bitmaps, instead of in both a heap copy and a texture; that needs a hardware-accelerated map
+    public boolean useHardwareBitmaps() {
+        return !lowRam && org.osmdroid.config.Configuration.getInstance().isMapViewHardwareAccelerated();
+    }
+
+    // Any thread: a decode ran out of memory. The caches are emptied on the UI thread, which
+    // owns the bitmaps; the caller degrades or retries later.
+    public void onOutOfMemory() {
+        Log.w(TAG, "Out of memory, dropping cached bitmaps");
+        mainHandler.post(() -> onTrimMemory(TRIM_MEMORY_COMPLETE));
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        int wanted;
+        // From BACKGROUND up the process is on the LRU list and next in line to be killed
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            wanted = STAGE_EMPTY;
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN || level == TRIM_MEMORY_RUNNING_LOW) {
+            wanted = STAGE_QUARTER;
+        } else {
+            wanted = STAGE_HALF;
+        }
+        trimCount++;
+        if (wanted > stage) {
+            setStage(wanted);
+        }
+        mainHandler.removeCallbacks(recover);
+        mainHandler.postDelayed(recover, RECOVERY_DELAY_MS);
+        Log.d(TAG, "onTrimMemory(" + level + "), stage " + stage);
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private void setStage(int stage) {
+        this.stage = stage;
+        resizeCaches();
+        if (stage == STAGE_EMPTY) {
+            for (Trimmable trimmable : trimmables) {
+                trimmable.onTrim(stage);
+            }
+        }
+    }
+
+    private void resizeCaches() {
+        int totalWeight = 0;
+        for (BitmapLruCache<?> cache : caches) {
+            totalWeight += cache.getWeight();
+        }
+        int available = stage == STAGE_EMPTY ? 0 : budgetBytes >> stage;
+        for (BitmapLruCache<?> cache : caches) {
+            cache.setLimit((int) ((long) available * cache.getWeight() / Math.max(totalWeight, 1)));
+        }
+    }
+
+    // For the debug stats dialog
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.US, "budget %.1f MB of %d MB heap%s, stage %d, %d trims\n",
+                budgetBytes / 1048576.0, memoryClassMb, lowRam ? " (low RAM)" : "", stage, trimCount));
+        long resident = 0;
+        for (BitmapLruCache<?> cache : caches) {
+            int hits = cache.hitCount();
+            int misses = cache.missCount();
+            resident += cache.size();
+            out.append(String.format(Locale.US, "%s: %.1f / %.1f MB, hit rate %.0f%% (%d/%d), %d evicted\n",
+                    cache.getName(), cache.size() / 1048576.0, cache.maxSize() / 1048576.0,
+                    hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses), hits, hits + misses, cache.evictionCount()));
+        }
+        out.append(String.format(Locale.US, "cached total: %.1f MB\n", resident / 1048576.0));
+        return out.toString();
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Process;
+import android.util.Log;
+
+import org.osmdroid.tileprovider.BitmapPool;
+import org.osmdroid.tileprovider.ReusableBitmapDrawable;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Last osmdroid tile module of a bundled pyramid: draws the tiles the pyramid does not have.
+// Above its maximum zoom a tile is the matching square of the nearest ancestor, scaled up; in a gap
+// inside the pyramid it is put together from the four children, scaled down, over the ancestor's
+// crop where children are missing. Results go to a memory LRU sized by MemoryBudget and, when a
+// directory is given, to a disk cache that survives restarts. Decoded ancestors are kept in the
+// same LRU, so the siblings cropped from one ancestor decode it once.
+public class OverzoomTileProvider extends MapTileModuleProviderBase {
+    private static final String TAG = "OverzoomTileProvider";
+    // How far past the pyramid the map can zoom; a 256 px tile is cropped to 4 px per side at +6
+    public static final int OVERZOOM_LEVELS = 6;
+    private static final int THREADS = 2;
+    private static final int PENDING_QUEUE_SIZE = 40;
+    // Share of the memory budget against other caches' weights
+    private static final int BUDGET_WEIGHT = 1;
+    private static final long DISK_CACHE_BYTES = 32L << 20;
+    private static final int JPEG_QUALITY = 90;
+    private static final int ALL_CHILDREN = (1 << TileSynthesis.CHILD_COUNT) - 1;
+
+    public interface Source {
+        // Decodes a tile the pyramid has, or returns null; called on this module's workers
+        Bitmap getTile(int zoom, int x, int y);
+    }
+
+    private final Source source;
+    private final TileSynthesis.TileSet tiles;
+    private final int minZoom;
+    private final int nativeMaxZoom;
+    private final MemoryBudget budget;
+    private final BitmapLruCache<Long> memoryCache;
+    private final File diskDir;
+    private final ThreadPoolExecutor diskExecutor;
+    // Disk executor only
+    private long diskBytes;
+    private int tileSize;
+
+    // diskDir may be null for a memory cache only; it is created and trimmed on first use. A name
+    // ending in "-v<version>" lets the tiles of other versions next to it be dropped as stale.
+    public OverzoomTileProvider(Source source, TileSynthesis.TileSet tiles, int minZoom, int maxZoom, int tileSize,
+                                MemoryBudget budget, File diskDir) {
+        super(THREADS, PENDING_QUEUE_SIZE);
+        this.source = source;
+        this.tiles = tiles;
+        this.minZoom = minZoom;
+        this.nativeMaxZoom = maxZoom;
+        this.tileSize = tileSize;
+        this.budget = budget;
+        this.diskDir = diskDir;
+        // Synthesized tiles are handed to osmdroid as plain BitmapDrawables, which it neither
+        // recycles nor pools, so the cache and the map can share them; eviction leaves them to the GC
+        memoryCache = budget.newCache("synthesized tiles", BUDGET_WEIGHT, (key, bitmap, evicted) -> {
+        });
+        diskExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "overzoom-disk");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (diskDir != null) {
+            diskExecutor.execute(this::openDiskCache);
+        }
+    }
+
+    public Bitmap getTile(int zoom, int x, int y) {
+        long index = MapTileIndex.getTileIndex(zoom, x, y);
+        Bitmap bitmap = memoryCache.get(index);
+        if (bitmap != null) {
+            PerfTrace.count(Metrics.SYNTHESIZED_MEMORY_HIT);
+            return bitmap;
+        }
+        File file = diskFile(zoom, x, y);
+        if (file != null && file.isFile()) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = budget.opaqueConfig();
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+            if (bitmap != null) {
+                PerfTrace.count(Metrics.SYNTHESIZED_DISK_HIT);
+                file.setLastModified(System.currentTimeMillis());
+            }
+        }
+        if (bitmap == null) {
+            long start = PerfTrace.begin("Overzoom.synthesize");
+            try {
+                bitmap = synthesize(zoom, x, y);
+            } catch (OutOfMemoryError e) {
+                // osmdroid asks for the tile again on a later frame
+                budget.onOutOfMemory();
+                return null;
+            } finally {
+                PerfTrace.end(Metrics.TILE_SYNTHESIS, start);
+            }
+            if (bitmap != null && file != null) {
+                Bitmap written = bitmap;
+                diskExecutor.execute(() -> writeDisk(file, written));
+            }
+        }
+        if (bitmap != null && memoryCache.isEnabled()) {
+            memoryCache.put(index, bitmap);
+        }
+        return bitmap;
+    }
+
+    private Bitmap synthesize(int zoom, int x, int y) {
+        int ancestorZoom = TileSynthesis.ancestorZoom(tiles, zoom, x, y, minZoom, zoom - minZoom);
+        if (zoom > nativeMaxZoom && ancestorZoom < 0) {
+            return null; // outside the pyramid
+        }
+        int children = zoom < nativeMaxZoom ? TileSynthesis.childMask(tiles, zoom, x, y) : 0;
+        Bitmap ancestor = ancestorZoom >= 0 ? ancestor(ancestorZoom, x >> (zoom - ancestorZoom), y >> (zoom - ancestorZoom)) : null;
+        if (ancestor == null && children == 0) {
+            return null;
+        }
+
+        // Children may leave corners uncovered or bring transparent edges of their own
+        boolean opaque = children == 0 && !ancestor.hasAlpha();
+        Bitmap tile = Bitmap.createBitmap(tileSize, tileSize, opaque ? budget.opaqueConfig() : Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(tile);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        Rect src = new Rect();
+        Rect dst = new Rect(0, 0, tileSize, tileSize);
+        if (ancestor != null && children != ALL_CHILDREN) {
+            int[] crop = new int[3];
+            TileSynthesis.cropRect(zoom, x, y, ancestorZoom, ancestor.getWidth(), crop);
+            src.set(crop[0], crop[1], crop[0] + crop[2], crop[1] + crop[2]);
+            canvas.drawBitmap(ancestor, src, dst, paint);
+        }
+        int half = tileSize / 2;
+        for (int i = 0; i < TileSynthesis.CHILD_COUNT; i++) {
+            if ((children & (1 << i)) == 0) {
+                continue;
+            }
+            Bitmap child = source.getTile(zoom + 1, TileSynthesis.childX(x, i), TileSynthesis.childY(y, i));
+            if (child == null) {
+                continue;
+            }
+            int left = (i & 1) * half;
+            int top = (i >> 1) * half;
+            dst.set(left, top, left + half, top + half);
+            canvas.drawBitmap(child, null, dst, paint);
+            // Only needed for this tile: give it back for inBitmap reuse
+            BitmapPool.getInstance().returnDrawableToPool(new ReusableBitmapDrawable(child));
+        }
+        return tile;
+    }
+
+    // A tile the pyramid has, decoded once for all the tiles cropped from it
+    private Bitmap ancestor(int zoom, int x, int y) {
+        long index = MapTileIndex.getTileIndex(zoom, x, y);
+        Bitmap bitmap = memoryCache.get(index);
+        if (bitmap == null) {
+            bitmap = source.getTile(zoom, x, y);
+            if (bitmap != null && memoryCache.isEnabled()) {
+                memoryCache.put(index, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    private File diskFile(int zoom, int x, int y) {
+        return diskDir == null ? null : new File(diskDir, zoom + "_" + x + "_" + y + ".tile");
+    }
+
+    // Disk executor: creates the directory and drops what is over the limit from a previous run
+    private void openDiskCache() {
+        deleteStaleVersions();
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + diskDir);
+            return;
+        }
+        File[] files = diskDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                diskBytes += file.length();
+            }
+        }
+        trimDisk();
+        Log.d(TAG, "Disk cache " + diskDir + ": " + diskBytes / 1024 + " KB");
+    }
+
+    private void deleteStaleVersions() {
+        String name = diskDir.getName();
+        int version = name.lastIndexOf("-v");
+        File[] siblings = diskDir.getParentFile() != null ? diskDir.getParentFile().listFiles() : null;
+        if (version < 0 || siblings == null) {
+            return;
+        }
+        String prefix = name.substring(0, version + 2);
+        for (File sibling : siblings) {
+            if (sibling.getName().startsWith(prefix) && !sibling.getName().equals(name)) {
+                File[] files = sibling.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+                sibling.delete();
+                Log.d(TAG, "Dropped stale tile cache " + sibling);
+            }
+        }
+    }
+
+    // Disk executor. Opaque tiles as JPEG, tiles with transparent edges as PNG; BitmapFactory
+    // tells them apart when reading. Written to a temporary name so a reader never sees half a file.
+    private void writeDisk(File file, Bitmap bitmap) {
+        if (file.exists()) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            if (bitmap.hasAlpha()) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } else {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write " + file + ": " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+        diskBytes += file.length();
+        if (diskBytes > DISK_CACHE_BYTES) {
+            trimDisk();
+        }
+    }
+
+    // Least recently used first, down to three quarters of the limit
+    private void trimDisk() {
+        if (diskBytes <= DISK_CACHE_BYTES) {
+            return;
+        }
+        File[] files = diskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+        for (Integer i : order) {
+            if (diskBytes <= DISK_CACHE_BYTES * 3 / 4) {
+                break;
+            }
+            long length = files[i].length();
+            if (files[i].delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    @Override
+    public TileLoader getTileLoader() {
+        return new TileLoader() {
+            @Override
+            public Drawable loadTile(long mapTileIndex) {
+                Bitmap bitmap = getTile(MapTileIndex.getZoom(mapTileIndex),
+                        MapTileIndex.getX(mapTileIndex), MapTileIndex.getY(mapTileIndex));
+                return bitmap == null ? null : new BitmapDrawable(null, bitmap);
+            }
+        };
+    }
+
+    @Override
+    public void detach() {
+        super.detach();
+        diskExecutor.shutdown();
+        budget.release(memoryCache);
+    }
+
+    @Override
+    public boolean getUsesDataConnection() {
+        return false;
+    }
+
+    @Override
+    protected String getName() {
+        return "Overzoom Tile Provider";
+    }
+
+    @Override
+    protected String getThreadGroupName() {
+        return "overzoom";
+    }
+
+    @Override
+    public void setTileSource(ITileSource tileSource) {
+        if (tileSource != null) {
+            tileSize = tileSource.getTileSizePixels();
+        }
+    }
+
+    @Override
+    public int getMaximumZoomLevel() {
+        return nativeMaxZoom + OVERZOOM_LEVELS;
+    }
+
+    @Override
+    public int getMinimumZoomLevel() {
+        return minZoom;
+    }
+}
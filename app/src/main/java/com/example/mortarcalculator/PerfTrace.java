@@ -0,0 +1,89 @@
+package com.example.mortarcalculator;
+
+import android.os.Trace;
+import android.util.Log;
+
+// Debug-build instrumentation: android.os.Trace sections for systrace/Perfetto plus the Metrics
+// histograms and counters. ENABLED is a compile-time constant, so in release builds the guarded
+// calls, and any log() behind "if (PerfTrace.ENABLED)", are compiled out.
+final class PerfTrace {
+    private static final String TAG = "PerfTrace";
+    static final boolean ENABLED = BuildConfig.DEBUG;
+    // Hot-path log lines kept for dump()
+    private static final int RECENT_LOG_LINES = 32;
+    private static final String[] recentLog = new String[RECENT_LOG_LINES];
+    private static int recentLogNext;
+
+    private PerfTrace() {
+    }
+
+    // Section names must be constants: nothing is allocated per call
+    static long begin(String section) {
+        if (!ENABLED) {
+            return 0;
+        }
+        Trace.beginSection(section);
+        return System.nanoTime();
+    }
+
+    // Closes the innermost section opened by begin() on this thread
+    static void end(LatencyHistogram histogram, long startNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        histogram.record(System.nanoTime() - startNanos);
+        Trace.endSection();
+    }
+
+    // Closes a section opened by begin() whose time is recorded elsewhere
+    static void endSection() {
+        if (ENABLED) {
+            Trace.endSection();
+        }
+    }
+
+    // For spans that end on another thread: records the histogram without a Trace section
+    static void record(LatencyHistogram histogram, long startNanos) {
+        if (ENABLED) {
+            histogram.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    static void count(Counter counter) {
+        if (ENABLED) {
+            counter.increment();
+        }
+    }
+
+    // Debug logging on hot paths: counted in Metrics.DEBUG_LOG and kept for dump() as well as
+    // written to logcat. Callers guard with "if (PerfTrace.ENABLED)" so the message is never built
+    // in release builds.
+    static void log(String tag, String message) {
+        if (!ENABLED) {
+            return;
+        }
+        Metrics.DEBUG_LOG.increment();
+        synchronized (recentLog) {
+            recentLog[recentLogNext] = tag + ": " + message;
+            recentLogNext = (recentLogNext + 1) % RECENT_LOG_LINES;
+        }
+        Log.d(tag, message);
+    }
+
+    static void dump() {
+        if (!ENABLED) {
+            return;
+        }
+        for (String line : Metrics.summary().split("\n")) {
+            Log.i(TAG, line);
+        }
+        synchronized (recentLog) {
+            for (int i = 0; i < RECENT_LOG_LINES; i++) {
+                String line = recentLog[(recentLogNext + i) % RECENT_LOG_LINES];
+                if (line != null) {
+                    Log.i(TAG, "recent " + line);
+                }
+            }
+        }
+    }
+}
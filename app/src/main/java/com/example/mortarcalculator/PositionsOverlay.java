@@ -0,0 +1,169 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Point;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.util.TileSystem;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+// Every firing position, range ring, target and the aim point in one overlay. Geometry is laid out
+// per integer zoom level and kept until the positions change; a frame projects one anchor point,
+// scales for fractional zoom and issues a handful of draw calls however many positions there are.
+// UI thread only.
+public class PositionsOverlay extends Overlay {
+    private static final int MAX_ZOOM = 30;
+    private static final int MORTAR_COLOR = Color.rgb(21, 101, 192);
+    private static final int TARGET_COLOR = Color.rgb(198, 40, 40);
+    private static final int SELECTED_COLOR = Color.rgb(255, 160, 0);
+
+    private final PositionIndex mortars;
+    private final PositionIndex targets;
+    private final double ringMeters;
+    private final GeoPoint anchor;
+    private final float markerSize;
+    private final float ringWidth;
+
+    private final ZoomLayer[] layers = new ZoomLayer[MAX_ZOOM + 1];
+    private final Paint ringPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint ringFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mortarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint targetPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint selectedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint aimPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private int selected = -1;
+    private GeoPoint aimPoint;
+
+    // Reused by draw()
+    private final Point anchorPixel = new Point();
+    private final Point aimPixel = new Point();
+    private Projection projectedWith;
+    private double projectedZoom;
+    private long projectedOffsetX;
+    private long projectedOffsetY;
+
+    private static final class ZoomLayer {
+        final PositionLayout mortars;
+        final PositionLayout targets;
+        final Path rings = new Path();
+
+        ZoomLayer(double mapSize) {
+            mortars = new PositionLayout(mapSize);
+            targets = new PositionLayout(mapSize);
+        }
+    }
+
+    // Both indexes share the origin, which doubles as the layout anchor; density scales marker sizes
+    public PositionsOverlay(PositionIndex mortars, PositionIndex targets, double ringMeters, float density) {
+        this.mortars = mortars;
+        this.targets = targets;
+        this.ringMeters = ringMeters;
+        anchor = new GeoPoint(mortars.getOriginLat(), mortars.getOriginLon());
+        markerSize = 14 * density;
+        ringWidth = 2 * density;
+
+        ringPaint.setStyle(Paint.Style.STROKE);
+        ringPaint.setColor(MORTAR_COLOR);
+        ringFillPaint.setStyle(Paint.Style.FILL);
+        ringFillPaint.setColor(Color.argb(24, 21, 101, 192));
+        mortarPaint.setColor(MORTAR_COLOR);
+        mortarPaint.setStrokeCap(Paint.Cap.ROUND);
+        targetPaint.setColor(TARGET_COLOR);
+        targetPaint.setStrokeCap(Paint.Cap.SQUARE);
+        selectedPaint.setColor(SELECTED_COLOR);
+        selectedPaint.setStrokeCap(Paint.Cap.ROUND);
+        aimPaint.setColor(TARGET_COLOR);
+        aimPaint.setStyle(Paint.Style.STROKE);
+        aimPaint.setStrokeWidth(ringWidth);
+    }
+
+    // Call after adding or removing positions: cached layouts are rebuilt on the next draw
+    public void invalidateGeometry() {
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = null;
+        }
+    }
+
+    // Slot of the highlighted mortar, -1 for none
+    public void setSelected(int slot) {
+        selected = slot;
+    }
+
+    // Drag-to-aim point, null to hide
+    public void setAim(GeoPoint aimPoint) {
+        this.aimPoint = aimPoint;
+    }
+
+    @Override
+    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (shadow || (mortars.size() == 0 && targets.size() == 0 && aimPoint == null)) {
+            return;
+        }
+        long start = PerfTrace.begin("PositionsOverlay.draw");
+
+        Projection projection = mapView.getProjection();
+        double zoom = projection.getZoomLevel();
+        int level = Math.max(0, Math.min(MAX_ZOOM, (int) Math.round(zoom)));
+        ZoomLayer layer = layers[level];
+        if (layer == null) {
+            layer = layout(level);
+            layers[level] = layer;
+        }
+        // Scrolling moves only the anchor; the layout itself does not change
+        if (projection != projectedWith || zoom != projectedZoom
+                || projection.getOffsetX() != projectedOffsetX || projection.getOffsetY() != projectedOffsetY) {
+            projection.toPixels(anchor, anchorPixel);
+            projectedWith = projection;
+            projectedZoom = zoom;
+            projectedOffsetX = projection.getOffsetX();
+            projectedOffsetY = projection.getOffsetY();
+        }
+        float scale = (float) Math.pow(2, zoom - level);
+
+        canvas.save();
+        canvas.translate(anchorPixel.x, anchorPixel.y);
+        canvas.scale(scale, scale);
+        if (layer.mortars.size() > 0) {
+            canvas.drawPath(layer.rings, ringFillPaint);
+            ringPaint.setStrokeWidth(ringWidth / scale);
+            canvas.drawPath(layer.rings, ringPaint);
+            mortarPaint.setStrokeWidth(markerSize / scale);
+            canvas.drawPoints(layer.mortars.getPoints(), 0, layer.mortars.size() * 2, mortarPaint);
+            if (selected >= 0 && selected < layer.mortars.size()) {
+                selectedPaint.setStrokeWidth(markerSize / scale);
+                canvas.drawPoint(layer.mortars.getX(selected), layer.mortars.getY(selected), selectedPaint);
+            }
+        }
+        if (layer.targets.size() > 0) {
+            targetPaint.setStrokeWidth(markerSize * 0.8f / scale);
+            canvas.drawPoints(layer.targets.getPoints(), 0, layer.targets.size() * 2, targetPaint);
+        }
+        canvas.restore();
+
+        if (aimPoint != null) {
+            projection.toPixels(aimPoint, aimPixel);
+            canvas.drawCircle(aimPixel.x, aimPixel.y, markerSize, aimPaint);
+            canvas.drawLine(aimPixel.x - markerSize * 1.5f, aimPixel.y, aimPixel.x + markerSize * 1.5f, aimPixel.y, aimPaint);
+            canvas.drawLine(aimPixel.x, aimPixel.y - markerSize * 1.5f, aimPixel.x, aimPixel.y + markerSize * 1.5f, aimPaint);
+        }
+        PerfTrace.end(Metrics.POSITIONS_DRAW, start);
+    }
+
+    private ZoomLayer layout(int level) {
+        ZoomLayer layer = new ZoomLayer(TileSystem.MapSize((double) level));
+        double anchorLat = anchor.getLatitude();
+        double anchorLon = anchor.getLongitude();
+        layer.mortars.build(mortars, anchorLat, anchorLon, ringMeters);
+        layer.targets.build(targets, anchorLat, anchorLon, 0);
+        for (int i = 0; i < layer.mortars.size(); i++) {
+            layer.rings.addCircle(layer.mortars.getX(i), layer.mortars.getY(i), layer.mortars.getRingRadius(i),
+                    Path.Direction.CW);
+        }
+        return layer;
+    }
+}
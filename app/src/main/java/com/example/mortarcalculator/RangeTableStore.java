@@ -0,0 +1,44 @@
+package com.example.mortarcalculator;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+// Builds a weapon's range table once and keeps it under filesDir; later launches read the file.
+public final class RangeTableStore {
+    private static final String TAG = "RangeTableStore";
+    // Grid resolution: 5 m of distance by 5 m of height difference, +-300 m
+    private static final double MAX_HEIGHT_DIFF = 300;
+    private static final double DISTANCE_STEP = 5;
+    private static final double HEIGHT_STEP = 5;
+
+    private RangeTableStore() {
+    }
+
+    public static RangeTable load(Context context, WeaponProfile profile) throws IOException {
+        File dir = new File(context.getFilesDir(), "rangetables");
+        File cached = new File(dir, profile.getId() + "-v" + BuildConfig.VERSION_CODE + ".rtab");
+        if (cached.exists()) {
+            try {
+                RangeTable table = RangeTable.read(cached);
+                if (table.matches(profile)) {
+                    return table;
+                }
+                Log.w(TAG, "Range table cache " + cached + " is for another profile, rebuilding");
+            } catch (IOException e) {
+                Log.w(TAG, "Discarding unreadable range table cache " + cached + ": " + e.getMessage());
+            }
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        long start = System.nanoTime();
+        RangeTable table = RangeTable.build(profile, MAX_HEIGHT_DIFF, DISTANCE_STEP, HEIGHT_STEP);
+        table.write(cached);
+        Log.d(TAG, "Range table " + profile.getId() + " built in " + (System.nanoTime() - start) / 1000000 + " ms");
+        return table;
+    }
+}
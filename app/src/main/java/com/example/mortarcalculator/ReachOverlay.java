@@ -0,0 +1,117 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.util.LongSparseArray;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+// Reach masks of the firing positions, one low-resolution ALPHA_8 bitmap per position stretched
+// over its bounds and tinted by the paint. Each mask is replaced or dropped on its own. The bitmaps
+// live in a MemoryBudget cache: past its share the least recently computed masks are dropped, and
+// come back when their position is moved or restored (see contains()). UI thread only.
+public class ReachOverlay extends Overlay {
+    private static final int BUDGET_WEIGHT = 1;
+    // Tint of the masks; ReachWorker puts the elevation angle into the alpha
+    private static final int COLOR = Color.rgb(255, 170, 60);
+
+    private final MemoryBudget budget;
+    private final BitmapLruCache<Long> bitmaps;
+    private final LongSparseArray<Entry> entries = new LongSparseArray<>();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    // Reused by draw()
+    private final Point topLeft = new Point();
+    private final Point bottomRight = new Point();
+    private Projection projectedWith;
+    private double projectedZoom;
+    private long projectedOffsetX;
+    private long projectedOffsetY;
+
+    private static final class Entry {
+        final Bitmap bitmap;
+        final GeoPoint northWest;
+        final GeoPoint southEast;
+        final Rect destRect = new Rect();
+
+        Entry(ReachMask mask, Bitmap bitmap) {
+            this.bitmap = bitmap;
+            northWest = new GeoPoint(mask.getNorth(), mask.getWest());
+            southEast = new GeoPoint(mask.getSouth(), mask.getEast());
+        }
+    }
+
+    public ReachOverlay(MemoryBudget budget) {
+        this.budget = budget;
+        paint.setColor(COLOR);
+        // Evicted, replaced or removed: the entry goes with its bitmap
+        bitmaps = budget.newCache("reach masks", BUDGET_WEIGHT, (key, bitmap, evicted) -> {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.bitmap == bitmap) {
+                entries.remove(key);
+            }
+            bitmap.recycle();
+        });
+    }
+
+    public void put(long key, ReachMask mask, Bitmap bitmap) {
+        if (!bitmaps.isEnabled()) {
+            remove(key);
+            bitmap.recycle();
+            return;
+        }
+        entries.put(key, new Entry(mask, bitmap));
+        bitmaps.put(key, bitmap);
+        projectedWith = null;
+    }
+
+    public boolean contains(long key) {
+        return entries.get(key) != null;
+    }
+
+    public void remove(long key) {
+        if (entries.get(key) != null) {
+            bitmaps.remove(key);
+        }
+    }
+
+    public void clear() {
+        bitmaps.evictAll();
+    }
+
+    // Empties the overlay and hands its share of the budget back
+    public void release() {
+        budget.release(bitmaps);
+        entries.clear();
+    }
+
+    @Override
+    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (shadow || entries.size() == 0) {
+            return;
+        }
+        // Reproject the corners only when osmdroid hands out a new projection (scroll, zoom, layout)
+        Projection projection = mapView.getProjection();
+        boolean reproject = projection != projectedWith || projection.getZoomLevel() != projectedZoom
+                || projection.getOffsetX() != projectedOffsetX || projection.getOffsetY() != projectedOffsetY;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.valueAt(i);
+            if (reproject) {
+                projection.toPixels(entry.northWest, topLeft);
+                projection.toPixels(entry.southEast, bottomRight);
+                entry.destRect.set(topLeft.x, topLeft.y, bottomRight.x, bottomRight.y);
+            }
+            canvas.drawBitmap(entry.bitmap, null, entry.destRect, paint);
+        }
+        projectedWith = projection;
+        projectedZoom = projection.getZoomLevel();
+        projectedOffsetX = projection.getOffsetX();
+        projectedOffsetY = projection.getOffsetY();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Computes reach masks one firing position at a time, each spread over the common fork-join pool,
+// and turns them into small bitmaps off the UI thread. Requests are keyed by position, so adding
+// or moving one position only recomputes that position's mask; cancel() drops everything queued.
+public class ReachWorker {
+    private static final String TAG = "ReachWorker";
+
+    public interface Callback {
+        // UI thread
+        void onReachMask(long key, ReachMask mask, Bitmap bitmap);
+    }
+
+    // Quantised elevation angle to mask alpha, one byte per cell: transparent out of reach, faint
+    // for flat shots to denser for near-vertical ones. ReachOverlay supplies the colour.
+    private static final int[] PALETTE = new int[256];
+
+    static {
+        for (int value = 1; value < 256; value++) {
+            PALETTE[value] = (40 + (value - 1) * 60 / 254) << 24;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reach");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public void submit(long key, ReachMask mask, WeaponProfile profile, RangeTable table, ElevationSource source,
+                       Callback callback) {
+        int submitted = generation.get();
+        executor.execute(() -> {
+            if (submitted != generation.get()) {
+                return;
+            }
+            long start = PerfTrace.begin("reachMask");
+            mask.compute(ForkJoinPool.commonPool(), profile, table, source);
+            PerfTrace.end(Metrics.REACH_MASK, start);
+            if (PerfTrace.ENABLED) {
+                PerfTrace.log(TAG, "Mask " + key + ": " + mask.getSize() + "x" + mask.getSize() + " cells, "
+                        + mask.getReachableCount() + " reachable, " + (System.nanoTime() - start) / 1000 + " us");
+            }
+            Bitmap bitmap = toBitmap(mask);
+            mainHandler.post(() -> {
+                if (submitted == generation.get()) {
+                    callback.onReachMask(key, mask, bitmap);
+                } else {
+                    bitmap.recycle();
+                }
+            });
+        });
+    }
+
+    // Drops queued and running requests without stopping the worker
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    public void release() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private static Bitmap toBitmap(ReachMask mask) {
+        int size = mask.getSize();
+        int[] colors = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                colors[row * size + col] = PALETTE[mask.getCell(row, col)];
+            }
+        }
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+        bitmap.setPixels(colors, 0, size, 0, 0, size, size);
+        return bitmap;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.mortarcalculator;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Computes solution matrices off the UI thread, spread over the common fork-join pool. Only the
+// newest request is computed and delivered: anything superseded while queued or running is dropped.
+public class SolutionWorker {
+    public interface Callback {
+        // UI thread; requestNanos is what was passed to submit()
+        void onSolutions(SolutionMatrix matrix, long requestNanos);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger latest = new AtomicInteger();
+
+    // checker may be null to skip the terrain check
+    public void submit(SolutionMatrix matrix, WeaponProfile profile, RangeTable table, ClearanceChecker checker,
+                       long requestNanos, Callback callback) {
+        int request = latest.incrementAndGet();
+        executor.execute(() -> {
+            if (request != latest.get()) {
+                return;
+            }
+            long start = PerfTrace.begin("solutionMatrix");
+            matrix.compute(ForkJoinPool.commonPool(), profile, table, checker);
+            PerfTrace.end(Metrics.SOLUTION_MATRIX, start);
+            mainHandler.post(() -> {
+                if (request == latest.get()) {
+                    callback.onSolutions(matrix, requestNanos);
+                }
+            });
+        });
+    }
+
+    // Drops pending results without stopping the worker
+    public void cancel() {
+        latest.incrementAndGet();
+    }
+
+    public void release() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.mortarcalculator;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import org.osmdroid.tileprovider.BitmapPool;
+import org.osmdroid.tileprovider.ReusableBitmapDrawable;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
+
+// osmdroid tile module over a TilePack mapped straight out of the APK. A tile is a binary search
+// and a copy out of the mapping, with no asset open per tile; decoding runs on the module's worker
+// threads into pooled bitmaps, like MBTilesReader.
+public class TilePackProvider extends MapTileModuleProviderBase implements OverzoomTileProvider.Source {
+    private static final String TAG = "TilePackProvider";
+    private static final int THREADS = 2;
+    private static final int PENDING_QUEUE_SIZE = 40;
+
+    private final TilePack pack;
+    private final MemoryBudget budget;
+    private final long openedNanos = System.nanoTime();
+    private volatile boolean firstTileLogged;
+    private int tileSize;
+
+    // Encoded bytes of the tile being decoded, grown to the largest tile seen by each worker
+    private final ThreadLocal<byte[]> tileBytes = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[64 * 1024];
+        }
+    };
+
+    public TilePackProvider(TilePack pack, MemoryBudget budget) {
+        super(THREADS, PENDING_QUEUE_SIZE);
+        this.pack = pack;
+        this.budget = budget;
+        tileSize = pack.getTileSize();
+    }
+
+    @Override
+    public Bitmap getTile(int zoom, int tileX, int tileY) {
+        int entry = pack.find(zoom, tileX, tileY);
+        if (entry < 0) {
+            return null;
+        }
+        int length = pack.getLength(entry);
+        byte[] bytes = tileBytes.get();
+        if (bytes.length < length) {
+            bytes = new byte[length];
+            tileBytes.set(bytes);
+        }
+        pack.read(entry, bytes);
+
+        long start = PerfTrace.begin("TilePack.decode");
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        BitmapPool.getInstance().applyReusableOptions(options, tileSize, tileSize);
+        try {
+            return BitmapFactory.decodeByteArray(bytes, 0, length, options);
+        } catch (IllegalArgumentException e) {
+            // Pooled bitmap did not fit this tile; decode into fresh memory
+            options.inBitmap = null;
+            return BitmapFactory.decodeByteArray(bytes, 0, length, options);
+        } catch (OutOfMemoryError e) {
+            // osmdroid asks for the tile again on a later frame
+            budget.onOutOfMemory();
+            return null;
+        } finally {
+            PerfTrace.end(Metrics.TILE_DECODE, start);
+            if (!firstTileLogged) {
+                firstTileLogged = true;
+                Log.d(TAG, "First tile " + (System.nanoTime() - openedNanos) / 1000 + " us after opening the pack");
+            }
+        }
+    }
+
+    @Override
+    public TileLoader getTileLoader() {
+        return new TileLoader() {
+            @Override
+            public Drawable loadTile(long mapTileIndex) {
+                Bitmap bitmap = getTile(MapTileIndex.getZoom(mapTileIndex),
+                        MapTileIndex.getX(mapTileIndex), MapTileIndex.getY(mapTileIndex));
+                return bitmap == null ? null : new ReusableBitmapDrawable(bitmap);
+            }
+        };
+    }
+
+    @Override
+    public boolean getUsesDataConnection() {
+        return false;
+    }
+
+    @Override
+    protected String getName() {
+        return "Tile Pack Provider";
+    }
+
+    @Override
+    protected String getThreadGroupName() {
+        return "tilepack";
+    }
+
+    @Override
+    public void setTileSource(ITileSource tileSource) {
+        if (tileSource != null) {
+            tileSize = tileSource.getTileSizePixels();
+        }
+    }
+
+    @Override
+    public int getMaximumZoomLevel() {
+        return pack.getMaxZoom();
+    }
+
+    @Override
+    public int getMinimumZoomLevel() {
+        return pack.getMinZoom();
+    }
+}
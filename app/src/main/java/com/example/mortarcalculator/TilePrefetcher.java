@@ -0,0 +1,90 @@
+package com.example.mortarcalculator;
+
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.tileprovider.MapTileCache;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.MapTileIndex;
+import org.osmdroid.util.TileSystem;
+import org.osmdroid.views.MapView;
+
+import java.util.Arrays;
+
+// Asks a tile module to decode the ring of tiles just outside the viewport, reaching further
+// ahead in the direction the map is moving, so a fling lands on tiles that are already decoded.
+public class TilePrefetcher implements MapListener {
+    public interface Target {
+        void prefetch(long[] mapTileIndices, int count);
+    }
+
+    private static final int RING = 1;
+    private static final int LEAD = 2;
+
+    private final MapView mapView;
+    private final Target target;
+    private long[] tiles = new long[64];
+    private double lastLat = Double.NaN;
+    private double lastLon = Double.NaN;
+
+    public TilePrefetcher(MapView mapView, Target target) {
+        this.mapView = mapView;
+        this.target = target;
+    }
+
+    @Override
+    public boolean onScroll(ScrollEvent event) {
+        update();
+        return false;
+    }
+
+    @Override
+    public boolean onZoom(ZoomEvent event) {
+        update();
+        return false;
+    }
+
+    private void update() {
+        BoundingBox box = mapView.getBoundingBox();
+        int zoom = TileSystem.getInputTileZoomLevel(mapView.getZoomLevelDouble());
+        TileSystem tileSystem = MapView.getTileSystem();
+        int left = tileSystem.getTileXFromLongitude(box.getLonWest(), zoom);
+        int right = tileSystem.getTileXFromLongitude(box.getLonEast(), zoom);
+        int top = tileSystem.getTileYFromLatitude(box.getLatNorth(), zoom);
+        int bottom = tileSystem.getTileYFromLatitude(box.getLatSouth(), zoom);
+
+        double lat = box.getCenterLatitude();
+        double lon = box.getCenterLongitude();
+        double dLat = Double.isNaN(lastLat) ? 0 : lat - lastLat;
+        double dLon = Double.isNaN(lastLon) ? 0 : lon - lastLon;
+        lastLat = lat;
+        lastLon = lon;
+
+        int outerLeft = left - RING - (dLon < 0 ? LEAD : 0);
+        int outerRight = right + RING + (dLon > 0 ? LEAD : 0);
+        int outerTop = top - RING - (dLat > 0 ? LEAD : 0);
+        int outerBottom = bottom + RING + (dLat < 0 ? LEAD : 0);
+        int maxTile = (1 << zoom) - 1;
+
+        MapTileCache cache = mapView.getTileProvider().getTileCache();
+        int count = 0;
+        for (int y = Math.max(outerTop, 0); y <= Math.min(outerBottom, maxTile); y++) {
+            for (int x = Math.max(outerLeft, 0); x <= Math.min(outerRight, maxTile); x++) {
+                if (x >= left && x <= right && y >= top && y <= bottom) {
+                    continue; // visible tiles are already requested by the map
+                }
+                long index = MapTileIndex.getTileIndex(zoom, x, y);
+                if (cache.containsTile(index)) {
+                    continue;
+                }
+                if (count == tiles.length) {
+                    tiles = Arrays.copyOf(tiles, count * 2);
+                }
+                tiles[count++] = index;
+            }
+        }
+        if (count > 0) {
+            target.prefetch(tiles, count);
+        }
+    }
+}
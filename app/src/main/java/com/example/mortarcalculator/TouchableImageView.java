@@ -1,22 +1,24 @@
 package com.example.mortarcalculator;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 import androidx.annotation.Nullable;
+import org.osmdroid.api.IGeoPoint;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.Marker;
-import org.osmdroid.views.overlay.Polygon;
-import java.io.InputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 public class TouchableImageView extends androidx.appcompat.widget.AppCompatImageView {
     private static final String TAG = "TouchableImageView";
@@ -24,24 +26,70 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
     private GestureDetector gestureDetector;
     private List<Mortar> mortars = new ArrayList<>();
     private TextView mortarCoordsText;
-    private GeoPoint targetPoint;
-    private Marker targetMarker;
+    private List<Target> targets = new ArrayList<>();
     private TextView targetAnglesText;
     private Button deleteButton;
     private Mortar selectedMortar;
+    private MapDescriptor map;
+    private ActiveMap activeMap;
+    // Firing positions in metres around the map centre; slots match the mortars list
+    private PositionIndex positions = new PositionIndex(0, 0);
+    // Same for targets
+    private PositionIndex targetPositions = new PositionIndex(0, 0);
+    // Draws both indexes: markers, range rings and the aim point
+    private PositionsOverlay positionsOverlay;
+    // Terrain-aware reachable area per mortar, keyed by Mortar.id; owned by the active map
+    private ReachOverlay reachOverlay;
+    private final ReachWorker reachWorker = new ReachWorker();
+    private long nextMortarId;
+    // Loaded in the background; until then solutions use the closed form
+    private volatile RangeTable rangeTable;
+    // Terrain of the current map for arc clearance, sampled in the background; null until then
+    private volatile ClearanceChecker clearanceChecker;
+    // Drag-to-aim after a long press
+    private final AimTracker aimTracker = new AimTracker(WEAPON, PROJECTION);
+    private boolean aiming;
+    private GeoPoint aimPoint;
+    private final GeoPoint aimShown = new GeoPoint(0.0, 0.0);
+    // Every mortar against every target, recomputed off the UI thread on each change
+    private final SolutionWorker solutionWorker = new SolutionWorker();
+    private SolutionMatrix solutions;
+    private final StringBuilder targetsText = new StringBuilder();
+    private static final WeaponProfile WEAPON = WeaponProfile.SQUAD_MORTAR;
+    // Range ring around each mortar, as before the ballistic model: whether a target inside it can
+    // actually be hit is up to WEAPON and the height difference
     private static final double MAX_RANGE = 5000;
-    private static final int MAX_MORTARS = 5;
+    // Same flat-earth model as PositionIndex, ClearanceChecker and the range rings, so every distance
+    // on screen agrees; ELLIPSOIDAL is about 50x slower per projection
+    private static final LocalProjection.Model PROJECTION = LocalProjection.Model.EQUIRECTANGULAR;
+    private static final double SELECT_RADIUS = 100;
+    private static final int MAX_MORTARS = 500;
+    private static final int MAX_TARGETS = 100;
+    // Reach masks extend as far as a target this far below the mortar can be hit
+    private static final double REACH_DROP = 300;
+    private static final int MAX_MASK_CELLS = 512;
+    private static final int MAX_CLEARANCE_CELLS = 1024;
+    // Shown instead of the terrain check when a height is unknown and the solution assumed level ground
+    private static final String LEVEL_NOTE = ", высота недоступна, расчёт как по ровной местности";
 
     private static class Mortar {
+        final long id;
         GeoPoint point;
-        Marker marker;
-        Polygon rangeCircle;
         double elevation;
 
-        Mortar(GeoPoint point, Marker marker, Polygon rangeCircle, double elevation) {
+        Mortar(long id, GeoPoint point, double elevation) {
+            this.id = id;
+            this.point = point;
+            this.elevation = elevation;
+        }
+    }
+
+    private static class Target {
+        GeoPoint point;
+        double elevation;
+
+        Target(GeoPoint point, double elevation) {
             this.point = point;
-            this.marker = marker;
-            this.rangeCircle = rangeCircle;
             this.elevation = elevation;
         }
     }
@@ -69,9 +117,64 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
 
     void setMapView(MapView mapView) {
         this.mapView = mapView;
+        attachPositionsOverlay();
         Log.d(TAG, "MapView set: " + (mapView != null));
     }
 
+    void setMap(ActiveMap activeMap) {
+        MapDescriptor map = activeMap.getMap();
+        this.activeMap = activeMap;
+        this.map = map;
+        // Call after reset(): existing positions are not carried over to the new origin
+        positions = new PositionIndex(map.getCenterLat(), map.getCenterLon());
+        targetPositions = new PositionIndex(map.getCenterLat(), map.getCenterLon());
+        if (reachOverlay != null && mapView != null) {
+            mapView.getOverlays().remove(reachOverlay);
+        }
+        reachOverlay = activeMap.getReachOverlay();
+        attachPositionsOverlay();
+        // Kept by the active map, so a recreated view does not sample the terrain again
+        clearanceChecker = null;
+        aimTracker.setClearanceChecker(null);
+        activeMap.loadClearanceChecker(MAX_CLEARANCE_CELLS, this::onClearanceChecker);
+        Log.d(TAG, "Map set: " + map.getId());
+    }
+
+    // The active map samples its terrain once; a grid for a map switched away from since is dropped
+    private void onClearanceChecker(MapDescriptor map, ClearanceChecker checker) {
+        if (this.map == null || !this.map.getId().equals(map.getId())) {
+            return;
+        }
+        clearanceChecker = checker;
+        aimTracker.setClearanceChecker(checker);
+        requestSolutions(0);
+    }
+
+    private void attachPositionsOverlay() {
+        if (mapView == null) {
+            return;
+        }
+        if (positionsOverlay != null) {
+            mapView.getOverlays().remove(positionsOverlay);
+        }
+        positionsOverlay = new PositionsOverlay(positions, targetPositions, MAX_RANGE,
+                getResources().getDisplayMetrics().density);
+        if (reachOverlay != null) {
+            mapView.getOverlays().remove(reachOverlay);
+            mapView.getOverlays().add(reachOverlay);
+        }
+        mapView.getOverlays().add(positionsOverlay);
+    }
+
+    void setRangeTable(RangeTable rangeTable) {
+        this.rangeTable = rangeTable;
+        aimTracker.setRangeTable(rangeTable);
+    }
+
+    static WeaponProfile getWeapon() {
+        return WEAPON;
+    }
+
     public void setMortarCoordsText(TextView textView) {
         this.mortarCoordsText = textView;
         Log.d(TAG, "MortarCoordsText set");
@@ -87,10 +190,14 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
         deleteButton.setVisibility(View.GONE);
         deleteButton.setOnClickListener(v -> {
             if (selectedMortar != null && mapView != null) {
-                mapView.getOverlays().remove(selectedMortar.marker);
-                mapView.getOverlays().remove(selectedMortar.rangeCircle);
-                mortars.remove(selectedMortar);
+                int slot = mortars.indexOf(selectedMortar);
+                mortars.remove(slot);
+                positions.remove(slot);
+                reachOverlay.remove(selectedMortar.id);
+                positionsOverlay.setSelected(-1);
+                positionsOverlay.invalidateGeometry();
                 updateMortarCoordsText();
+                requestSolutions(0);
                 mapView.invalidate();
                 Log.d(TAG, "Mortar deleted via button");
                 selectedMortar = null;
@@ -105,16 +212,19 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
             Log.e(TAG, "Cannot reset: MapView is null");
             return;
         }
-        for (Mortar mortar : mortars) {
-            mapView.getOverlays().remove(mortar.marker);
-            mapView.getOverlays().remove(mortar.rangeCircle);
-        }
         mortars.clear();
-        if (targetMarker != null) {
-            mapView.getOverlays().remove(targetMarker);
-            targetMarker = null;
-            targetPoint = null;
+        positions.clear();
+        targets.clear();
+        targetPositions.clear();
+        selectedMortar = null;
+        positionsOverlay.setSelected(-1);
+        positionsOverlay.invalidateGeometry();
+        reachWorker.cancel();
+        if (reachOverlay != null) {
+            reachOverlay.clear();
         }
+        solutionWorker.cancel();
+        solutions = null;
         updateMortarCoordsText();
         if (targetAnglesText != null) {
             targetAnglesText.setText("Цель: не установлена");
@@ -126,17 +236,113 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
         Log.d(TAG, "Reset: all mortars and targets cleared");
     }
 
+    // Placements and camera of the current map for onSaveInstanceState
+    PlacementSnapshot snapshot() {
+        int mortarCount = mortars.size();
+        long[] ids = new long[mortarCount];
+        double[] mortarLats = new double[mortarCount];
+        double[] mortarLons = new double[mortarCount];
+        double[] mortarHeights = new double[mortarCount];
+        for (int i = 0; i < mortarCount; i++) {
+            ids[i] = mortars.get(i).id;
+            mortarLats[i] = positions.getLatitude(i);
+            mortarLons[i] = positions.getLongitude(i);
+            mortarHeights[i] = mortars.get(i).elevation;
+        }
+        int targetCount = targets.size();
+        double[] targetLats = new double[targetCount];
+        double[] targetLons = new double[targetCount];
+        double[] targetHeights = new double[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            targetLats[i] = targetPositions.getLatitude(i);
+            targetLons[i] = targetPositions.getLongitude(i);
+            targetHeights[i] = targets.get(i).elevation;
+        }
+        IGeoPoint center = mapView.getMapCenter();
+        return new PlacementSnapshot(map.getId(), mapView.getZoomLevelDouble(), center.getLatitude(), center.getLongitude(),
+                nextMortarId, mortars.indexOf(selectedMortar), ids, mortarLats, mortarLons, mortarHeights, mortarCount,
+                targetLats, targetLons, targetHeights, targetCount);
+    }
+
+    // Call right after setMap(): puts every position back with one index rebuild, one overlay
+    // relayout and one solution pass. Reach masks still held by the active map are not recomputed.
+    void restore(PlacementSnapshot snapshot) {
+        long start = System.nanoTime();
+        int mortarCount = Math.min(snapshot.getMortarCount(), MAX_MORTARS);
+        double[] mortarLats = snapshot.getMortarLats();
+        double[] mortarLons = snapshot.getMortarLons();
+        positions.addAll(mortarLats, mortarLons, mortarCount);
+        for (int i = 0; i < mortarCount; i++) {
+            Mortar mortar = new Mortar(snapshot.getMortarId(i), new GeoPoint(mortarLats[i], mortarLons[i]),
+                    snapshot.getMortarHeight(i));
+            mortars.add(mortar);
+            if (!reachOverlay.contains(mortar.id)) {
+                requestReachMask(mortar);
+            }
+        }
+        int targetCount = Math.min(snapshot.getTargetCount(), MAX_TARGETS);
+        double[] targetLats = snapshot.getTargetLats();
+        double[] targetLons = snapshot.getTargetLons();
+        targetPositions.addAll(targetLats, targetLons, targetCount);
+        for (int i = 0; i < targetCount; i++) {
+            targets.add(new Target(new GeoPoint(targetLats[i], targetLons[i]), snapshot.getTargetHeight(i)));
+        }
+        nextMortarId = Math.max(nextMortarId, snapshot.getNextMortarId());
+
+        int selected = snapshot.getSelected() < mortarCount ? snapshot.getSelected() : -1;
+        selectedMortar = selected >= 0 ? mortars.get(selected) : null;
+        positionsOverlay.setSelected(selected);
+        if (deleteButton != null) {
+            deleteButton.setVisibility(selectedMortar != null ? View.VISIBLE : View.GONE);
+        }
+        positionsOverlay.invalidateGeometry();
+        updateMortarCoordsText();
+        requestSolutions(0);
+        mapView.invalidate();
+        Log.d(TAG, "Restored " + mortarCount + " mortars and " + targetCount + " targets in "
+                + (System.nanoTime() - start) / 1000 + " us");
+    }
+
+    void release() {
+        solutionWorker.release();
+        reachWorker.release();
+        aimTracker.close();
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        Log.d(TAG, "Touch event: action=" + event.getAction() + ", pointerCount=" + event.getPointerCount());
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Touch event: action=" + event.getAction() + ", pointerCount=" + event.getPointerCount());
+        }
         if (mapView == null) {
             Log.e(TAG, "MapView is null, cannot process touch event");
             return super.onTouchEvent(event);
         }
 
+        if (aiming) {
+            gestureDetector.onTouchEvent(event);
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_MOVE:
+                    aimAt(event);
+                    break;
+                case MotionEvent.ACTION_UP:
+                    aimAt(event);
+                    finishAim(true);
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    finishAim(false);
+                    break;
+                default:
+                    break;
+            }
+            return true;
+        }
+
         // Pass all touch events to MapView first
         boolean mapViewHandled = mapView.onTouchEvent(event);
-        Log.d(TAG, "Touch event passed to MapView, handled=" + mapViewHandled);
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Touch event passed to MapView, handled=" + mapViewHandled);
+        }
 
         // Process gestures
         boolean gestureHandled = gestureDetector.onTouchEvent(event);
@@ -144,7 +350,17 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
         return gestureHandled || mapViewHandled || super.onTouchEvent(event);
     }
 
+    // Tap-to-result ends when the solutions are published, see onSolutions()
     private void handleSingleTap(float touchX, float touchY) {
+        long start = PerfTrace.begin("tap");
+        try {
+            handleTap(touchX, touchY, start);
+        } finally {
+            PerfTrace.endSection();
+        }
+    }
+
+    private void handleTap(float touchX, float touchY, long tapNanos) {
         if (mapView == null) {
             Log.e(TAG, "MapView not set");
             return;
@@ -157,19 +373,24 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
         }
         double lat = geoPoint.getLatitude();
         double lon = geoPoint.getLongitude();
-        Log.d(TAG, "Single tap at: x=" + touchX + ", y=" + touchY + ", lat=" + lat + ", lon=" + lon);
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Single tap at: x=" + touchX + ", y=" + touchY + ", lat=" + lat + ", lon=" + lon);
+        }
 
-        selectedMortar = null;
-        for (Mortar mortar : mortars) {
-            double distance = mortar.point.distanceToAsDouble(geoPoint);
-            if (distance < 100) {
-                selectedMortar = mortar;
-                if (deleteButton != null) {
-                    deleteButton.setVisibility(View.VISIBLE);
-                    Log.d(TAG, "Mortar selected for deletion");
+        double x = positions.toX(lon);
+        double y = positions.toY(lat);
+        int selected = positions.nearest(x, y, SELECT_RADIUS);
+        selectedMortar = selected >= 0 ? mortars.get(selected) : null;
+        positionsOverlay.setSelected(selected);
+        if (selectedMortar != null) {
+            if (deleteButton != null) {
+                deleteButton.setVisibility(View.VISIBLE);
+                if (PerfTrace.ENABLED) {
+                    PerfTrace.log(TAG, "Mortar selected for deletion");
                 }
-                return;
             }
+            mapView.invalidate();
+            return;
         }
 
         if (mortars.isEmpty()) {
@@ -177,49 +398,229 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
             return;
         }
 
-        double z;
-        try (InputStream tifStream = getContext().getAssets().open("N053E046/N053E046/ALPSMLC30_N053E046.tif")) {
-            z = DSMReader.getElevation(lat, lon, tifStream);
-            Log.d(TAG, "Target elevation: " + z + " m");
-        } catch (IOException e) {
-            Log.e(TAG, "DSM read error: " + e.getMessage());
-            z = 0.0;
+        // Tapping a target again removes it
+        int tapped = targetPositions.nearest(x, y, SELECT_RADIUS);
+        if (tapped >= 0) {
+            targets.remove(tapped);
+            targetPositions.remove(tapped);
+            positionsOverlay.invalidateGeometry();
+            mapView.invalidate();
+            requestSolutions(tapNanos);
+            return;
         }
+        addTarget(geoPoint, tapNanos);
+    }
 
-        Mortar closestMortar = null;
-        double minDistance = Double.MAX_VALUE;
-        double[] localCoords = new double[2];
-        for (Mortar mortar : mortars) {
-            localCoords = convertToLocalCoordinates(lat, lon, mortar.point);
-            double distance = Math.sqrt(localCoords[0] * localCoords[0] + localCoords[1] * localCoords[1]);
-            if (distance < minDistance && distance <= MAX_RANGE) {
-                minDistance = distance;
-                closestMortar = mortar;
+    private void addTarget(GeoPoint geoPoint, long inputNanos) {
+        if (targets.size() >= MAX_TARGETS) {
+            Log.w(TAG, "Maximum number of targets (" + MAX_TARGETS + ") reached");
+            return;
+        }
+        double lat = geoPoint.getLatitude();
+        double lon = geoPoint.getLongitude();
+        lookupElevation(lat, lon, z -> {
+            if (PerfTrace.ENABLED) {
+                PerfTrace.log(TAG, "Target elevation: " + z + " m");
+            }
+            // Checked again: other taps may have landed while the elevation was loading
+            if (targets.size() >= MAX_TARGETS) {
+                return;
             }
+            targets.add(new Target(geoPoint, z));
+            targetPositions.add(lat, lon);
+            positionsOverlay.invalidateGeometry();
+            mapView.invalidate();
+            requestSolutions(inputNanos);
+        });
+    }
+
+    // Долгое нажатие: цель следует за пальцем, решение обновляется каждый кадр.
+    // Расчёт идёт в потоке AimTracker, который берёт только последнюю позицию.
+    private void startAim(MotionEvent event) {
+        if (mapView == null || mortars.isEmpty()) {
+            return;
+        }
+        int count = mortars.size();
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        double[] heights = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = positions.getLatitude(i);
+            lons[i] = positions.getLongitude(i);
+            heights[i] = mortars.get(i).elevation;
         }
+        aimTracker.setMortars(lats, lons, heights, count);
+        aimTracker.setRangeTable(rangeTable);
+        // Aims without elevation until the map's source is open
+        aimTracker.setElevation(null);
+        withElevation(aimTracker::setElevation);
+
+        // The map must not keep panning under the finger
+        MotionEvent cancel = MotionEvent.obtain(event);
+        cancel.setAction(MotionEvent.ACTION_CANCEL);
+        mapView.onTouchEvent(cancel);
+        cancel.recycle();
+
+        aiming = true;
+        aimAt(event);
+        Choreographer.getInstance().postFrameCallback(aimFrame);
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Aiming from " + count + " mortars");
+        }
+    }
 
-        if (closestMortar == null) {
-            Log.w(TAG, "Target out of range for all mortars");
+    private void aimAt(MotionEvent event) {
+        GeoPoint geoPoint = (GeoPoint) mapView.getProjection().fromPixels((int) event.getX(), (int) event.getY());
+        if (geoPoint == null) {
             return;
         }
+        aimPoint = geoPoint;
+        // Event time is uptime on the same monotonic clock as System.nanoTime()
+        aimTracker.aim(geoPoint.getLatitude(), geoPoint.getLongitude(), event.getEventTime() * 1000000L);
+    }
+
+    private void finishAim(boolean keepTarget) {
+        aiming = false;
+        Choreographer.getInstance().removeFrameCallback(aimFrame);
+        aimTracker.poll();
+        positionsOverlay.setAim(null);
+        if (keepTarget && aimPoint != null) {
+            addTarget(aimPoint, 0);
+        } else {
+            updateTargetsText();
+            mapView.invalidate();
+        }
+        aimPoint = null;
+    }
 
-        double azimuth = calculateAzimuth(closestMortar.point, geoPoint);
-        Calculator.MortarResult result = Calculator.calculateMortar(localCoords[0], localCoords[1], z);
-        Log.d(TAG, "Target: azimuth=" + azimuth + "°, angle=" + result.angle + "°, velocity=" + result.velocity);
+    // Once per display frame while aiming: apply the newest finished solution, if any
+    private final Choreographer.FrameCallback aimFrame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!aiming) {
+                return;
+            }
+            AimTracker.Solution solution = aimTracker.poll();
+            if (solution != null) {
+                showAim(solution);
+                PerfTrace.record(Metrics.AIM_TO_FRAME, solution.inputNanos);
+            }
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
 
-        if (targetMarker != null) {
-            mapView.getOverlays().remove(targetMarker);
+    private void showAim(AimTracker.Solution solution) {
+        aimShown.setCoords(solution.lat, solution.lon);
+        positionsOverlay.setAim(aimShown);
+        if (targetAnglesText != null) {
+            if (solution.mortar >= 0) {
+                targetAnglesText.setText(String.format("Прицел: Миномёт %d, Азимут=%.1f°, Угол=%.1f°, Дистанция=%.1f м, %s, Полёт=%.1f с",
+                        solution.mortar + 1, solution.azimuth, solution.angle, solution.distance,
+                        heightText(solution.targetHeight), solution.time)
+                        + (!solution.heightKnown ? LEVEL_NOTE
+                        : clearanceChecker != null ? clearanceNote(solution.clearance) : ""));
+            } else {
+                targetAnglesText.setText("Прицел: " + heightText(solution.targetHeight) + ", недостижима");
+            }
         }
-        targetPoint = new GeoPoint(lat, lon);
-        targetMarker = new Marker(mapView);
-        targetMarker.setPosition(targetPoint);
-        targetMarker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-        mapView.getOverlays().add(targetMarker);
         mapView.invalidate();
+    }
 
-        if (targetAnglesText != null) {
-            targetAnglesText.setText(String.format("Цель: Азимут=%.1f°, Угол=%.1f°, Скорость=%.1f м/с, Дистанция=%.1f м",
-                    azimuth, result.angle, result.velocity, minDistance));
+    // Snapshots mortars and targets into primitive arrays for the worker; tapNanos is 0 when the
+    // change did not come from a tap
+    private void requestSolutions(long tapNanos) {
+        if (targets.isEmpty()) {
+            solutionWorker.cancel();
+            solutions = null;
+            updateTargetsText();
+            return;
+        }
+        int mortarCount = mortars.size();
+        double[] mortarLats = new double[mortarCount];
+        double[] mortarLons = new double[mortarCount];
+        double[] mortarHeights = new double[mortarCount];
+        for (int i = 0; i < mortarCount; i++) {
+            mortarLats[i] = positions.getLatitude(i);
+            mortarLons[i] = positions.getLongitude(i);
+            mortarHeights[i] = mortars.get(i).elevation;
+        }
+        int targetCount = targets.size();
+        double[] targetLats = new double[targetCount];
+        double[] targetLons = new double[targetCount];
+        double[] targetHeights = new double[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            targetLats[i] = targetPositions.getLatitude(i);
+            targetLons[i] = targetPositions.getLongitude(i);
+            targetHeights[i] = targets.get(i).elevation;
+        }
+        SolutionMatrix matrix = new SolutionMatrix(mortarLats, mortarLons, mortarHeights, mortarCount,
+                targetLats, targetLons, targetHeights, targetCount, PROJECTION);
+        solutionWorker.submit(matrix, WEAPON, rangeTable, clearanceChecker, tapNanos, this::onSolutions);
+    }
+
+    private void onSolutions(SolutionMatrix matrix, long tapNanos) {
+        solutions = matrix;
+        updateTargetsText();
+        if (tapNanos != 0) {
+            PerfTrace.record(Metrics.TAP_TO_RESULT, tapNanos);
+        }
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Solutions: " + matrix.getMortarCount() + " mortars x " + matrix.getTargetCount() + " targets");
+        }
+    }
+
+    // Per target: the closest mortar that can reach it and how many can
+    private void updateTargetsText() {
+        if (targetAnglesText == null) {
+            return;
+        }
+        SolutionMatrix matrix = solutions;
+        if (matrix == null || matrix.getTargetCount() == 0) {
+            targetAnglesText.setText("Цель: не установлена");
+            return;
+        }
+        targetsText.setLength(0);
+        for (int t = 0; t < matrix.getTargetCount(); t++) {
+            int best = matrix.closestReachable(t);
+            if (best < 0) {
+                targetsText.append(String.format("Цель %d: недостижима\n", t + 1));
+                continue;
+            }
+            int reachable = 0;
+            for (int m = 0; m < matrix.getMortarCount(); m++) {
+                if (matrix.isReachable(m, t)) {
+                    reachable++;
+                }
+            }
+            targetsText.append(String.format("Цель %d: Миномёт %d, Азимут=%.1f°, Угол=%.1f°, Дистанция=%.1f м, Полёт=%.1f с (достают %d из %d)",
+                    t + 1, best + 1, matrix.getAzimuth(best, t), matrix.getAngle(best, t),
+                    matrix.getDistance(best, t), matrix.getTime(best, t), reachable, matrix.getMortarCount()));
+            if (!matrix.isHeightKnown(best, t)) {
+                targetsText.append(LEVEL_NOTE);
+            } else if (matrix.isTerrainChecked()) {
+                targetsText.append(clearanceNote(matrix.getClearance(best, t)));
+            }
+            targetsText.append('\n');
+        }
+        targetAnglesText.setText(targetsText);
+    }
+
+    // A height the elevation source does not have is shown as such, never as 0 m
+    private static String heightText(double height) {
+        return Double.isNaN(height) ? "высота недоступна" : String.format("Высота=%.1f м", height);
+    }
+
+    // Terrain check of the high arc, and whether the low arc would do instead
+    private static String clearanceNote(int clearance) {
+        switch (clearance) {
+            case ClearanceChecker.CLEAR:
+                return ", можно и настильной";
+            case ClearanceChecker.BLOCKED:
+                return ", траектория задевает рельеф";
+            case ClearanceChecker.HIGH_ARC_ONLY:
+                return ", настильная задевает рельеф";
+            default:
+                return "";
         }
     }
 
@@ -241,33 +642,75 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
         }
         double lat = geoPoint.getLatitude();
         double lon = geoPoint.getLongitude();
-        Log.d(TAG, "Double tap at: x=" + touchX + ", y=" + touchY + ", lat=" + lat + ", lon=" + lon);
-
-        double elevation;
-        try (InputStream tifStream = getContext().getAssets().open("N053E046/N053E046/ALPSMLC30_N053E046.tif")) {
-            elevation = DSMReader.getElevation(lat, lon, tifStream);
-            Log.d(TAG, "Mortar elevation: " + elevation + " m");
-        } catch (IOException e) {
-            Log.e(TAG, "DSM read error: " + e.getMessage());
-            elevation = 0.0;
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Double tap at: x=" + touchX + ", y=" + touchY + ", lat=" + lat + ", lon=" + lon);
         }
 
-        Marker marker = new Marker(mapView);
-        marker.setPosition(geoPoint);
-        marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
-        marker.setTitle(String.format("Высота: %.1f м", elevation));
-        mapView.getOverlays().add(marker);
-
-        Polygon rangeCircle = new Polygon();
-        rangeCircle.setPoints(Polygon.pointsAsCircle(geoPoint, MAX_RANGE));
-        mapView.getOverlays().add(rangeCircle);
+        lookupElevation(lat, lon, elevation -> addMortar(geoPoint, elevation));
+    }
 
-        mortars.add(new Mortar(geoPoint, marker, rangeCircle, elevation));
+    private void addMortar(GeoPoint geoPoint, double elevation) {
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Mortar elevation: " + elevation + " m");
+        }
+        // Checked again: other taps may have landed while the elevation was loading
+        if (mortars.size() >= MAX_MORTARS) {
+            return;
+        }
+        double lat = geoPoint.getLatitude();
+        double lon = geoPoint.getLongitude();
+        Mortar mortar = new Mortar(nextMortarId++, geoPoint, elevation);
+        mortars.add(mortar);
+        positions.add(lat, lon);
+        positionsOverlay.invalidateGeometry();
         mapView.invalidate();
+        requestReachMask(mortar);
 
         updateMortarCoordsText();
+        requestSolutions(0);
+
+        if (PerfTrace.ENABLED) {
+            PerfTrace.log(TAG, "Mortar added: lat=" + lat + ", lon=" + lon + ", elevation=" + elevation + " m");
+        }
+    }
+
+    // Only this mortar's mask is computed; the others stay cached in the overlay
+    private void requestReachMask(Mortar mortar) {
+        if (Double.isNaN(mortar.elevation)) {
+            Log.w(TAG, "No reach mask for mortar " + mortar.id + ": its elevation is unknown");
+            return;
+        }
+        withElevation(source -> {
+            if (source == null) {
+                Log.w(TAG, "No reach mask without elevation");
+                return;
+            }
+            requestReachMask(mortar, source);
+        });
+    }
 
-        Log.d(TAG, "Mortar added: lat=" + lat + ", lon=" + lon + ", elevation=" + elevation + " m");
+    private void requestReachMask(Mortar mortar, ElevationSource source) {
+        double radius = ReachMask.reach(WEAPON, REACH_DROP);
+        double cellSize = 2 * radius / MAX_MASK_CELLS;
+        if (source instanceof DSMReader) {
+            cellSize = Math.max(cellSize, ((DSMReader) source).getCellSize());
+        } else if (source instanceof HeightmapGrid) {
+            cellSize = Math.max(cellSize, ((HeightmapGrid) source).getCellSize());
+        }
+        ReachMask mask = new ReachMask(mortar.point.getLatitude(), mortar.point.getLongitude(), mortar.elevation,
+                radius, cellSize, PROJECTION);
+        reachWorker.submit(mortar.id, mask, WEAPON, rangeTable, source, this::onReachMask);
+    }
+
+    private void onReachMask(long id, ReachMask mask, Bitmap bitmap) {
+        for (Mortar mortar : mortars) {
+            if (mortar.id == id) {
+                reachOverlay.put(id, mask, bitmap);
+                mapView.invalidate();
+                return;
+            }
+        }
+        bitmap.recycle(); // deleted while computing
     }
 
     private void updateMortarCoordsText() {
@@ -278,47 +721,82 @@ public class TouchableImageView extends androidx.appcompat.widget.AppCompatImage
             } else {
                 for (int i = 0; i < mortars.size(); i++) {
                     Mortar mortar = mortars.get(i);
-                    coordsText.append(String.format("Миномёт %d: Lat=%.6f, Lon=%.6f, Высота=%.1f м\n",
-                            i + 1, mortar.point.getLatitude(), mortar.point.getLongitude(), mortar.elevation));
+                    coordsText.append(String.format("Миномёт %d: Lat=%.6f, Lon=%.6f, %s\n",
+                            i + 1, mortar.point.getLatitude(), mortar.point.getLongitude(), heightText(mortar.elevation)));
                 }
             }
             mortarCoordsText.setText(coordsText.toString());
         }
     }
 
-    private double[] convertToLocalCoordinates(double lat, double lon, GeoPoint mortarPoint) {
-        double[] coords = new double[2];
-        double mortarLat = mortarPoint.getLatitude();
-        double mortarLon = mortarPoint.getLongitude();
-        coords[0] = (lon - mortarLon) * 111320 * Math.cos(Math.toRadians(mortarLat));
-        coords[1] = (lat - mortarLat) * 111320;
-        return coords;
+    // Hands the map's elevation source to callback on the UI thread: right away when it is open,
+    // otherwise once the elevation loader has opened it, so the UI thread never waits for a raster
+    // or heightmap to open. null when the map has no elevation; dropped if the map changed meanwhile.
+    private void withElevation(Consumer<ElevationSource> callback) {
+        MapDescriptor current = map;
+        if (current == null) {
+            callback.accept(null);
+            return;
+        }
+        ElevationSource source = ElevationIndex.peek(current);
+        if (source != null) {
+            callback.accept(source);
+            return;
+        }
+        Context appContext = getContext().getApplicationContext();
+        ElevationIndex.submit(() -> {
+            ElevationSource opened;
+            try {
+                opened = ElevationIndex.get(appContext, current);
+            } catch (IOException e) {
+                Log.e(TAG, "Elevation unavailable: " + e.getMessage());
+                opened = null;
+            }
+            ElevationSource result = opened;
+            post(() -> {
+                if (map == current) {
+                    callback.accept(result);
+                }
+            });
+        });
     }
 
-    private double calculateAzimuth(GeoPoint mortar, GeoPoint target) {
-        double dLon = Math.toRadians(target.getLongitude() - mortar.getLongitude());
-        double lat1 = Math.toRadians(mortar.getLatitude());
-        double lat2 = Math.toRadians(target.getLatitude());
-
-        double y = Math.sin(dLon) * Math.cos(lat2);
-        double x = Math.cos(lat1) * Math.sin(lat2) - Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLon);
-        double azimuth = Math.toDegrees(Math.atan2(y, x));
-        return (azimuth + 360) % 360;
+    // NaN when the map has no elevation or none at this point; kept as unknown, not as 0 m
+    private void lookupElevation(double lat, double lon, DoubleConsumer callback) {
+        withElevation(source -> {
+            if (source == null) {
+                callback.accept(Double.NaN);
+                return;
+            }
+            long start = PerfTrace.begin("elevationLookup");
+            double elevation = source.getElevation(lat, lon);
+            PerfTrace.end(Metrics.ELEVATION_LOOKUP, start);
+            callback.accept(elevation);
+        });
     }
 
     private class GestureListener extends GestureDetector.SimpleOnGestureListener {
         @Override
         public boolean onSingleTapConfirmed(MotionEvent e) {
-            Log.d(TAG, "Single tap confirmed");
+            if (PerfTrace.ENABLED) {
+                PerfTrace.log(TAG, "Single tap confirmed");
+            }
             handleSingleTap(e.getX(), e.getY());
             return true;
         }
 
         @Override
         public boolean onDoubleTap(MotionEvent e) {
-            Log.d(TAG, "Double tap detected");
+            if (PerfTrace.ENABLED) {
+                PerfTrace.log(TAG, "Double tap detected");
+            }
             handleDoubleTap(e.getX(), e.getY());
             return true;
         }
+
+        @Override
+        public void onLongPress(MotionEvent e) {
+            startAim(e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.example.mortarcalculator;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Input-to-solution latency of drag-to-aim: one aim() followed by polling until that input's
+// solution comes back, including the hand-off to and from the worker thread. The app adds at
+// most one frame on top of this, waiting for the next Choreographer callback.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AimLatencyBenchmark {
+    @Param({"5", "50", "500"})
+    public int mortars;
+
+    private AimTracker tracker;
+    private double lat = 53.5;
+    private double lon = 46.5;
+
+    @Setup
+    public void setUp() throws IOException {
+        tracker = new AimTracker(WeaponProfile.SQUAD_MORTAR);
+        Random random = new Random(29);
+        double[] lats = new double[mortars];
+        double[] lons = new double[mortars];
+        double[] heights = new double[mortars];
+        for (int i = 0; i < mortars; i++) {
+            lats[i] = 53.5 + (random.nextDouble() - 0.5) * 0.02;
+            lons[i] = 46.5 + (random.nextDouble() - 0.5) * 0.03;
+            heights[i] = random.nextDouble() * 30;
+        }
+        tracker.setMortars(lats, lons, heights, mortars);
+        tracker.setElevation(new DSMReader(TestRasters.stripped(3600, 3600, 1.0 / 3600)));
+        tracker.setRangeTable(RangeTable.build(WeaponProfile.SQUAD_MORTAR, 300, 5, 5));
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracker.close();
+    }
+
+    @Benchmark
+    public AimTracker.Solution aimToSolution() {
+        // A finger moving a few metres per event
+        lat += 2e-5;
+        if (lat > 53.51) {
+            lat = 53.49;
+        }
+        long input = System.nanoTime();
+        tracker.aim(lat, lon, input);
+        while (true) {
+            AimTracker.Solution solution = tracker.poll();
+            if (solution != null && solution.inputNanos == input) {
+                return solution;
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
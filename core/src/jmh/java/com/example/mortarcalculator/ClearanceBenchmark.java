@@ -0,0 +1,100 @@
+package com.example.mortarcalculator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Per-shot terrain clearance on a 4 km square at 10 m cells, hills plus scattered towers, for
+// shots within the squad mortar's reach: the pyramid checker's batch API against marching the
+// high arc in half-cell steps.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClearanceBenchmark {
+    private static final int SIZE = 400;
+    private static final double CELL = 10;
+    private static final double MIN = -2000;
+    private static final int SHOTS = 1024;
+    private static final WeaponProfile PROFILE = WeaponProfile.SQUAD_MORTAR;
+
+    private float[] heights;
+    private ClearanceChecker checker;
+    private final double[] x0 = new double[SHOTS];
+    private final double[] y0 = new double[SHOTS];
+    private final double[] z0 = new double[SHOTS];
+    private final double[] x1 = new double[SHOTS];
+    private final double[] y1 = new double[SHOTS];
+    private final double[] z1 = new double[SHOTS];
+    private final byte[] out = new byte[SHOTS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(9);
+        heights = new float[SIZE * SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                double h = 40 * Math.sin(col * 0.05) * Math.cos(row * 0.04) + 20 * Math.sin((col + row) * 0.11);
+                heights[row * SIZE + col] = (float) (random.nextInt(200) == 0 ? h + random.nextInt(300) : h);
+            }
+        }
+        checker = new ClearanceChecker(heights, SIZE, SIZE, MIN, MIN, CELL, 30.5, 47.8);
+        for (int i = 0; i < SHOTS; i++) {
+            x0[i] = -1500 + random.nextDouble() * 3000;
+            y0[i] = -1500 + random.nextDouble() * 3000;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double distance = 50 + random.nextDouble() * 1100;
+            x1[i] = x0[i] + Math.sin(bearing) * distance;
+            y1[i] = y0[i] + Math.cos(bearing) * distance;
+            z0[i] = height(x0[i], y0[i]);
+            z1[i] = height(x1[i], y1[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOTS)
+    public byte[] pyramid() {
+        checker.checkAll(PROFILE, x0, y0, z0, x1, y1, z1, SHOTS, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHOTS)
+    public byte[] marching() {
+        double v2 = PROFILE.getVelocity() * PROFILE.getVelocity();
+        double g = PROFILE.getGravity();
+        for (int i = 0; i < SHOTS; i++) {
+            double distance = Math.hypot(x1[i] - x0[i], y1[i] - y0[i]);
+            double discriminant = v2 * v2 - g * (g * distance * distance + 2 * (z1[i] - z0[i]) * v2);
+            if (discriminant < 0) {
+                out[i] = ClearanceChecker.OUT_OF_RANGE;
+                continue;
+            }
+            double tan = (v2 + Math.sqrt(discriminant)) / (g * distance);
+            double drop = g / (2 * v2) * (1 + tan * tan);
+            byte result = ClearanceChecker.CLEAR;
+            for (double s = CELL; s < distance - CELL; s += CELL / 2) {
+                double x = x0[i] + (x1[i] - x0[i]) * s / distance;
+                double y = y0[i] + (y1[i] - y0[i]) * s / distance;
+                if (height(x, y) > z0[i] + s * tan - drop * s * s) {
+                    result = ClearanceChecker.BLOCKED;
+                    break;
+                }
+            }
+            out[i] = result;
+        }
+        return out;
+    }
+
+    private double height(double x, double y) {
+        int col = Math.min(Math.max((int) ((x - MIN) / CELL), 0), SIZE - 1);
+        int row = Math.min(Math.max((int) ((y - MIN) / CELL), 0), SIZE - 1);
+        return heights[row * SIZE + col];
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// DSM lookups on a 3600x3600 raster in 256x256 tiles, uncompressed against Deflate and LZW with
+// the horizontal predictor, mapped from disk. "cold" is the first lookup after the block cache was
+// dropped (one tile decode); "walk" drags a target around like the UI; "scattered" is uniform over
+// the raster, more tiles than the default 16 MB block cache holds. The synthetic terrain is a plane,
+// so it compresses far better than a real DSM; the file and resident sizes are printed at teardown.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompressedElevationBenchmark {
+    private static final double PIXEL = 1.0 / 3600;
+    private static final int SAMPLES = 16 * 1024;
+
+    @Param({"1", "8", "5"})
+    public int compression;
+
+    private File file;
+    private DSMReader reader;
+    private final double[] walkLats = new double[SAMPLES];
+    private final double[] walkLons = new double[SAMPLES];
+    private final double[] scatteredLats = new double[SAMPLES];
+    private final double[] scatteredLons = new double[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("dsm", ".tif");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.getChannel().write(compression == TestRasters.NONE
+                    ? TestRasters.tiled(3600, 3600, 256, PIXEL)
+                    : TestRasters.compressedTiled(3600, 3600, 256, PIXEL, compression, true));
+        }
+        reader = DSMReader.open(file);
+
+        Random random = new Random(3);
+        double lat = 53.5;
+        double lon = 46.5;
+        for (int i = 0; i < SAMPLES; i++) {
+            lat = Math.min(Math.max(lat + (random.nextDouble() - 0.5) * 2 * PIXEL, 53.497), 53.503);
+            lon = Math.min(Math.max(lon + (random.nextDouble() - 0.5) * 2 * PIXEL, 46.497), 46.503);
+            walkLats[i] = lat;
+            walkLons[i] = lon;
+            scatteredLats[i] = 54.0 - random.nextDouble();
+            scatteredLons[i] = 46.0 + random.nextDouble();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%ncompression %d: file %.1f MB, decoded blocks resident %.1f MB, %d decodes%n",
+                compression, file.length() / 1048576.0, reader.getResidentBlockBytes() / 1048576.0,
+                reader.getBlockDecodes());
+        file.delete();
+    }
+
+    @Benchmark
+    public double cold() {
+        reader.clearBlockCache();
+        int i = next++ % SAMPLES;
+        return reader.getElevation(scatteredLats[i], scatteredLons[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double walk() {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += reader.getElevation(walkLats[i], walkLons[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double scattered() {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += reader.getElevation(scatteredLats[i], scatteredLons[i]);
+        }
+        return sum;
+    }
+}
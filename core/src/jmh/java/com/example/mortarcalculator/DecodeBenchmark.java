@@ -0,0 +1,103 @@
+package com.example.mortarcalculator;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Decode costs on the map-open path. PNG decoding goes through ImageIO here rather than
+// BitmapFactory, so treat the tile numbers as relative, not as device timings.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecodeBenchmark {
+    private static final int HEIGHTMAP_SIZE = 500;
+
+    private byte[] tilePng;
+    private byte[] heightmapPng;
+    private ByteBuffer raster;
+    private File grid;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(5);
+        BufferedImage tile = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                // Smooth terrain colours with a little noise, closer to imagery than flat fills
+                tile.setRGB(x, y, ((x + random.nextInt(8)) << 16) | ((y + random.nextInt(8)) << 8) | ((x ^ y) & 0xFF));
+            }
+        }
+        tilePng = png(tile);
+
+        BufferedImage heightmap = new BufferedImage(HEIGHTMAP_SIZE, HEIGHTMAP_SIZE, BufferedImage.TYPE_INT_ARGB);
+        short[] samples = new short[HEIGHTMAP_SIZE * HEIGHTMAP_SIZE];
+        for (int y = 0; y < HEIGHTMAP_SIZE; y++) {
+            for (int x = 0; x < HEIGHTMAP_SIZE; x++) {
+                int red = (x * 3 + y * 5) % 256;
+                heightmap.setRGB(x, y, 0xFF000000 | red << 16);
+                samples[y * HEIGHTMAP_SIZE + x] = (short) red;
+            }
+        }
+        heightmapPng = png(heightmap);
+
+        raster = TestRasters.stripped(3600, 3600, 1.0 / 3600);
+        grid = File.createTempFile("heightmap", ".hmap");
+        HeightmapGrid.write(grid, HEIGHTMAP_SIZE, HEIGHTMAP_SIZE, samples, 31.0, 30.0, 48.0, 47.0, 1.0f, 0.0f);
+    }
+
+    @TearDown
+    public void tearDown() {
+        grid.delete();
+    }
+
+    @Benchmark
+    public BufferedImage tilePng() throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(tilePng));
+    }
+
+    // First launch: PNG to red-channel samples, as HeightmapStore does before writing the grid file
+    @Benchmark
+    public short[] heightmapPngToSamples() throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(heightmapPng));
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        short[] samples = new short[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            samples[i] = (short) ((pixels[i] >> 16) & 0xFF);
+        }
+        return samples;
+    }
+
+    // Later launches: map the converted grid file
+    @Benchmark
+    public HeightmapGrid heightmapGridOpen() throws IOException {
+        return HeightmapGrid.open(grid);
+    }
+
+    // GeoTIFF header and strip table parse for a 3600x3600 raster
+    @Benchmark
+    public DSMReader dsmOpen() throws IOException {
+        return new DSMReader(raster.duplicate());
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
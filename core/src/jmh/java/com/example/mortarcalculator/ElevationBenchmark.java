@@ -0,0 +1,132 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Per-sample cost of DSM lookups on a full-size 3600x3600 raster mapped from disk, as the app
+// does. "walk" drags a target around a ~300 m neighbourhood like the UI; "grid" is a row-major
+// 128x128 range-ring grid over ~5 km; "scattered" is uniform over the whole tile.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ElevationBenchmark {
+    private static final double PIXEL = 1.0 / 3600;
+    private static final int GRID = 128;
+    private static final int SAMPLES = GRID * GRID;
+
+    @Param({"NEAREST", "BILINEAR", "BICUBIC"})
+    public DSMReader.Interpolation interpolation;
+
+    private File file;
+    private DSMReader reader;
+    private final double[] walkLats = new double[SAMPLES];
+    private final double[] walkLons = new double[SAMPLES];
+    private final double[] gridLats = new double[SAMPLES];
+    private final double[] gridLons = new double[SAMPLES];
+    private final double[] scatteredLats = new double[SAMPLES];
+    private final double[] scatteredLons = new double[SAMPLES];
+    private final float[] out = new float[SAMPLES];
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("dsm", ".tif");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.getChannel().write(TestRasters.stripped(3600, 3600, PIXEL));
+        }
+        reader = DSMReader.open(file);
+        reader.setInterpolation(interpolation);
+
+        Random random = new Random(3);
+        double lat = 53.5;
+        double lon = 46.5;
+        for (int i = 0; i < SAMPLES; i++) {
+            lat = clamp(lat + (random.nextDouble() - 0.5) * 2 * PIXEL, 53.497, 53.503);
+            lon = clamp(lon + (random.nextDouble() - 0.5) * 2 * PIXEL, 46.497, 46.503);
+            walkLats[i] = lat;
+            walkLons[i] = lon;
+            scatteredLats[i] = 54.0 - random.nextDouble();
+            scatteredLons[i] = 46.0 + random.nextDouble();
+        }
+        for (int r = 0; r < GRID; r++) {
+            for (int c = 0; c < GRID; c++) {
+                gridLats[r * GRID + c] = 53.8 - r * 0.045 / GRID;
+                gridLons[r * GRID + c] = 46.2 + c * 0.075 / GRID;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double singleWalk() {
+        return scalar(walkLats, walkLons);
+    }
+
+    // Every query misses the bicubic coefficient cache
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double singleWalkCold() {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            reader.clearCoefficientCache();
+            sum += reader.getElevation(walkLats[i], walkLons[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double singleGrid() {
+        return scalar(gridLats, gridLons);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float[] batchGrid() {
+        reader.getElevations(gridLats, gridLons, SAMPLES, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double singleScattered() {
+        return scalar(scatteredLats, scatteredLons);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float[] batchScattered() {
+        reader.getElevations(scatteredLats, scatteredLons, SAMPLES, out);
+        return out;
+    }
+
+    private double scalar(double[] lats, double[] lons) {
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += reader.getElevation(lats[i], lons[i]);
+        }
+        return sum;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.min(Math.max(value, min), max);
+    }
+}
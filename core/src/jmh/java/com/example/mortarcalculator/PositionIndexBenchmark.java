@@ -0,0 +1,98 @@
+package com.example.mortarcalculator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Per-tap cost of the selection and closest-in-range queries as positions grow, against the
+// linear scan TouchableImageView used to do. Positions are spread over a 4 km square.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionIndexBenchmark {
+    private static final double ORIGIN_LAT = 30.5;
+    private static final double ORIGIN_LON = 47.8;
+    private static final int TAPS = 256;
+
+    @Param({"5", "50", "200", "1000"})
+    public int positions;
+
+    private PositionIndex index;
+    private final double[] tapLats = new double[TAPS];
+    private final double[] tapLons = new double[TAPS];
+    private int[] found;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(13);
+        index = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+        for (int i = 0; i < positions; i++) {
+            index.add(ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.036, ORIGIN_LON + (random.nextDouble() - 0.5) * 0.042);
+        }
+        for (int i = 0; i < TAPS; i++) {
+            tapLats[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.06;
+            tapLons[i] = ORIGIN_LON + (random.nextDouble() - 0.5) * 0.07;
+        }
+        found = new int[positions];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAPS)
+    public int select() {
+        int sum = 0;
+        for (int i = 0; i < TAPS; i++) {
+            sum += index.nearest(index.toX(tapLons[i]), index.toY(tapLats[i]), 100);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAPS)
+    public int closestInRange() {
+        int sum = 0;
+        for (int i = 0; i < TAPS; i++) {
+            sum += index.nearest(index.toX(tapLons[i]), index.toY(tapLats[i]), 5000);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAPS)
+    public int allInRange() {
+        int sum = 0;
+        for (int i = 0; i < TAPS; i++) {
+            sum += index.withinRange(index.toX(tapLons[i]), index.toY(tapLats[i]), 1500, found);
+        }
+        return sum;
+    }
+
+    // The pre-index tap path: local offsets from every mortar, one array per mortar
+    @Benchmark
+    @OperationsPerInvocation(TAPS)
+    public int linearClosestInRange() {
+        int sum = 0;
+        for (int i = 0; i < TAPS; i++) {
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int slot = 0; slot < positions; slot++) {
+                double[] local = new double[2];
+                GeoMath.toLocal(tapLats[i], tapLons[i], index.getLatitude(slot), index.getLongitude(slot), local);
+                double distance = Math.sqrt(local[0] * local[0] + local[1] * local[1]);
+                if (distance < bestDistance && distance <= 5000) {
+                    bestDistance = distance;
+                    best = slot;
+                }
+            }
+            sum += best;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.mortarcalculator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Layout rebuild of the positions overlay after a zoom level change at 5, 50 and 200 positions.
+// Frame times of the overlay itself, against one Marker and range Polygon per position, are
+// measured on a device by PositionsOverlayFrameTimeTest (app androidTest).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PositionLayoutBenchmark {
+    private static final double ORIGIN_LAT = 30.512;
+    private static final double ORIGIN_LON = 47.803;
+
+    @Param({"5", "50", "200"})
+    public int positions;
+
+    private PositionIndex index;
+    private PositionLayout layout;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        index = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+        for (int i = 0; i < positions; i++) {
+            index.add(ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.05, ORIGIN_LON + (random.nextDouble() - 0.5) * 0.05);
+        }
+        layout = new PositionLayout(256 * Math.pow(2, 16));
+    }
+
+    @Benchmark
+    public PositionLayout zoomChange() {
+        layout.build(index, ORIGIN_LAT, ORIGIN_LON, WeaponProfile.SQUAD_MORTAR.getMaxRange());
+        return layout;
+    }
+}
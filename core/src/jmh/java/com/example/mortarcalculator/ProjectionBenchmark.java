@@ -0,0 +1,79 @@
+package com.example.mortarcalculator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Projecting a batch of points around one firing position: the cached projection in both models
+// against recomputing the origin's trig per point as GeoMath.toLocal does.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+    private static final double ORIGIN_LAT = 30.512;
+    private static final double ORIGIN_LON = 47.803;
+
+    @Param({"4096"})
+    public int points;
+
+    private double[] lats;
+    private double[] lons;
+    private double[] east;
+    private double[] north;
+    private final double[] local = new double[2];
+    private LocalProjection equirectangular;
+    private LocalProjection ellipsoidal;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(17);
+        lats = new double[points];
+        lons = new double[points];
+        for (int i = 0; i < points; i++) {
+            lats[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.03;
+            lons[i] = ORIGIN_LON + (random.nextDouble() - 0.5) * 0.03;
+        }
+        east = new double[points];
+        north = new double[points];
+        equirectangular = new LocalProjection(ORIGIN_LAT, ORIGIN_LON, LocalProjection.Model.EQUIRECTANGULAR);
+        ellipsoidal = new LocalProjection(ORIGIN_LAT, ORIGIN_LON, LocalProjection.Model.ELLIPSOIDAL);
+    }
+
+    @Benchmark
+    public double[] geoMathPerPoint() {
+        for (int i = 0; i < points; i++) {
+            GeoMath.toLocal(lats[i], lons[i], ORIGIN_LAT, ORIGIN_LON, local);
+            east[i] = local[0];
+            north[i] = local[1];
+        }
+        return east;
+    }
+
+    @Benchmark
+    public double[] equirectangularBatch() {
+        equirectangular.projectAll(lats, lons, points, east, north);
+        return east;
+    }
+
+    @Benchmark
+    public double[] ellipsoidalBatch() {
+        ellipsoidal.projectAll(lats, lons, points, east, north);
+        return east;
+    }
+
+    @Benchmark
+    public double azimuths() {
+        double sum = 0;
+        for (int i = 0; i < points; i++) {
+            sum += ellipsoidal.azimuth(lats[i], lons[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// One firing position's reach mask at DSM resolution (1 arc-second, ~30 m) over a full-size
+// raster mapped from disk: the squad mortar's own radius, and a 5 km radius from a weapon with
+// that flat-ground range, on 1..N fork-join workers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReachMaskBenchmark {
+    private static final double PIXEL = 1.0 / 3600;
+    private static final double LAT = 53.5;
+    private static final double LON = 46.5;
+
+    @Param({"1500", "5000"})
+    public int radius;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private File file;
+    private DSMReader reader;
+    private WeaponProfile profile;
+    private ForkJoinPool pool;
+    private double height;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("dsm", ".tif");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.getChannel().write(TestRasters.stripped(3600, 3600, PIXEL));
+        }
+        reader = DSMReader.open(file);
+        profile = new WeaponProfile("range_" + radius, Math.sqrt(radius * 9.8), 9.8);
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (threads > cores) {
+            System.out.printf("%n%d workers on %d cores: splitting overhead, not scaling%n", threads, cores);
+        }
+        pool = new ForkJoinPool(threads);
+        height = reader.getElevation(LAT, LON);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public ReachMask mask() {
+        ReachMask mask = new ReachMask(LAT, LON, height, radius, reader.getCellSize(),
+                LocalProjection.Model.ELLIPSOIDAL);
+        mask.compute(pool, profile, null, reader);
+        return mask;
+    }
+}
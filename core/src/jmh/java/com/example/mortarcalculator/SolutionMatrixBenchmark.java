@@ -0,0 +1,77 @@
+package com.example.mortarcalculator;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Whole-matrix time for square mortar x target sets by worker count; pairs/second is
+// side * side / score. Positions are spread over 1 km so most pairs are in range.
+// Core scaling only shows on a machine with at least as many cores as workers: a worker count
+// above availableProcessors() measures the cost of splitting on oversubscribed cores instead,
+// and setUp() says so in the output.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SolutionMatrixBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"24", "64", "200"})
+    public int side;
+
+    private ForkJoinPool pool;
+    private RangeTable table;
+    private double[] mortarLats;
+    private double[] mortarLons;
+    private double[] mortarHeights;
+    private double[] targetLats;
+    private double[] targetLons;
+    private double[] targetHeights;
+
+    @Setup
+    public void setUp() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (threads > cores) {
+            System.out.printf("%n%d workers on %d cores: splitting overhead, not scaling%n", threads, cores);
+        }
+        pool = new ForkJoinPool(threads);
+        table = RangeTable.build(WeaponProfile.SQUAD_MORTAR, 300, 5, 5);
+        Random random = new Random(23);
+        mortarLats = new double[side];
+        mortarLons = new double[side];
+        mortarHeights = new double[side];
+        targetLats = new double[side];
+        targetLons = new double[side];
+        targetHeights = new double[side];
+        for (int i = 0; i < side; i++) {
+            mortarLats[i] = 30.5 + random.nextDouble() * 0.009;
+            mortarLons[i] = 47.8 + random.nextDouble() * 0.010;
+            mortarHeights[i] = random.nextDouble() * 40;
+            targetLats[i] = 30.5 + random.nextDouble() * 0.009;
+            targetLons[i] = 47.8 + random.nextDouble() * 0.010;
+            targetHeights[i] = random.nextDouble() * 40;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SolutionMatrix matrix() {
+        SolutionMatrix matrix = new SolutionMatrix(mortarLats, mortarLons, mortarHeights, side,
+                targetLats, targetLons, targetHeights, side);
+        matrix.compute(pool, WeaponProfile.SQUAD_MORTAR, table);
+        return matrix;
+    }
+}
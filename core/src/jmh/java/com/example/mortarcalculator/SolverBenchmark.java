@@ -0,0 +1,67 @@
+package com.example.mortarcalculator;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Tap-to-solution math: local offset, azimuth and the firing solution for one mortar/target pair,
+// both closed form and from the precomputed range table.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SolverBenchmark {
+    private static final double MORTAR_LAT = 30.512;
+    private static final double MORTAR_LON = 47.803;
+
+    private final double[] local = new double[2];
+    private final Calculator.MortarResult result = new Calculator.MortarResult();
+    private RangeTable table;
+    private double targetLat;
+    private double targetLon;
+    private double targetHeight;
+
+    @Setup
+    public void setUp() {
+        // ~800 m north-east of the mortar, 12.5 m higher
+        targetLat = 30.5171;
+        targetLon = 47.8092;
+        targetHeight = 12.5;
+        table = RangeTable.build(WeaponProfile.SQUAD_MORTAR, 300, 5, 5);
+    }
+
+    @Benchmark
+    public double[] toLocal() {
+        GeoMath.toLocal(targetLat, targetLon, MORTAR_LAT, MORTAR_LON, local);
+        return local;
+    }
+
+    @Benchmark
+    public double azimuth() {
+        return GeoMath.azimuth(MORTAR_LAT, MORTAR_LON, targetLat, targetLon);
+    }
+
+    @Benchmark
+    public Calculator.MortarResult solveClosedForm() {
+        GeoMath.toLocal(targetLat, targetLon, MORTAR_LAT, MORTAR_LON, local);
+        Calculator.solve(WeaponProfile.SQUAD_MORTAR.getVelocity(), WeaponProfile.SQUAD_MORTAR.getGravity(),
+                Math.sqrt(local[0] * local[0] + local[1] * local[1]), targetHeight, result);
+        return result;
+    }
+
+    @Benchmark
+    public Calculator.MortarResult solveTable() {
+        GeoMath.toLocal(targetLat, targetLon, MORTAR_LAT, MORTAR_LON, local);
+        table.solve(Math.sqrt(local[0] * local[0] + local[1] * local[1]), targetHeight, result);
+        return result;
+    }
+
+    @Benchmark
+    public RangeTable buildTable() {
+        return RangeTable.build(WeaponProfile.SQUAD_MORTAR, 300, 5, 5);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Getting a tile's encoded bytes: one file per tile, as the assets/tiles pyramid was read, against
+// a lookup in a mapped TilePack. The pyramid is synthetic but sized like the bundled one (zoom
+// 8-12, ~14 KB tiles). Plain files stand in for APK assets, so the open costs are a lower bound
+// for AssetManager.open(); decoding is the same either way and left out (see DecodeBenchmark).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TilePackBenchmark {
+    private static final int MIN_ZOOM = 8;
+    private static final int MAX_ZOOM = 12;
+    private static final int TILE_BYTES = 14 * 1024;
+
+    private File pyramid;
+    private File packFile;
+    private TilePack pack;
+    private int[][] tiles; // {zoom, x, y} rows counted from the north
+    private final byte[] buffer = new byte[TILE_BYTES];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        pyramid = Files.createTempDirectory("pyramid").toFile();
+        Files.writeString(new File(pyramid, "tilemapresource.xml").toPath(),
+                "<?xml version=\"1.0\"?><TileMap><BoundingBox minx=\"46.0\" miny=\"53.0\" maxx=\"47.0\" maxy=\"54.0\"/>"
+                        + "<TileFormat width=\"256\" height=\"256\" mime-type=\"image/png\" extension=\"png\"/></TileMap>");
+        Random random = new Random(8);
+        byte[] tile = new byte[TILE_BYTES];
+        tiles = new int[0][];
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            // A 1-degree square: 2 x 2 tiles at zoom 8, doubling per level
+            int side = 2 << (zoom - MIN_ZOOM);
+            int firstX = 160 << (zoom - MIN_ZOOM);
+            int firstY = 80 << (zoom - MIN_ZOOM);
+            for (int x = firstX; x < firstX + side; x++) {
+                File column = new File(pyramid, zoom + "/" + x);
+                column.mkdirs();
+                for (int y = firstY; y < firstY + side; y++) {
+                    random.nextBytes(tile);
+                    int tmsY = (1 << zoom) - 1 - y;
+                    Files.write(new File(column, tmsY + ".png").toPath(), tile);
+                    tiles = Arrays.copyOf(tiles, tiles.length + 1);
+                    tiles[tiles.length - 1] = new int[]{zoom, x, y};
+                }
+            }
+        }
+        // Visit order as a pan would request them, not the pack's sort order
+        for (int i = tiles.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int[] swap = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = swap;
+        }
+        packFile = new File(pyramid, "tiles.pack");
+        TilePackWriter.write(pyramid, packFile, -1);
+        pack = TilePack.open(packFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(pyramid.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int fileTile() throws IOException {
+        int[] tile = tiles[next++ % tiles.length];
+        int tmsY = (1 << tile[0]) - 1 - tile[2];
+        return Files.readAllBytes(new File(pyramid, tile[0] + "/" + tile[1] + "/" + tmsY + ".png").toPath()).length;
+    }
+
+    @Benchmark
+    public int packTile() {
+        int[] tile = tiles[next++ % tiles.length];
+        int entry = pack.find(tile[0], tile[1], tile[2]);
+        pack.read(entry, buffer);
+        return pack.getLength(entry);
+    }
+
+    // First tile after opening the map: mapping the pack and parsing its index included
+    @Benchmark
+    public int packOpenAndFirstTile() throws IOException {
+        TilePack opened = TilePack.open(packFile);
+        int[] tile = tiles[0];
+        int entry = opened.find(tile[0], tile[1], tile[2]);
+        opened.read(entry, buffer);
+        return opened.getLength(entry);
+    }
+}
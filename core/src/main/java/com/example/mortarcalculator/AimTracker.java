@@ -0,0 +1,240 @@
+package com.example.mortarcalculator;
+
+import java.util.Arrays;
+
+/**
+ * Solves a dragged aim point on its own thread. aim() only overwrites the latest position, so the
+ * worker always skips straight to the newest one; poll() hands the consumer the newest finished
+ * solution, at most once. Three preallocated Solution buffers rotate between worker, hand-off
+ * slot and consumer, so nothing is allocated per move.
+ */
+public final class AimTracker {
+    public static final class Solution {
+        public double lat;
+        public double lon;
+        // NaN when unknown
+        public double targetHeight;
+        // Closest mortar that can reach the point, -1 if none can
+        public int mortar;
+        public double azimuth;
+        public double angle;
+        public double distance;
+        public double time;
+        // ClearanceChecker result for that mortar; CLEAR without a checker
+        public int clearance;
+        // False when that mortar's or the target's height is unknown and the solution assumed level ground
+        public boolean heightKnown;
+        // System.nanoTime() of the input this solves
+        public long inputNanos;
+    }
+
+    private final WeaponProfile profile;
+    private final LocalProjection.Model model;
+    private final Object lock = new Object();
+    private final Thread worker;
+    private final Calculator.MortarResult result = new Calculator.MortarResult();
+    private final double[] local = new double[2];
+
+    // Guarded by lock
+    private long requested;
+    private long solved;
+    private double pendingLat;
+    private double pendingLon;
+    private long pendingNanos;
+    private boolean fresh;
+    private boolean closed;
+    private Solution ready = new Solution();
+    private LocalProjection[] mortarProjections = new LocalProjection[0];
+    private double[] mortarHeights = new double[0];
+    private int mortarCount;
+    private ElevationSource elevation;
+    private RangeTable table;
+    private ClearanceChecker checker;
+
+    // Owned by the worker / the consumer
+    private Solution working = new Solution();
+    private Solution consumed = new Solution();
+
+    public AimTracker(WeaponProfile profile) {
+        this(profile, LocalProjection.Model.EQUIRECTANGULAR);
+    }
+
+    public AimTracker(WeaponProfile profile, LocalProjection.Model model) {
+        this.profile = profile;
+        this.model = model;
+        worker = new Thread(this::run, "aim");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Snapshot of the firing positions to aim from; copied
+    public void setMortars(double[] lats, double[] lons, double[] heights, int count) {
+        LocalProjection[] projections = new LocalProjection[count];
+        for (int m = 0; m < count; m++) {
+            projections[m] = new LocalProjection(lats[m], lons[m], model);
+        }
+        synchronized (lock) {
+            mortarProjections = projections;
+            mortarHeights = Arrays.copyOf(heights, count);
+            mortarCount = count;
+        }
+    }
+
+    // Target heights come from here; null means unknown
+    public void setElevation(ElevationSource elevation) {
+        synchronized (lock) {
+            this.elevation = elevation;
+        }
+    }
+
+    // May be null: the closed form is used then
+    public void setRangeTable(RangeTable table) {
+        synchronized (lock) {
+            this.table = table;
+        }
+    }
+
+    // May be null: arcs are not checked against the terrain then
+    public void setClearanceChecker(ClearanceChecker checker) {
+        synchronized (lock) {
+            this.checker = checker;
+        }
+    }
+
+    public void aim(double lat, double lon, long inputNanos) {
+        synchronized (lock) {
+            pendingLat = lat;
+            pendingLon = lon;
+            pendingNanos = inputNanos;
+            requested++;
+            lock.notify();
+        }
+    }
+
+    // Newest solution not yet returned, or null. The returned object stays valid until the next poll().
+    public Solution poll() {
+        synchronized (lock) {
+            if (!fresh) {
+                return null;
+            }
+            Solution swap = consumed;
+            consumed = ready;
+            ready = swap;
+            fresh = false;
+            return consumed;
+        }
+    }
+
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notify();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            double lat;
+            double lon;
+            long inputNanos;
+            LocalProjection[] projections;
+            double[] heights;
+            int count;
+            ElevationSource source;
+            RangeTable rangeTable;
+            ClearanceChecker clearance;
+            synchronized (lock) {
+                while (requested == solved && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                solved = requested;
+                lat = pendingLat;
+                lon = pendingLon;
+                inputNanos = pendingNanos;
+                projections = mortarProjections;
+                heights = mortarHeights;
+                count = mortarCount;
+                source = elevation;
+                rangeTable = table;
+                clearance = checker;
+            }
+
+            solve(lat, lon, inputNanos, projections, heights, count, source, rangeTable, clearance, working);
+
+            synchronized (lock) {
+                Solution swap = ready;
+                ready = working;
+                working = swap;
+                fresh = true;
+            }
+        }
+    }
+
+    private void solve(double lat, double lon, long inputNanos, LocalProjection[] projections, double[] heights,
+                       int count, ElevationSource source, RangeTable rangeTable, ClearanceChecker clearance,
+                       Solution out) {
+        double targetHeight = source == null ? Double.NaN : source.getElevation(lat, lon);
+        out.lat = lat;
+        out.lon = lon;
+        out.targetHeight = targetHeight;
+        out.inputNanos = inputNanos;
+        out.mortar = -1;
+        out.distance = Double.MAX_VALUE;
+        out.clearance = ClearanceChecker.CLEAR;
+        out.heightKnown = false;
+        // The closest mortar wins, but one whose arc clears the terrain beats any blocked one
+        boolean blocked = true;
+        double targetX = clearance == null ? 0 : clearance.toX(lon);
+        double targetY = clearance == null ? 0 : clearance.toY(lat);
+        for (int m = 0; m < count; m++) {
+            projections[m].project(lat, lon, local, 0);
+            double distance = Math.sqrt(local[0] * local[0] + local[1] * local[1]);
+            boolean heightKnown = !Double.isNaN(targetHeight) && !Double.isNaN(heights[m]);
+            double heightDiff = heightKnown ? targetHeight - heights[m] : 0;
+            // A target below the mortar can be hit past the flat-ground maximum range
+            if (distance > ReachMask.reach(profile, -heightDiff)
+                    || out.mortar >= 0 && !blocked && distance >= out.distance) {
+                continue;
+            }
+            boolean reachable = rangeTable != null
+                    ? rangeTable.solve(distance, heightDiff, result)
+                    : solveClosedForm(distance, heightDiff);
+            if (!reachable) {
+                continue;
+            }
+            int verdict = clearance == null || !heightKnown ? ClearanceChecker.CLEAR
+                    : clearance.check(profile, clearance.toX(projections[m].getOriginLon()),
+                    clearance.toY(projections[m].getOriginLat()), heights[m], targetX, targetY, targetHeight);
+            boolean mortarBlocked = verdict == ClearanceChecker.BLOCKED;
+            if (out.mortar < 0 || blocked && !mortarBlocked || blocked == mortarBlocked && distance < out.distance) {
+                out.mortar = m;
+                out.distance = distance;
+                out.angle = result.angle;
+                out.time = result.time;
+                out.clearance = verdict;
+                out.heightKnown = heightKnown;
+                blocked = mortarBlocked;
+            }
+        }
+        if (out.mortar >= 0) {
+            out.azimuth = projections[out.mortar].azimuth(lat, lon);
+        } else {
+            out.distance = Double.NaN;
+            out.azimuth = Double.NaN;
+            out.angle = Double.NaN;
+            out.time = Double.NaN;
+        }
+    }
+
+    private boolean solveClosedForm(double distance, double heightDiff) {
+        Calculator.solve(profile.getVelocity(), profile.getGravity(), distance, heightDiff, result);
+        return result.isReachable();
+    }
+}
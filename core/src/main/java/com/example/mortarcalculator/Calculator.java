@@ -0,0 +1,50 @@
+package com.example.mortarcalculator;
+
+public class Calculator {
+    public static class MortarResult {
+        public double angle;
+        public double velocity;
+        public double time;
+
+        public MortarResult() {
+        }
+
+        public MortarResult(double angle, double velocity, double time) {
+            this.angle = angle;
+            this.velocity = velocity;
+            this.time = time;
+        }
+
+        public boolean isReachable() {
+            return !Double.isNaN(angle);
+        }
+    }
+
+    // Closed-form high-arc solution for a target distance metres away and heightDiff metres above
+    // the weapon. Angle in degrees, NaN when the target is out of reach.
+    public static MortarResult calculateMortar(WeaponProfile profile, double distance, double heightDiff) {
+        MortarResult result = new MortarResult();
+        solve(profile.getVelocity(), profile.getGravity(), distance, heightDiff, result);
+        return result;
+    }
+
+    static void solve(double velocity, double gravity, double distance, double heightDiff, MortarResult out) {
+        out.velocity = velocity;
+        double v2 = velocity * velocity;
+        double discriminant = v2 * v2 - gravity * (gravity * distance * distance + 2 * heightDiff * v2);
+        if (discriminant < 0) {
+            out.angle = Double.NaN;
+            out.time = Double.NaN;
+            return;
+        }
+        double root = Math.sqrt(discriminant);
+        if (distance < 1e-9) {
+            out.angle = 90.0;
+            out.time = (velocity + Math.sqrt(Math.max(v2 - 2 * gravity * heightDiff, 0))) / gravity;
+            return;
+        }
+        double theta = Math.atan2(v2 + root, gravity * distance);
+        out.angle = Math.toDegrees(theta);
+        out.time = distance / (velocity * Math.cos(theta));
+    }
+}
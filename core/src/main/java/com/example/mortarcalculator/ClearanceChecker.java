@@ -0,0 +1,210 @@
+package com.example.mortarcalculator;
+
+import java.util.Arrays;
+
+/**
+ * Checks that a shell's arc clears the terrain between weapon and target. Heights live on a
+ * square grid in metres east/north of an origin (equirectangular, like PositionIndex), with a
+ * pyramid of per-block maxima above it. The arc's ground track is walked cell by cell (DDA) from
+ * the coarsest useful level; a block whose highest point stays under the arc over that stretch is
+ * cleared whole, and only blocks it might touch are walked at the next finer level. Queries keep
+ * all state on the stack: they never allocate and may run on several threads at once.
+ */
+public final class ClearanceChecker {
+    // Both arcs clear the terrain: the low arc is a faster alternative to the high one
+    public static final int CLEAR = 0;
+    // Only the high arc clears. It lies above the low arc along the whole path, so a blocked high
+    // arc leaves no alternative.
+    public static final int HIGH_ARC_ONLY = 1;
+    public static final int BLOCKED = 2;
+    public static final int OUT_OF_RANGE = 3;
+
+    private final double originLat;
+    private final double originLon;
+    private final double metersPerDegreeLon;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    // levels[0] is the height grid; levels[k] holds the maximum of each 2^k x 2^k block
+    private final float[][] levels;
+    private final int[] levelColumns;
+    private final int[] levelRows;
+
+    // heights[row * columns + col] covers the cell whose south-west corner is
+    // (minX + col * cellSize, minY + row * cellSize); NaN where there is no data
+    public ClearanceChecker(float[] heights, int columns, int rows, double minX, double minY, double cellSize,
+                            double originLat, double originLon) {
+        this.originLat = originLat;
+        this.originLon = originLon;
+        metersPerDegreeLon = GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+
+        int count = 1;
+        for (int size = Math.max(columns, rows); size > 1; size = (size + 1) / 2) {
+            count++;
+        }
+        levels = new float[count][];
+        levelColumns = new int[count];
+        levelRows = new int[count];
+        float[] base = new float[columns * rows];
+        for (int i = 0; i < base.length; i++) {
+            // No data never blocks
+            base[i] = Float.isNaN(heights[i]) ? Float.NEGATIVE_INFINITY : heights[i];
+        }
+        levels[0] = base;
+        levelColumns[0] = columns;
+        levelRows[0] = rows;
+        for (int level = 1; level < count; level++) {
+            int fineColumns = levelColumns[level - 1];
+            int fineRows = levelRows[level - 1];
+            int coarseColumns = (fineColumns + 1) / 2;
+            int coarseRows = (fineRows + 1) / 2;
+            float[] fine = levels[level - 1];
+            float[] coarse = new float[coarseColumns * coarseRows];
+            for (int row = 0; row < coarseRows; row++) {
+                for (int col = 0; col < coarseColumns; col++) {
+                    float max = Float.NEGATIVE_INFINITY;
+                    for (int r = row * 2; r < Math.min(row * 2 + 2, fineRows); r++) {
+                        for (int c = col * 2; c < Math.min(col * 2 + 2, fineColumns); c++) {
+                            max = Math.max(max, fine[r * fineColumns + c]);
+                        }
+                    }
+                    coarse[row * coarseColumns + col] = max;
+                }
+            }
+            levels[level] = coarse;
+            levelColumns[level] = coarseColumns;
+            levelRows[level] = coarseRows;
+        }
+    }
+
+    // Samples source at every cell centre of the rectangle [minX, maxX] x [minY, maxY] around the origin
+    public static ClearanceChecker sample(ElevationSource source, double originLat, double originLon,
+                                          double minX, double minY, double maxX, double maxY, double cellSize) {
+        int columns = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+        int rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+        double metersPerDegreeLon = GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+        float[] heights = new float[columns * rows];
+        double[] lats = new double[columns];
+        double[] lons = new double[columns];
+        float[] row = new float[columns];
+        for (int col = 0; col < columns; col++) {
+            lons[col] = originLon + (minX + (col + 0.5) * cellSize) / metersPerDegreeLon;
+        }
+        for (int r = 0; r < rows; r++) {
+            double lat = originLat + (minY + (r + 0.5) * cellSize) / GeoMath.METERS_PER_DEGREE;
+            Arrays.fill(lats, lat);
+            source.getElevations(lats, lons, columns, row);
+            System.arraycopy(row, 0, heights, r * columns, columns);
+        }
+        return new ClearanceChecker(heights, columns, rows, minX, minY, cellSize, originLat, originLon);
+    }
+
+    public double toX(double lon) {
+        return (lon - originLon) * metersPerDegreeLon;
+    }
+
+    public double toY(double lat) {
+        return (lat - originLat) * GeoMath.METERS_PER_DEGREE;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    // Shot from (x0, y0) at height z0 to (x1, y1) at height z1. The cells under the weapon and the
+    // target are not tested: the shell starts and ends on the ground there.
+    public int check(WeaponProfile profile, double x0, double y0, double z0, double x1, double y1, double z1) {
+        double ex = x1 - x0;
+        double ey = y1 - y0;
+        double distance = Math.sqrt(ex * ex + ey * ey);
+        double v2 = profile.getVelocity() * profile.getVelocity();
+        double g = profile.getGravity();
+        double discriminant = v2 * v2 - g * (g * distance * distance + 2 * (z1 - z0) * v2);
+        if (discriminant < 0) {
+            return OUT_OF_RANGE;
+        }
+        double from = cellSize;
+        double to = distance - cellSize;
+        if (to <= from) {
+            return CLEAR;
+        }
+        double dx = ex / distance;
+        double dy = ey / distance;
+        double curvature = g / (2 * v2);
+        double root = Math.sqrt(discriminant);
+        int level = startLevel(to - from);
+        double tanHigh = (v2 + root) / (g * distance);
+        if (!clear(level, from, to, x0, y0, dx, dy, z0, tanHigh, curvature * (1 + tanHigh * tanHigh))) {
+            return BLOCKED;
+        }
+        double tanLow = (v2 - root) / (g * distance);
+        return clear(level, from, to, x0, y0, dx, dy, z0, tanLow, curvature * (1 + tanLow * tanLow))
+                ? CLEAR : HIGH_ARC_ONLY;
+    }
+
+    // Batch form: out[i] for the shot from (x0s[i], y0s[i], z0s[i]) to (x1s[i], y1s[i], z1s[i])
+    public void checkAll(WeaponProfile profile, double[] x0s, double[] y0s, double[] z0s,
+                         double[] x1s, double[] y1s, double[] z1s, int count, byte[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = (byte) check(profile, x0s[i], y0s[i], z0s[i], x1s[i], y1s[i], z1s[i]);
+        }
+    }
+
+    // Coarsest level whose cells still split the path into a few pieces
+    private int startLevel(double length) {
+        int level = 0;
+        while (level + 1 < levels.length && cellSize * (1 << (level + 1)) * 4 <= length) {
+            level++;
+        }
+        return level;
+    }
+
+    // Arc height at ground distance s is z0 + s * tan - drop * s^2
+    private boolean clear(int level, double from, double to, double x0, double y0, double dx, double dy,
+                          double z0, double tan, double drop) {
+        double size = cellSize * (1 << level);
+        float[] heights = levels[level];
+        int columns = levelColumns[level];
+        int rows = levelRows[level];
+
+        double startX = x0 + dx * from - minX;
+        double startY = y0 + dy * from - minY;
+        int col = (int) Math.floor(startX / size);
+        int row = (int) Math.floor(startY / size);
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        // Ground distance at which the track crosses the next column / row boundary
+        double nextX = dx != 0 ? from + ((dx > 0 ? col + 1 : col) * size - startX) / dx : Double.POSITIVE_INFINITY;
+        double nextY = dy != 0 ? from + ((dy > 0 ? row + 1 : row) * size - startY) / dy : Double.POSITIVE_INFINITY;
+        double deltaX = dx != 0 ? size / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double deltaY = dy != 0 ? size / Math.abs(dy) : Double.POSITIVE_INFINITY;
+
+        double s0 = from;
+        double z = z0 + s0 * tan - drop * s0 * s0;
+        while (s0 < to) {
+            double s1 = Math.min(Math.min(nextX, nextY), to);
+            double z1 = z0 + s1 * tan - drop * s1 * s1;
+            if (col >= 0 && row >= 0 && col < columns && row < rows) {
+                // The arc is concave, so over [s0, s1] it is lowest at one of the ends
+                if (heights[row * columns + col] > Math.min(z, z1)) {
+                    if (level == 0 || !clear(level - 1, s0, s1, x0, y0, dx, dy, z0, tan, drop)) {
+                        return false;
+                    }
+                }
+            }
+            if (nextX < nextY) {
+                col += stepCol;
+                nextX += deltaX;
+            } else {
+                row += stepRow;
+                nextY += deltaY;
+            }
+            s0 = s1;
+            z = z1;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.mortarcalculator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Named event count, e.g. cache hits
+public final class Counter {
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+
+    public Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        value.incrementAndGet();
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+    public void reset() {
+        value.set(0);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.mortarcalculator;
+
+public interface ElevationSource {
+    // Elevation in metres, NaN where the source has no data
+    double getElevation(double lat, double lon);
+
+    void getElevations(double[] lats, double[] lons, int count, float[] out);
+}
@@ -0,0 +1,27 @@
+package com.example.mortarcalculator;
+
+// Flat-earth helpers for the few kilometres a mortar covers.
+public final class GeoMath {
+    static final double METERS_PER_DEGREE = 111320;
+
+    private GeoMath() {
+    }
+
+    // East/north offset in metres of (lat, lon) from the origin, written to out[0], out[1]
+    public static void toLocal(double lat, double lon, double originLat, double originLon, double[] out) {
+        out[0] = (lon - originLon) * METERS_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+        out[1] = (lat - originLat) * METERS_PER_DEGREE;
+    }
+
+    // Initial great-circle bearing in degrees, 0..360 clockwise from north
+    public static double azimuth(double fromLat, double fromLon, double toLat, double toLon) {
+        double dLon = Math.toRadians(toLon - fromLon);
+        double lat1 = Math.toRadians(fromLat);
+        double lat2 = Math.toRadians(toLat);
+
+        double y = Math.sin(dLon) * Math.cos(lat2);
+        double x = Math.cos(lat1) * Math.sin(lat2) - Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLon);
+        double azimuth = Math.toDegrees(Math.atan2(y, x));
+        return (azimuth + 360) % 360;
+    }
+}
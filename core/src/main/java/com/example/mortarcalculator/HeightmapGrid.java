@@ -0,0 +1,120 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Single-channel height field stored as packed little-endian shorts behind a small header,
+ * so a cached file can be memory-mapped and queried without decoding.
+ */
+public class HeightmapGrid implements ElevationSource {
+    private static final int MAGIC = 0x50414D48; // "HMAP" little-endian
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private final ByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final double north;
+    private final double south;
+    private final double east;
+    private final double west;
+    private final float heightScale;
+    private final float heightOffset;
+
+    public HeightmapGrid(ByteBuffer source) throws IOException {
+        buffer = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a heightmap file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported heightmap version " + buffer.getInt(4));
+        }
+        width = buffer.getInt(8);
+        height = buffer.getInt(12);
+        north = buffer.getDouble(16);
+        south = buffer.getDouble(24);
+        east = buffer.getDouble(32);
+        west = buffer.getDouble(40);
+        heightScale = buffer.getFloat(48);
+        heightOffset = buffer.getFloat(52);
+        if (width < 2 || height < 2 || buffer.limit() < HEADER_SIZE + width * height * 2) {
+            throw new IOException("Heightmap file is truncated");
+        }
+    }
+
+    public static HeightmapGrid open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return new HeightmapGrid(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void write(File file, int width, int height, short[] samples,
+                             double north, double south, double east, double west,
+                             float heightScale, float heightOffset) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + width * height * 2).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        out.putDouble(north).putDouble(south).putDouble(east).putDouble(west);
+        out.putFloat(heightScale).putFloat(heightOffset);
+        out.position(HEADER_SIZE);
+        out.asShortBuffer().put(samples, 0, width * height);
+        out.rewind();
+        File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot move " + temp + " to " + file);
+        }
+    }
+
+    // Bilinear between samples; sample (r, c) sits at the centre of its pixel.
+    @Override
+    public double getElevation(double lat, double lon) {
+        double x = (lon - west) / (east - west) * width - 0.5;
+        double y = (north - lat) / (north - south) * height - 0.5;
+        if (!(x >= -0.5 && y >= -0.5 && x < width - 0.5 && y < height - 0.5)) {
+            return Double.NaN;
+        }
+        int x0 = Math.min(Math.max((int) Math.floor(x), 0), width - 2);
+        int y0 = Math.min(Math.max((int) Math.floor(y), 0), height - 2);
+        double tx = Math.min(Math.max(x - x0, 0), 1);
+        double ty = Math.min(Math.max(y - y0, 0), 1);
+        double top = raw(y0, x0) + (raw(y0, x0 + 1) - raw(y0, x0)) * tx;
+        double bottom = raw(y0 + 1, x0) + (raw(y0 + 1, x0 + 1) - raw(y0 + 1, x0)) * tx;
+        return (top + (bottom - top) * ty) * heightScale + heightOffset;
+    }
+
+    @Override
+    public void getElevations(double[] lats, double[] lons, int count, float[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = (float) getElevation(lats[i], lons[i]);
+        }
+    }
+
+    int raw(int row, int col) {
+        return buffer.getShort(HEADER_SIZE + (row * width + col) * 2);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // North-south extent of one sample in metres
+    public double getCellSize() {
+        return (north - south) / height * GeoMath.METERS_PER_DEGREE;
+    }
+}
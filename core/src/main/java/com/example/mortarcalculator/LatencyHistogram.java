@@ -0,0 +1,105 @@
+package com.example.mortarcalculator;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of durations in nanoseconds: 8 buckets per power of two (~12% resolution),
+// all preallocated, so record() is allocation-free and safe from any thread.
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+            seen = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    // Upper edge of the bucket holding the given quantile (0..1), capped at the largest sample
+    public long quantile(double q) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(lowerBound(i + 1) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    // One line, times in microseconds
+    public String summary() {
+        return String.format(Locale.US, "%s: n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f us",
+                name, getCount(), getMean() / 1000, quantile(0.5) / 1000.0, quantile(0.9) / 1000.0,
+                quantile(0.99) / 1000.0, getMax() / 1000.0);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        return (msb - SUB_BITS + 1) * SUB_COUNT + (int) ((value >>> (msb - SUB_BITS)) & (SUB_COUNT - 1));
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int msb = bucket / SUB_COUNT + SUB_BITS - 1;
+        if (msb > 62) {
+            return Long.MAX_VALUE;
+        }
+        return (long) (SUB_COUNT + bucket % SUB_COUNT) << (msb - SUB_BITS);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.mortarcalculator;
+
+/**
+ * Local east/north projection around one firing position, with the origin's trig precomputed.
+ * EQUIRECTANGULAR matches GeoMath.toLocal (111320 m per degree); ELLIPSOIDAL is the WGS84
+ * tangent plane (ENU at zero height), accurate to centimetres over mortar ranges. Results go into
+ * caller-provided arrays; nothing is allocated per point.
+ */
+public final class LocalProjection {
+    public enum Model {
+        EQUIRECTANGULAR,
+        ELLIPSOIDAL
+    }
+
+    private static final double WGS84_A = 6378137.0;
+    private static final double WGS84_E2 = 6.69437999014e-3;
+
+    private final Model model;
+    private final double originLat;
+    private final double originLon;
+    private final double sinLat;
+    private final double cosLat;
+    private final double sinLon;
+    private final double cosLon;
+    private final double metersPerDegreeLon;
+    // Origin in earth-centred coordinates, ELLIPSOIDAL only
+    private final double originX;
+    private final double originY;
+    private final double originZ;
+
+    public LocalProjection(double originLat, double originLon, Model model) {
+        this.model = model;
+        this.originLat = originLat;
+        this.originLon = originLon;
+        double phi = Math.toRadians(originLat);
+        double lambda = Math.toRadians(originLon);
+        sinLat = Math.sin(phi);
+        cosLat = Math.cos(phi);
+        sinLon = Math.sin(lambda);
+        cosLon = Math.cos(lambda);
+        metersPerDegreeLon = GeoMath.METERS_PER_DEGREE * cosLat;
+        double n = WGS84_A / Math.sqrt(1 - WGS84_E2 * sinLat * sinLat);
+        originX = n * cosLat * cosLon;
+        originY = n * cosLat * sinLon;
+        originZ = n * (1 - WGS84_E2) * sinLat;
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public double getOriginLat() {
+        return originLat;
+    }
+
+    public double getOriginLon() {
+        return originLon;
+    }
+
+    // East and north metres into out[offset], out[offset + 1]
+    public void project(double lat, double lon, double[] out, int offset) {
+        if (model == Model.EQUIRECTANGULAR) {
+            out[offset] = (lon - originLon) * metersPerDegreeLon;
+            out[offset + 1] = (lat - originLat) * GeoMath.METERS_PER_DEGREE;
+            return;
+        }
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lon);
+        double sinPhi = Math.sin(phi);
+        double cosPhi = Math.cos(phi);
+        double n = WGS84_A / Math.sqrt(1 - WGS84_E2 * sinPhi * sinPhi);
+        double dx = n * cosPhi * Math.cos(lambda) - originX;
+        double dy = n * cosPhi * Math.sin(lambda) - originY;
+        double dz = n * (1 - WGS84_E2) * sinPhi - originZ;
+        out[offset] = -sinLon * dx + cosLon * dy;
+        out[offset + 1] = -sinLat * cosLon * dx - sinLat * sinLon * dy + cosLat * dz;
+    }
+
+    // Batch form: east[i], north[i] for each of the first count points
+    public void projectAll(double[] lats, double[] lons, int count, double[] east, double[] north) {
+        if (model == Model.EQUIRECTANGULAR) {
+            for (int i = 0; i < count; i++) {
+                east[i] = (lons[i] - originLon) * metersPerDegreeLon;
+                north[i] = (lats[i] - originLat) * GeoMath.METERS_PER_DEGREE;
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            double phi = Math.toRadians(lats[i]);
+            double lambda = Math.toRadians(lons[i]);
+            double sinPhi = Math.sin(phi);
+            double cosPhi = Math.cos(phi);
+            double n = WGS84_A / Math.sqrt(1 - WGS84_E2 * sinPhi * sinPhi);
+            double dx = n * cosPhi * Math.cos(lambda) - originX;
+            double dy = n * cosPhi * Math.sin(lambda) - originY;
+            double dz = n * (1 - WGS84_E2) * sinPhi - originZ;
+            east[i] = -sinLon * dx + cosLon * dy;
+            north[i] = -sinLat * cosLon * dx - sinLat * sinLon * dy + cosLat * dz;
+        }
+    }
+
+    // Great-circle initial bearing from the origin, as GeoMath.azimuth
+    public double azimuth(double lat, double lon) {
+        double phi = Math.toRadians(lat);
+        return azimuth(lon, Math.sin(phi), Math.cos(phi));
+    }
+
+    // Same, with the target latitude's sin/cos already known
+    public double azimuth(double lon, double sinTargetLat, double cosTargetLat) {
+        double dLon = Math.toRadians(lon - originLon);
+        double y = Math.sin(dLon) * cosTargetLat;
+        double x = cosLat * sinTargetLat - sinLat * cosTargetLat * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.mortarcalculator;
+
+import java.io.IOException;
+import java.util.Properties;
+
+// One playable map, read from assets/<id>/map.properties. Resource paths are relative to the assets root.
+public class MapDescriptor {
+    private final String id;
+    private final String name;
+    private final double north;
+    private final double south;
+    private final double east;
+    private final double west;
+    private final double centerLat;
+    private final double centerLon;
+    private final double zoom;
+    private final String image;
+    private final String thumbnail;
+    private final String tiles;
+    private final String heightmap;
+    private final float heightScale;
+    private final float heightOffset;
+    private final String dsm;
+    // Bounds and heights made up to make the map usable, not surveyed: distances and elevations
+    // on it are only illustrative
+    private final boolean placeholder;
+
+    // The same map with its elevation files dropped
+    private MapDescriptor(MapDescriptor map) {
+        id = map.id;
+        name = map.name;
+        north = map.north;
+        south = map.south;
+        east = map.east;
+        west = map.west;
+        centerLat = map.centerLat;
+        centerLon = map.centerLon;
+        zoom = map.zoom;
+        image = map.image;
+        thumbnail = map.thumbnail;
+        tiles = map.tiles;
+        heightmap = null;
+        heightScale = map.heightScale;
+        heightOffset = map.heightOffset;
+        dsm = null;
+        placeholder = map.placeholder;
+    }
+
+    private MapDescriptor(String id, Properties properties) throws IOException {
+        this.id = id;
+        name = properties.getProperty("name", id).trim();
+        north = number(properties, "north");
+        south = number(properties, "south");
+        east = number(properties, "east");
+        west = number(properties, "west");
+        centerLat = optionalNumber(properties, "centerLat", (north + south) / 2);
+        centerLon = optionalNumber(properties, "centerLon", (east + west) / 2);
+        zoom = optionalNumber(properties, "zoom", 12.0);
+        image = path(properties, "image");
+        thumbnail = path(properties, "thumbnail");
+        tiles = path(properties, "tiles");
+        heightmap = path(properties, "heightmap");
+        heightScale = (float) optionalNumber(properties, "heightScale", 1.0);
+        heightOffset = (float) optionalNumber(properties, "heightOffset", 0.0);
+        dsm = path(properties, "dsm");
+        placeholder = Boolean.parseBoolean(properties.getProperty("placeholder", "false").trim());
+        if (!(north > south && east > west)) {
+            throw new IOException("Map " + id + " has empty bounds");
+        }
+        if (image == null && tiles == null) {
+            throw new IOException("Map " + id + " has neither image nor tiles");
+        }
+    }
+
+    public static MapDescriptor parse(String id, Properties properties) throws IOException {
+        return new MapDescriptor(id, properties);
+    }
+
+    // For a map whose heightmap or DSM is not shipped: still shown, with every height unknown
+    public MapDescriptor withoutElevation() {
+        return new MapDescriptor(this);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    public double getSouth() {
+        return south;
+    }
+
+    public double getEast() {
+        return east;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public double getCenterLat() {
+        return centerLat;
+    }
+
+    public double getCenterLon() {
+        return centerLon;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public String getThumbnail() {
+        return thumbnail;
+    }
+
+    public String getTiles() {
+        return tiles;
+    }
+
+    public String getHeightmap() {
+        return heightmap;
+    }
+
+    public float getHeightScale() {
+        return heightScale;
+    }
+
+    public float getHeightOffset() {
+        return heightOffset;
+    }
+
+    public String getDsm() {
+        return dsm;
+    }
+
+    public boolean isPlaceholder() {
+        return placeholder;
+    }
+
+    public boolean hasElevation() {
+        return heightmap != null || dsm != null;
+    }
+
+    // Shown as-is in the map picker
+    @Override
+    public String toString() {
+        String shown = placeholder ? name + " (placeholder)" : name;
+        return hasElevation() ? shown : shown + " (no elevation)";
+    }
+
+    private static String path(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static double number(Properties properties, String key) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IOException("map.properties is missing " + key);
+        }
+        return parse(key, value);
+    }
+
+    private static double optionalNumber(Properties properties, String key, double fallback) throws IOException {
+        String value = properties.getProperty(key);
+        return value == null ? fallback : parse(key, value);
+    }
+
+    private static double parse(String key, String value) throws IOException {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad " + key + " in map.properties: " + value, e);
+        }
+    }
+}
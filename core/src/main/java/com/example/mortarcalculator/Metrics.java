@@ -0,0 +1,53 @@
+package com.example.mortarcalculator;
+
+// Process-wide hot-path metrics. Recording never allocates; summary() is for on-demand dumps.
+public final class Metrics {
+    public static final LatencyHistogram TAP_TO_RESULT = new LatencyHistogram("tap_to_result");
+    public static final LatencyHistogram ELEVATION_LOOKUP = new LatencyHistogram("elevation_lookup");
+    public static final LatencyHistogram OVERLAY_DRAW = new LatencyHistogram("overlay_draw");
+    public static final LatencyHistogram TILE_DECODE = new LatencyHistogram("tile_decode");
+    public static final LatencyHistogram REGION_DECODE = new LatencyHistogram("region_decode");
+    public static final LatencyHistogram SOLUTION_MATRIX = new LatencyHistogram("solution_matrix");
+    public static final LatencyHistogram AIM_TO_FRAME = new LatencyHistogram("aim_input_to_frame");
+    public static final LatencyHistogram POSITIONS_DRAW = new LatencyHistogram("positions_draw");
+    public static final LatencyHistogram REACH_MASK = new LatencyHistogram("reach_mask");
+    public static final LatencyHistogram TILE_SYNTHESIS = new LatencyHistogram("tile_synthesis");
+
+    public static final Counter TILE_CACHE_HIT = new Counter("tile_cache_hit");
+    public static final Counter TILE_CACHE_MISS = new Counter("tile_cache_miss");
+    public static final Counter REGION_CACHE_HIT = new Counter("region_cache_hit");
+    public static final Counter REGION_CACHE_MISS = new Counter("region_cache_miss");
+    public static final Counter SYNTHESIZED_MEMORY_HIT = new Counter("synthesized_memory_hit");
+    public static final Counter SYNTHESIZED_DISK_HIT = new Counter("synthesized_disk_hit");
+    public static final Counter DEBUG_LOG = new Counter("debug_log");
+
+    private static final LatencyHistogram[] HISTOGRAMS = {
+            TAP_TO_RESULT, ELEVATION_LOOKUP, OVERLAY_DRAW, TILE_DECODE, REGION_DECODE, SOLUTION_MATRIX,
+            AIM_TO_FRAME, POSITIONS_DRAW, REACH_MASK, TILE_SYNTHESIS};
+    private static final Counter[] COUNTERS = {
+            TILE_CACHE_HIT, TILE_CACHE_MISS, REGION_CACHE_HIT, REGION_CACHE_MISS,
+            SYNTHESIZED_MEMORY_HIT, SYNTHESIZED_DISK_HIT, DEBUG_LOG};
+
+    private Metrics() {
+    }
+
+    public static String summary() {
+        StringBuilder out = new StringBuilder();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            out.append(histogram.summary()).append('\n');
+        }
+        for (Counter counter : COUNTERS) {
+            out.append(counter.getName()).append(": ").append(counter.get()).append('\n');
+        }
+        return out.toString();
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        for (Counter counter : COUNTERS) {
+            counter.reset();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.mortarcalculator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Firing positions, targets and camera of one map, packed into a little-endian byte array small
+ * enough for a saved-instance-state Bundle (about 32 bytes per mortar, 24 per target). Elevations
+ * travel with the points, so restoring never touches the elevation source.
+ */
+public final class PlacementSnapshot {
+    private static final int MAGIC = 0x53434c50; // "PLCS" little-endian
+    private static final int VERSION = 1;
+
+    private final String mapId;
+    private final double zoom;
+    private final double centerLat;
+    private final double centerLon;
+    private final long nextMortarId;
+    private final int selected;
+    private final int mortarCount;
+    private final long[] mortarIds;
+    private final double[] mortarLats;
+    private final double[] mortarLons;
+    private final double[] mortarHeights;
+    private final int targetCount;
+    private final double[] targetLats;
+    private final double[] targetLons;
+    private final double[] targetHeights;
+
+    // Arrays are kept, not copied; selected is a mortar slot or -1
+    public PlacementSnapshot(String mapId, double zoom, double centerLat, double centerLon, long nextMortarId, int selected,
+                             long[] mortarIds, double[] mortarLats, double[] mortarLons, double[] mortarHeights, int mortarCount,
+                             double[] targetLats, double[] targetLons, double[] targetHeights, int targetCount) {
+        this.mapId = mapId;
+        this.zoom = zoom;
+        this.centerLat = centerLat;
+        this.centerLon = centerLon;
+        this.nextMortarId = nextMortarId;
+        this.selected = selected;
+        this.mortarIds = mortarIds;
+        this.mortarLats = mortarLats;
+        this.mortarLons = mortarLons;
+        this.mortarHeights = mortarHeights;
+        this.mortarCount = mortarCount;
+        this.targetLats = targetLats;
+        this.targetLons = targetLons;
+        this.targetHeights = targetHeights;
+        this.targetCount = targetCount;
+    }
+
+    public String getMapId() {
+        return mapId;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    public double getCenterLat() {
+        return centerLat;
+    }
+
+    public double getCenterLon() {
+        return centerLon;
+    }
+
+    public long getNextMortarId() {
+        return nextMortarId;
+    }
+
+    public int getSelected() {
+        return selected;
+    }
+
+    public int getMortarCount() {
+        return mortarCount;
+    }
+
+    public long getMortarId(int slot) {
+        return mortarIds[slot];
+    }
+
+    public double[] getMortarLats() {
+        return mortarLats;
+    }
+
+    public double[] getMortarLons() {
+        return mortarLons;
+    }
+
+    public double getMortarHeight(int slot) {
+        return mortarHeights[slot];
+    }
+
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    public double[] getTargetLats() {
+        return targetLats;
+    }
+
+    public double[] getTargetLons() {
+        return targetLons;
+    }
+
+    public double getTargetHeight(int slot) {
+        return targetHeights[slot];
+    }
+
+    public byte[] toBytes() {
+        byte[] id = mapId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(64 + id.length + mortarCount * 32 + targetCount * 24)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(mortarCount).putInt(targetCount);
+        out.putDouble(zoom).putDouble(centerLat).putDouble(centerLon).putLong(nextMortarId);
+        out.putInt(selected).putInt(id.length).put(id);
+        for (int i = 0; i < mortarCount; i++) {
+            out.putLong(mortarIds[i]).putDouble(mortarLats[i]).putDouble(mortarLons[i]).putDouble(mortarHeights[i]);
+        }
+        for (int i = 0; i < targetCount; i++) {
+            out.putDouble(targetLats[i]).putDouble(targetLons[i]).putDouble(targetHeights[i]);
+        }
+        return out.array();
+    }
+
+    public static PlacementSnapshot fromBytes(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < 64 || in.getInt() != MAGIC) {
+            throw new IOException("Not a placement snapshot");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported placement snapshot version " + version);
+        }
+        int mortarCount = in.getInt();
+        int targetCount = in.getInt();
+        double zoom = in.getDouble();
+        double centerLat = in.getDouble();
+        double centerLon = in.getDouble();
+        long nextMortarId = in.getLong();
+        int selected = in.getInt();
+        int idLength = in.getInt();
+        if (mortarCount < 0 || targetCount < 0 || idLength < 0
+                || bytes.length < 64L + idLength + mortarCount * 32L + targetCount * 24L) {
+            throw new IOException("Placement snapshot is truncated");
+        }
+        byte[] id = new byte[idLength];
+        in.get(id);
+        long[] mortarIds = new long[mortarCount];
+        double[] mortarLats = new double[mortarCount];
+        double[] mortarLons = new double[mortarCount];
+        double[] mortarHeights = new double[mortarCount];
+        for (int i = 0; i < mortarCount; i++) {
+            mortarIds[i] = in.getLong();
+            mortarLats[i] = in.getDouble();
+            mortarLons[i] = in.getDouble();
+            mortarHeights[i] = in.getDouble();
+        }
+        double[] targetLats = new double[targetCount];
+        double[] targetLons = new double[targetCount];
+        double[] targetHeights = new double[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            targetLats[i] = in.getDouble();
+            targetLons[i] = in.getDouble();
+            targetHeights[i] = in.getDouble();
+        }
+        return new PlacementSnapshot(new String(id, StandardCharsets.UTF_8), zoom, centerLat, centerLon, nextMortarId,
+                selected < mortarCount ? selected : -1, mortarIds, mortarLats, mortarLons, mortarHeights, mortarCount,
+                targetLats, targetLons, targetHeights, targetCount);
+    }
+}
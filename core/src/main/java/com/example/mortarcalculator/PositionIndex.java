@@ -0,0 +1,272 @@
+package com.example.mortarcalculator;
+
+import java.util.Arrays;
+
+// Uniform grid over firing positions in metres east/north of a fixed origin (equirectangular,
+// like GeoMath.toLocal). Slots follow insertion order and shift down on remove, like an ArrayList,
+// so callers can keep a parallel list. Placing or removing rebuilds the grid in O(n); queries
+// only visit the cells overlapping the search circle and never allocate.
+public final class PositionIndex {
+    private static final double MIN_CELL_SIZE = 100;
+    // About one position per cell, capped so a map-wide spread does not explode the cell count
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private final double originLat;
+    private final double originLon;
+    private final double metersPerDegreeLon;
+
+    private int size;
+    private double[] lats = new double[16];
+    private double[] lons = new double[16];
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+
+    private double gridMinX;
+    private double gridMinY;
+    private double cellSize = MIN_CELL_SIZE;
+    private int columns;
+    private int rows;
+    // Slots of cell c are cellSlots[cellStart[c] .. cellStart[c + 1])
+    private int[] cellStart = new int[1];
+    private int[] cellSlots = new int[16];
+    // Scratch for nearest(); the index is used from one thread at a time
+    private int best;
+    private double bestDistanceSq;
+
+    public PositionIndex(double originLat, double originLon) {
+        this.originLat = originLat;
+        this.originLon = originLon;
+        metersPerDegreeLon = GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+    }
+
+    public double getOriginLat() {
+        return originLat;
+    }
+
+    public double getOriginLon() {
+        return originLon;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int slot) {
+        return lats[slot];
+    }
+
+    public double getLongitude(int slot) {
+        return lons[slot];
+    }
+
+    public double getX(int slot) {
+        return xs[slot];
+    }
+
+    public double getY(int slot) {
+        return ys[slot];
+    }
+
+    public double toX(double lon) {
+        return (lon - originLon) * metersPerDegreeLon;
+    }
+
+    public double toY(double lat) {
+        return (lat - originLat) * GeoMath.METERS_PER_DEGREE;
+    }
+
+    // Returns the new slot, always size() - 1
+    public int add(double lat, double lon) {
+        if (size == xs.length) {
+            int capacity = size * 2;
+            lats = Arrays.copyOf(lats, capacity);
+            lons = Arrays.copyOf(lons, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        lats[size] = lat;
+        lons[size] = lon;
+        xs[size] = toX(lon);
+        ys[size] = toY(lat);
+        size++;
+        rebuild();
+        return size - 1;
+    }
+
+    // Appends count positions with a single rebuild
+    public void addAll(double[] lats, double[] lons, int count) {
+        if (size + count > xs.length) {
+            int capacity = Math.max(xs.length * 2, size + count);
+            this.lats = Arrays.copyOf(this.lats, capacity);
+            this.lons = Arrays.copyOf(this.lons, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        for (int i = 0; i < count; i++) {
+            this.lats[size] = lats[i];
+            this.lons[size] = lons[i];
+            xs[size] = toX(lons[i]);
+            ys[size] = toY(lats[i]);
+            size++;
+        }
+        rebuild();
+    }
+
+    public void remove(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("slot " + slot + ", size " + size);
+        }
+        int tail = size - slot - 1;
+        System.arraycopy(lats, slot + 1, lats, slot, tail);
+        System.arraycopy(lons, slot + 1, lons, slot, tail);
+        System.arraycopy(xs, slot + 1, xs, slot, tail);
+        System.arraycopy(ys, slot + 1, ys, slot, tail);
+        size--;
+        rebuild();
+    }
+
+    public void clear() {
+        size = 0;
+        rebuild();
+    }
+
+    // Closest slot within radius metres of (x, y), or -1. Searches rings of cells outward from the
+    // query and stops once the next ring cannot hold anything closer.
+    public int nearest(double x, double y, double radius) {
+        if (size == 0) {
+            return -1;
+        }
+        int centerColumn = (int) Math.floor((x - gridMinX) / cellSize);
+        int centerRow = (int) Math.floor((y - gridMinY) / cellSize);
+        int lastRing = Math.max(Math.max(Math.abs(centerColumn), Math.abs(centerColumn - columns + 1)),
+                Math.max(Math.abs(centerRow), Math.abs(centerRow - rows + 1)));
+        lastRing = (int) Math.min(lastRing, Math.ceil(radius / cellSize) + 1);
+        best = -1;
+        bestDistanceSq = radius * radius;
+        for (int ring = 0; ring <= lastRing; ring++) {
+            double gap = (ring - 1) * cellSize;
+            if (best >= 0 && gap > 0 && gap * gap > bestDistanceSq) {
+                break;
+            }
+            for (int r = Math.max(centerRow - ring, 0); r <= Math.min(centerRow + ring, rows - 1); r++) {
+                boolean edgeRow = r == centerRow - ring || r == centerRow + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = centerColumn - ring; c <= centerColumn + ring; c += step) {
+                    if (c >= 0 && c < columns) {
+                        visitNearest(r * columns + c, x, y);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private void visitNearest(int cell, double x, double y) {
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int slot = cellSlots[i];
+            double dx = xs[slot] - x;
+            double dy = ys[slot] - y;
+            double distanceSq = dx * dx + dy * dy;
+            // Ties go to the earlier slot, matching a front-to-back linear scan
+            if (distanceSq < bestDistanceSq || (distanceSq == bestDistanceSq && (best < 0 || slot < best))) {
+                bestDistanceSq = distanceSq;
+                best = slot;
+            }
+        }
+    }
+
+    // Writes the slots within radius metres of (x, y) to out, in no particular order, and returns
+    // how many there are. Stops early if out fills up.
+    public int withinRange(double x, double y, double radius, int[] out) {
+        if (size == 0) {
+            return 0;
+        }
+        int count = 0;
+        double radiusSq = radius * radius;
+        int minColumn = column(x - radius);
+        int maxColumn = column(x + radius);
+        int minRow = row(y - radius);
+        int maxRow = row(y + radius);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minColumn; c <= maxColumn; c++) {
+                int cell = r * columns + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int slot = cellSlots[i];
+                    double dx = xs[slot] - x;
+                    double dy = ys[slot] - y;
+                    if (dx * dx + dy * dy <= radiusSq) {
+                        if (count == out.length) {
+                            return count;
+                        }
+                        out[count++] = slot;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private int column(double x) {
+        return clamp((int) Math.floor((x - gridMinX) / cellSize), columns);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - gridMinY) / cellSize), rows);
+    }
+
+    private static int clamp(int value, int count) {
+        return Math.min(Math.max(value, 0), count - 1);
+    }
+
+    // Counting sort of the slots by cell over the current bounding box
+    private void rebuild() {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (size == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        int side = Math.min((int) Math.ceil(Math.sqrt(size)), MAX_CELLS_PER_SIDE);
+        cellSize = Math.max(MIN_CELL_SIZE, extent / Math.max(side, 1));
+        gridMinX = minX;
+        gridMinY = minY;
+        columns = (int) ((maxX - minX) / cellSize) + 1;
+        rows = (int) ((maxY - minY) / cellSize) + 1;
+
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        if (cellSlots.length < size) {
+            cellSlots = new int[xs.length];
+        }
+        for (int i = 0; i < size; i++) {
+            cellStart[cellOf(i) + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        // cellStart[c] is used as the fill cursor, then shifted back
+        for (int i = 0; i < size; i++) {
+            cellSlots[cellStart[cellOf(i)]++] = i;
+        }
+        for (int c = cells; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    private int cellOf(int slot) {
+        return row(ys[slot]) * columns + column(xs[slot]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.mortarcalculator;
+
+/**
+ * Positions in web-Mercator pixels at one zoom level, relative to an anchor. Built once per zoom
+ * after the positions change; a frame then only places the anchor on screen and, between integer
+ * zooms, scales around it. Points are interleaved x, y as Canvas.drawPoints takes them.
+ */
+public final class PositionLayout {
+    private static final double EARTH_RADIUS = 6378137.0;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final double mapSize;
+    private float[] points = new float[0];
+    private float[] ringRadii = new float[0];
+    private int count;
+
+    // mapSize: width of the whole world in pixels at this zoom
+    public PositionLayout(double mapSize) {
+        this.mapSize = mapSize;
+    }
+
+    public static double worldX(double lon, double mapSize) {
+        return (lon + 180) / 360 * mapSize;
+    }
+
+    public static double worldY(double lat, double mapSize) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat))));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * mapSize;
+    }
+
+    // Mercator scale at lat: ground metres to pixels
+    public static double pixelsPerMeter(double lat, double mapSize) {
+        return mapSize / (2 * Math.PI * EARTH_RADIUS * Math.cos(Math.toRadians(lat)));
+    }
+
+    // Lays out every slot of positions around (anchorLat, anchorLon); ringMeters 0 skips the rings
+    public void build(PositionIndex positions, double anchorLat, double anchorLon, double ringMeters) {
+        count = positions.size();
+        if (points.length < count * 2) {
+            points = new float[count * 2];
+            ringRadii = new float[count];
+        }
+        double anchorX = worldX(anchorLon, mapSize);
+        double anchorY = worldY(anchorLat, mapSize);
+        for (int i = 0; i < count; i++) {
+            double lat = positions.getLatitude(i);
+            points[i * 2] = (float) (worldX(positions.getLongitude(i), mapSize) - anchorX);
+            points[i * 2 + 1] = (float) (worldY(lat, mapSize) - anchorY);
+            ringRadii[i] = (float) (ringMeters * pixelsPerMeter(lat, mapSize));
+        }
+    }
+
+    public double getMapSize() {
+        return mapSize;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public float[] getPoints() {
+        return points;
+    }
+
+    public float getX(int slot) {
+        return points[slot * 2];
+    }
+
+    public float getY(int slot) {
+        return points[slot * 2 + 1];
+    }
+
+    public float getRingRadius(int slot) {
+        return ringRadii[slot];
+    }
+}
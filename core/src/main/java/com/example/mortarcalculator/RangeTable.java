@@ -0,0 +1,194 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Precomputed high-arc solutions over a distance x height-difference grid for one weapon profile.
+ * Queries interpolate bilinearly between grid points. Cells where that would be off by more than
+ * ANGLE_TOLERANCE / TIME_TOLERANCE (near the edge of the reachable region the angle changes too
+ * steeply) are flagged at build time and answered with the closed form instead.
+ * Can be written to a little-endian file and loaded back instead of rebuilding.
+ */
+public class RangeTable {
+    private static final int MAGIC = 0x42415452; // "RTAB" little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    static final double ANGLE_TOLERANCE = 0.01;
+    static final double TIME_TOLERANCE = 0.01;
+    // Interior probes per cell side when checking the interpolation error. The worst error in a cell
+    // can fall between probes, so they are held to a fraction of the tolerance.
+    private static final int PROBES = 4;
+    private static final double PROBE_MARGIN = 0.5;
+
+    private final double velocity;
+    private final double gravity;
+    private final double distanceStep;
+    private final double minHeight;
+    private final double heightStep;
+    private final int columns;
+    private final int rows;
+    // Row-major by height difference, then distance; NaN where out of reach
+    private final float[] angles;
+    private final float[] times;
+    // Per cell (row-major, columns - 1 wide): 1 where queries use the closed form
+    private final byte[] exactCells;
+
+    private RangeTable(double velocity, double gravity, double distanceStep, double minHeight, double heightStep,
+                       int columns, int rows, float[] angles, float[] times, byte[] exactCells) {
+        this.velocity = velocity;
+        this.gravity = gravity;
+        this.distanceStep = distanceStep;
+        this.minHeight = minHeight;
+        this.heightStep = heightStep;
+        this.columns = columns;
+        this.rows = rows;
+        this.angles = angles;
+        this.times = times;
+        this.exactCells = exactCells;
+    }
+
+    // Covers +-maxHeightDiff metres, clipped to what the profile can reach upwards, and out to the
+    // reach at the deepest drop, which is past the flat-ground maximum range
+    public static RangeTable build(WeaponProfile profile, double maxHeightDiff, double distanceStep, double heightStep) {
+        double minHeight = -maxHeightDiff;
+        double maxHeight = Math.min(maxHeightDiff, profile.getMaxHeight());
+        int columns = (int) Math.ceil(ReachMask.reach(profile, maxHeightDiff) / distanceStep) + 1;
+        int rows = (int) Math.ceil((maxHeight - minHeight) / heightStep) + 1;
+        float[] angles = new float[columns * rows];
+        float[] times = new float[columns * rows];
+        Calculator.MortarResult result = new Calculator.MortarResult();
+        for (int row = 0; row < rows; row++) {
+            double heightDiff = minHeight + row * heightStep;
+            for (int column = 0; column < columns; column++) {
+                Calculator.solve(profile.getVelocity(), profile.getGravity(), column * distanceStep, heightDiff, result);
+                angles[row * columns + column] = (float) result.angle;
+                times[row * columns + column] = (float) result.time;
+            }
+        }
+        RangeTable table = new RangeTable(profile.getVelocity(), profile.getGravity(), distanceStep, minHeight,
+                heightStep, columns, rows, angles, times, new byte[(columns - 1) * (rows - 1)]);
+        table.flagSteepCells();
+        return table;
+    }
+
+    private void flagSteepCells() {
+        Calculator.MortarResult interpolated = new Calculator.MortarResult();
+        Calculator.MortarResult exact = new Calculator.MortarResult();
+        for (int row = 0; row < rows - 1; row++) {
+            for (int column = 0; column < columns - 1; column++) {
+                int cell = row * (columns - 1) + column;
+                for (int p = 0; p < PROBES * PROBES && exactCells[cell] == 0; p++) {
+                    double x = column + (p % PROBES + 0.5) / PROBES;
+                    double y = row + (p / PROBES + 0.5) / PROBES;
+                    double distance = x * distanceStep;
+                    double heightDiff = minHeight + y * heightStep;
+                    Calculator.solve(velocity, gravity, distance, heightDiff, exact);
+                    if (!interpolate(x, y, interpolated)
+                            || Math.abs(interpolated.angle - exact.angle) > ANGLE_TOLERANCE * PROBE_MARGIN
+                            || Math.abs(interpolated.time - exact.time) > TIME_TOLERANCE * PROBE_MARGIN) {
+                        exactCells[cell] = 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean matches(WeaponProfile profile) {
+        return velocity == profile.getVelocity() && gravity == profile.getGravity();
+    }
+
+    // Fills out and returns whether the target is reachable. Allocation-free.
+    public boolean solve(double distance, double heightDiff, Calculator.MortarResult out) {
+        double x = distance / distanceStep;
+        double y = (heightDiff - minHeight) / heightStep;
+        if (x >= 0 && y >= 0 && x < columns - 1 && y < rows - 1
+                && exactCells[(int) y * (columns - 1) + (int) x] == 0 && interpolate(x, y, out)) {
+            return true;
+        }
+        Calculator.solve(velocity, gravity, distance, heightDiff, out);
+        return out.isReachable();
+    }
+
+    // Bilinear at grid coordinates inside the table; false if any corner is out of reach
+    private boolean interpolate(double x, double y, Calculator.MortarResult out) {
+        int x0 = (int) x;
+        int y0 = (int) y;
+        int i = y0 * columns + x0;
+        float a00 = angles[i];
+        float a01 = angles[i + 1];
+        float a10 = angles[i + columns];
+        float a11 = angles[i + columns + 1];
+        if (Float.isNaN(a00) || Float.isNaN(a01) || Float.isNaN(a10) || Float.isNaN(a11)) {
+            return false;
+        }
+        double tx = x - x0;
+        double ty = y - y0;
+        double top = a00 + (a01 - a00) * tx;
+        double bottom = a10 + (a11 - a10) * tx;
+        out.angle = top + (bottom - top) * ty;
+        double timeTop = times[i] + (times[i + 1] - times[i]) * tx;
+        double timeBottom = times[i + columns] + (times[i + columns + 1] - times[i + columns]) * tx;
+        out.time = timeTop + (timeBottom - timeTop) * ty;
+        out.velocity = velocity;
+        return true;
+    }
+
+    public static RangeTable read(File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a range table file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported range table version " + buffer.getInt(4));
+        }
+        int columns = buffer.getInt(8);
+        int rows = buffer.getInt(12);
+        int cells = (columns - 1) * (rows - 1);
+        if (columns < 2 || rows < 2 || buffer.limit() < HEADER_SIZE + (long) columns * rows * 8 + cells) {
+            throw new IOException("Range table file is truncated");
+        }
+        float[] angles = new float[columns * rows];
+        float[] times = new float[columns * rows];
+        buffer.position(HEADER_SIZE);
+        buffer.asFloatBuffer().get(angles);
+        buffer.position(HEADER_SIZE + angles.length * 4);
+        buffer.asFloatBuffer().get(times);
+        byte[] exactCells = new byte[cells];
+        buffer.position(HEADER_SIZE + angles.length * 8);
+        buffer.get(exactCells);
+        return new RangeTable(buffer.getDouble(16), buffer.getDouble(24), buffer.getDouble(32),
+                buffer.getDouble(40), buffer.getDouble(48), columns, rows, angles, times, exactCells);
+    }
+
+    public void write(File file) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + angles.length * 8 + exactCells.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(columns).putInt(rows);
+        out.putDouble(velocity).putDouble(gravity).putDouble(distanceStep).putDouble(minHeight).putDouble(heightStep);
+        out.position(HEADER_SIZE);
+        out.asFloatBuffer().put(angles).put(times);
+        out.position(HEADER_SIZE + angles.length * 8);
+        out.put(exactCells);
+        out.rewind();
+        File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot move " + temp + " to " + file);
+        }
+    }
+}
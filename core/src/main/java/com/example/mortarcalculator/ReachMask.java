@@ -0,0 +1,216 @@
+package com.example.mortarcalculator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Where one firing position can hit, on a lat/lon-aligned grid of square cells around it. Each
+ * cell is solved against the terrain height at its centre and holds UNREACHABLE or the elevation
+ * angle quantised to 1..255 over 0..90 degrees. Tiles of the grid are computed in parallel.
+ */
+public final class ReachMask {
+    public static final int UNREACHABLE = 0;
+    // Cells per side of one fork-join tile
+    private static final int TILE = 32;
+
+    private final double lat;
+    private final double lon;
+    private final double height;
+    private final double radius;
+    private final int size;
+    private final double north;
+    private final double west;
+    private final double cellLat;
+    private final double cellLon;
+    private final LocalProjection projection;
+    private final byte[] cells;
+
+    private int reachableCount;
+    private double minAngle = Double.NaN;
+    private double maxAngle = Double.NaN;
+
+    // radius in metres, see reach(); cellSize in metres, normally the elevation source's resolution
+    public ReachMask(double lat, double lon, double height, double radius, double cellSize,
+                     LocalProjection.Model model) {
+        this.lat = lat;
+        this.lon = lon;
+        this.height = height;
+        this.radius = radius;
+        int half = (int) Math.ceil(radius / cellSize);
+        size = half * 2 + 1;
+        cellLat = cellSize / GeoMath.METERS_PER_DEGREE;
+        cellLon = cellSize / (GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+        north = lat + (half + 0.5) * cellLat;
+        west = lon - (half + 0.5) * cellLon;
+        projection = new LocalProjection(lat, lon, model);
+        cells = new byte[size * size];
+    }
+
+    // Horizontal reach of profile at a target drop metres below the weapon
+    public static double reach(WeaponProfile profile, double drop) {
+        double v = profile.getVelocity();
+        double g = profile.getGravity();
+        return v / g * Math.sqrt(v * v + 2 * g * Math.max(drop, 0));
+    }
+
+    // table may be null to use the closed form throughout
+    public void compute(ForkJoinPool pool, WeaponProfile profile, RangeTable table, ElevationSource source) {
+        int tilesAcross = (size + TILE - 1) / TILE;
+        int tiles = tilesAcross * tilesAcross;
+        double[] tileMin = new double[tiles];
+        double[] tileMax = new double[tiles];
+        int[] tileReachable = new int[tiles];
+        pool.invoke(new Block(profile, table, source, tilesAcross, tileMin, tileMax, tileReachable, 0, tiles));
+
+        reachableCount = 0;
+        minAngle = Double.NaN;
+        maxAngle = Double.NaN;
+        for (int t = 0; t < tiles; t++) {
+            if (tileReachable[t] == 0) {
+                continue;
+            }
+            reachableCount += tileReachable[t];
+            minAngle = Double.isNaN(minAngle) ? tileMin[t] : Math.min(minAngle, tileMin[t]);
+            maxAngle = Double.isNaN(maxAngle) ? tileMax[t] : Math.max(maxAngle, tileMax[t]);
+        }
+    }
+
+    private void computeTile(WeaponProfile profile, RangeTable table, ElevationSource source, int tilesAcross,
+                             double[] tileMin, double[] tileMax, int[] tileReachable, int tile) {
+        int rowStart = tile / tilesAcross * TILE;
+        int colStart = tile % tilesAcross * TILE;
+        int rowEnd = Math.min(rowStart + TILE, size);
+        int colEnd = Math.min(colStart + TILE, size);
+        Calculator.MortarResult result = new Calculator.MortarResult();
+        double[] local = new double[2];
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        int reachable = 0;
+        for (int row = rowStart; row < rowEnd; row++) {
+            double cellCenterLat = north - (row + 0.5) * cellLat;
+            for (int col = colStart; col < colEnd; col++) {
+                double cellCenterLon = west + (col + 0.5) * cellLon;
+                projection.project(cellCenterLat, cellCenterLon, local, 0);
+                double distance = Math.sqrt(local[0] * local[0] + local[1] * local[1]);
+                byte value = UNREACHABLE;
+                if (distance <= radius) {
+                    double elevation = source.getElevation(cellCenterLat, cellCenterLon);
+                    if (!Double.isNaN(elevation)) {
+                        boolean hit = table != null
+                                ? table.solve(distance, elevation - height, result)
+                                : solveClosedForm(profile, distance, elevation - height, result);
+                        if (hit) {
+                            value = (byte) quantize(result.angle);
+                            min = Math.min(min, result.angle);
+                            max = Math.max(max, result.angle);
+                            reachable++;
+                        }
+                    }
+                }
+                cells[row * size + col] = value;
+            }
+        }
+        tileMin[tile] = min;
+        tileMax[tile] = max;
+        tileReachable[tile] = reachable;
+    }
+
+    private static boolean solveClosedForm(WeaponProfile profile, double distance, double heightDiff,
+                                           Calculator.MortarResult result) {
+        Calculator.solve(profile.getVelocity(), profile.getGravity(), distance, heightDiff, result);
+        return result.isReachable();
+    }
+
+    static int quantize(double angle) {
+        return 1 + (int) Math.round(Math.min(Math.max(angle, 0), 90) / 90 * 254);
+    }
+
+    // Inverse of quantize(): angle in degrees at the centre of the step, NaN for UNREACHABLE
+    public static double toAngle(int value) {
+        return value == UNREACHABLE ? Double.NaN : (value - 1) * 90.0 / 254;
+    }
+
+    private final class Block extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final WeaponProfile profile;
+        private final RangeTable table;
+        private final ElevationSource source;
+        private final int tilesAcross;
+        private final double[] tileMin;
+        private final double[] tileMax;
+        private final int[] tileReachable;
+        private final int from;
+        private final int to;
+
+        Block(WeaponProfile profile, RangeTable table, ElevationSource source, int tilesAcross,
+              double[] tileMin, double[] tileMax, int[] tileReachable, int from, int to) {
+            this.profile = profile;
+            this.table = table;
+            this.source = source;
+            this.tilesAcross = tilesAcross;
+            this.tileMin = tileMin;
+            this.tileMax = tileMax;
+            this.tileReachable = tileReachable;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                computeTile(profile, table, source, tilesAcross, tileMin, tileMax, tileReachable, from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Block(profile, table, source, tilesAcross, tileMin, tileMax, tileReachable, from, middle),
+                    new Block(profile, table, source, tilesAcross, tileMin, tileMax, tileReachable, middle, to));
+        }
+    }
+
+    public double getLatitude() {
+        return lat;
+    }
+
+    public double getLongitude() {
+        return lon;
+    }
+
+    // Cells per side; the grid is size x size, row 0 at the north edge
+    public int getSize() {
+        return size;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    public double getSouth() {
+        return north - size * cellLat;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public double getEast() {
+        return west + size * cellLon;
+    }
+
+    public int getCell(int row, int col) {
+        return cells[row * size + col] & 0xFF;
+    }
+
+    public int getReachableCount() {
+        return reachableCount;
+    }
+
+    // Lowest and highest elevation angle over the reachable cells, NaN when none is reachable
+    public double getMinAngle() {
+        return minAngle;
+    }
+
+    public double getMaxAngle() {
+        return maxAngle;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.mortarcalculator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Firing solutions for every mortar/target pair, laid out as flat arrays indexed
+ * mortar * targetCount + target. Inputs are copied at construction, so a matrix can be built from
+ * a UI snapshot, computed on any thread and then handed back whole. A NaN height is unknown: pairs
+ * with one are solved as if both ends were level and are not checked against the terrain.
+ */
+public final class SolutionMatrix {
+    // Pairs per fork-join leaf: small enough to spread dozens x dozens over all cores
+    private static final int LEAF_PAIRS = 64;
+
+    private final int mortarCount;
+    private final int targetCount;
+    private final double[] mortarHeights;
+    private final double[] targetLats;
+    private final double[] targetLons;
+    private final double[] targetHeights;
+    // One projection per mortar; sin/cos of each target latitude, shared by every mortar
+    private final LocalProjection[] projections;
+    private final double[] targetSin;
+    private final double[] targetCos;
+
+    private final float[] azimuths;
+    private final float[] angles;
+    private final float[] distances;
+    private final float[] times;
+    // ClearanceChecker results, CLEAR throughout when computed without a checker
+    private final byte[] clearances;
+    private boolean terrainChecked;
+
+    public SolutionMatrix(double[] mortarLats, double[] mortarLons, double[] mortarHeights, int mortarCount,
+                          double[] targetLats, double[] targetLons, double[] targetHeights, int targetCount) {
+        this(mortarLats, mortarLons, mortarHeights, mortarCount, targetLats, targetLons, targetHeights, targetCount,
+                LocalProjection.Model.EQUIRECTANGULAR);
+    }
+
+    public SolutionMatrix(double[] mortarLats, double[] mortarLons, double[] mortarHeights, int mortarCount,
+                          double[] targetLats, double[] targetLons, double[] targetHeights, int targetCount,
+                          LocalProjection.Model model) {
+        this.mortarCount = mortarCount;
+        this.targetCount = targetCount;
+        this.mortarHeights = Arrays.copyOf(mortarHeights, mortarCount);
+        this.targetLats = Arrays.copyOf(targetLats, targetCount);
+        this.targetLons = Arrays.copyOf(targetLons, targetCount);
+        this.targetHeights = Arrays.copyOf(targetHeights, targetCount);
+        projections = new LocalProjection[mortarCount];
+        for (int m = 0; m < mortarCount; m++) {
+            projections[m] = new LocalProjection(mortarLats[m], mortarLons[m], model);
+        }
+        targetSin = new double[targetCount];
+        targetCos = new double[targetCount];
+        for (int t = 0; t < targetCount; t++) {
+            double lat = Math.toRadians(targetLats[t]);
+            targetSin[t] = Math.sin(lat);
+            targetCos[t] = Math.cos(lat);
+        }
+        int pairs = mortarCount * targetCount;
+        azimuths = new float[pairs];
+        angles = new float[pairs];
+        distances = new float[pairs];
+        times = new float[pairs];
+        clearances = new byte[pairs];
+    }
+
+    // Fills the matrix using pool; table may be null to use the closed form throughout
+    public void compute(ForkJoinPool pool, WeaponProfile profile, RangeTable table) {
+        compute(pool, profile, table, null);
+    }
+
+    // Also checks every reachable pair's arc against the terrain when checker is not null
+    public void compute(ForkJoinPool pool, WeaponProfile profile, RangeTable table, ClearanceChecker checker) {
+        terrainChecked = checker != null;
+        if (mortarCount == 0 || targetCount == 0) {
+            return;
+        }
+        // Whole mortar rows per leaf, so each row's targets are projected in one batch
+        int rowsPerLeaf = Math.max(1, LEAF_PAIRS / targetCount);
+        pool.invoke(new Block(profile, table, checker, rowsPerLeaf, 0, mortarCount));
+    }
+
+    private void computeRows(WeaponProfile profile, RangeTable table, ClearanceChecker checker, int from, int to) {
+        Calculator.MortarResult result = new Calculator.MortarResult();
+        double[] east = new double[targetCount];
+        double[] north = new double[targetCount];
+        for (int m = from; m < to; m++) {
+            LocalProjection projection = projections[m];
+            projection.projectAll(targetLats, targetLons, targetCount, east, north);
+            for (int t = 0; t < targetCount; t++) {
+                int pair = m * targetCount + t;
+                double distance = Math.sqrt(east[t] * east[t] + north[t] * north[t]);
+                boolean heightKnown = isHeightKnown(m, t);
+                double heightDiff = heightKnown ? targetHeights[t] - mortarHeights[m] : 0;
+                if (table != null) {
+                    table.solve(distance, heightDiff, result);
+                } else {
+                    Calculator.solve(profile.getVelocity(), profile.getGravity(), distance, heightDiff, result);
+                }
+                azimuths[pair] = (float) projection.azimuth(targetLons[t], targetSin[t], targetCos[t]);
+                distances[pair] = (float) distance;
+                angles[pair] = (float) result.angle;
+                times[pair] = (float) result.time;
+                if (checker != null && heightKnown && result.isReachable()) {
+                    clearances[pair] = (byte) checker.check(profile,
+                            checker.toX(projection.getOriginLon()), checker.toY(projection.getOriginLat()),
+                            mortarHeights[m], checker.toX(targetLons[t]), checker.toY(targetLats[t]), targetHeights[t]);
+                }
+            }
+        }
+    }
+
+    private final class Block extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final WeaponProfile profile;
+        private final RangeTable table;
+        private final ClearanceChecker checker;
+        private final int rowsPerLeaf;
+        private final int from;
+        private final int to;
+
+        Block(WeaponProfile profile, RangeTable table, ClearanceChecker checker, int rowsPerLeaf, int from, int to) {
+            this.profile = profile;
+            this.table = table;
+            this.checker = checker;
+            this.rowsPerLeaf = rowsPerLeaf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rowsPerLeaf) {
+                computeRows(profile, table, checker, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Block(profile, table, checker, rowsPerLeaf, from, middle),
+                    new Block(profile, table, checker, rowsPerLeaf, middle, to));
+        }
+    }
+
+    public int getMortarCount() {
+        return mortarCount;
+    }
+
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    public float getAzimuth(int mortar, int target) {
+        return azimuths[mortar * targetCount + target];
+    }
+
+    // Elevation angle in degrees, NaN when out of reach
+    public float getAngle(int mortar, int target) {
+        return angles[mortar * targetCount + target];
+    }
+
+    public float getDistance(int mortar, int target) {
+        return distances[mortar * targetCount + target];
+    }
+
+    public float getTime(int mortar, int target) {
+        return times[mortar * targetCount + target];
+    }
+
+    public boolean isTerrainChecked() {
+        return terrainChecked;
+    }
+
+    // One of the ClearanceChecker results
+    public int getClearance(int mortar, int target) {
+        return clearances[mortar * targetCount + target];
+    }
+
+    // False when the solution assumed level ground because a height is unknown
+    public boolean isHeightKnown(int mortar, int target) {
+        return !Double.isNaN(mortarHeights[mortar]) && !Double.isNaN(targetHeights[target]);
+    }
+
+    public boolean isReachable(int mortar, int target) {
+        return !Float.isNaN(angles[mortar * targetCount + target]);
+    }
+
+    // Nearest mortar that can reach the target, preferring those whose arc clears the terrain; -1 if none
+    public int closestReachable(int target) {
+        int best = -1;
+        for (int m = 0; m < mortarCount; m++) {
+            if (!isReachable(m, target)) {
+                continue;
+            }
+            if (best < 0 || isBlocked(best, target) && !isBlocked(m, target)
+                    || isBlocked(best, target) == isBlocked(m, target) && getDistance(m, target) < getDistance(best, target)) {
+                best = m;
+            }
+        }
+        return best;
+    }
+
+    private boolean isBlocked(int mortar, int target) {
+        return getClearance(mortar, target) == ClearanceChecker.BLOCKED;
+    }
+}
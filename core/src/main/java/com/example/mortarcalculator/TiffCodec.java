@@ -0,0 +1,119 @@
+package com.example.mortarcalculator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Decoders for the compressed TIFF blocks DSMReader supports: Deflate (zlib stream, compression 8
+// and the older 32946) and LZW (compression 5, MSB-first codes with the TIFF "early change").
+// Each call decodes the first length bytes of one strip or tile into out. A block that ends early
+// or does not decode is an IOException: it is never padded with zeros, which would read as terrain.
+final class TiffCodec {
+    private static final int LZW_CLEAR = 256;
+    private static final int LZW_END = 257;
+    private static final int LZW_FIRST = 258;
+    private static final int LZW_MAX_CODES = 4096;
+
+    private TiffCodec() {
+    }
+
+    static void inflate(ByteBuffer in, byte[] out, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            byte[] compressed = new byte[in.remaining()];
+            in.get(compressed);
+            inflater.setInput(compressed);
+            int written = 0;
+            while (written < length && !inflater.finished()) {
+                int read = inflater.inflate(out, written, length - written);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                written += read;
+            }
+            if (written < length) {
+                throw new IOException("Truncated Deflate block: " + written + " of " + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt Deflate block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static void lzw(ByteBuffer in, byte[] out, int length) throws IOException {
+        // Every string is a previous string plus one byte: store the prefix code, the last byte,
+        // the first byte and the length, and write strings back to front
+        int[] prefix = new int[LZW_MAX_CODES];
+        byte[] suffix = new byte[LZW_MAX_CODES];
+        byte[] first = new byte[LZW_MAX_CODES];
+        int[] stringLength = new int[LZW_MAX_CODES];
+        for (int i = 0; i < 256; i++) {
+            suffix[i] = (byte) i;
+            first[i] = (byte) i;
+            stringLength[i] = 1;
+        }
+        int next = LZW_FIRST;
+        int codeLength = 9;
+        int previous = -1;
+        int written = 0;
+        int bitBuffer = 0;
+        int bitCount = 0;
+        while (written < length) {
+            while (bitCount < codeLength) {
+                if (!in.hasRemaining()) {
+                    throw new IOException("Truncated LZW block: " + written + " of " + length + " bytes");
+                }
+                bitBuffer = (bitBuffer << 8) | (in.get() & 0xFF);
+                bitCount += 8;
+            }
+            int code = (bitBuffer >>> (bitCount - codeLength)) & ((1 << codeLength) - 1);
+            bitCount -= codeLength;
+            if (code == LZW_END) {
+                throw new IOException("LZW block ends after " + written + " of " + length + " bytes");
+            }
+            if (code == LZW_CLEAR) {
+                next = LZW_FIRST;
+                codeLength = 9;
+                previous = -1;
+                continue;
+            }
+            if (previous < 0) {
+                if (code > 255) {
+                    throw new IOException("Corrupt LZW block: code " + code + " after clear");
+                }
+                out[written++] = (byte) code;
+                previous = code;
+                continue;
+            }
+            if (code > next || next >= LZW_MAX_CODES) {
+                throw new IOException("Corrupt LZW block: code " + code + ", table at " + next);
+            }
+            // code == next is the string being defined: previous plus its own first byte
+            byte head = code < next ? first[code] : first[previous];
+            prefix[next] = previous;
+            suffix[next] = head;
+            first[next] = first[previous];
+            stringLength[next] = stringLength[previous] + 1;
+            next++;
+            written = emit(code, prefix, suffix, stringLength, out, written, length);
+            previous = code;
+            if (next == 511 || next == 1023 || next == 2047) {
+                codeLength++;
+            }
+        }
+    }
+
+    private static int emit(int code, int[] prefix, byte[] suffix, int[] stringLength, byte[] out, int written,
+                            int limit) {
+        int end = Math.min(written + stringLength[code], limit);
+        for (int position = written + stringLength[code] - 1; code >= 0; position--) {
+            if (position < end) {
+                out[position] = suffix[code];
+            }
+            code = stringLength[code] == 1 ? -1 : prefix[code];
+        }
+        return end;
+    }
+}
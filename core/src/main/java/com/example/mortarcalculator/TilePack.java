@@ -0,0 +1,136 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A tile pyramid in one little-endian file, written by TilePackWriter: a 64-byte header, an index
+ * of (zoom, x, y) keys sorted ascending with the offset and length of each tile, then the encoded
+ * tiles back to back. Rows are counted from the north like osmdroid's, not from the south like TMS.
+ * The file is meant to be memory-mapped; a lookup is a binary search over the keys, which are
+ * copied out once when the pack is opened, and tiles are read straight from the mapping.
+ */
+public final class TilePack implements TileSynthesis.TileSet {
+    static final int MAGIC = 0x4b415054; // "TPAK" little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int ENTRY_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int minZoom;
+    private final int maxZoom;
+    private final int tileSize;
+    private final double north;
+    private final double east;
+    private final double south;
+    private final double west;
+    private final long[] keys;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    public TilePack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer in = this.buffer;
+        if (in.limit() < HEADER_SIZE || in.getInt(0) != MAGIC) {
+            throw new IOException("Not a tile pack");
+        }
+        if (in.getInt(4) != VERSION) {
+            throw new IOException("Unsupported tile pack version " + in.getInt(4));
+        }
+        int count = in.getInt(8);
+        if (count < 0 || in.limit() < HEADER_SIZE + (long) count * ENTRY_SIZE) {
+            throw new IOException("Tile pack index is truncated");
+        }
+        minZoom = in.getInt(12);
+        maxZoom = in.getInt(16);
+        tileSize = in.getInt(20);
+        north = in.getDouble(32);
+        east = in.getDouble(40);
+        south = in.getDouble(48);
+        west = in.getDouble(56);
+        keys = new long[count];
+        offsets = new int[count];
+        lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            keys[i] = in.getLong(entry);
+            offsets[i] = in.getInt(entry + 8);
+            lengths[i] = in.getInt(entry + 12);
+            if (offsets[i] < 0 || lengths[i] < 0 || (long) offsets[i] + lengths[i] > in.limit()
+                    || (i > 0 && keys[i] <= keys[i - 1])) {
+                throw new IOException("Tile pack entry " + i + " is corrupt");
+            }
+        }
+    }
+
+    public static TilePack open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return new TilePack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getMinZoom() {
+        return minZoom;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public double getNorth() {
+        return north;
+    }
+
+    public double getEast() {
+        return east;
+    }
+
+    public double getSouth() {
+        return south;
+    }
+
+    public double getWest() {
+        return west;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    // Entry of the tile, or -1 if the pack does not have it
+    public int find(int zoom, int x, int y) {
+        int entry = Arrays.binarySearch(keys, key(zoom, x, y));
+        return entry >= 0 ? entry : -1;
+    }
+
+    @Override
+    public boolean contains(int zoom, int x, int y) {
+        return find(zoom, x, y) >= 0;
+    }
+
+    public int getLength(int entry) {
+        return lengths[entry];
+    }
+
+    // Copies the encoded tile to the start of out, which must hold getLength(entry) bytes.
+    // Safe to call from several threads at once.
+    public void read(int entry, byte[] out) {
+        ByteBuffer tile = buffer.duplicate();
+        tile.position(offsets[entry]);
+        tile.get(out, 0, lengths[entry]);
+    }
+
+    static long key(int zoom, int x, int y) {
+        return ((long) zoom << 48) | ((long) x << 24) | y;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.mortarcalculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Packs a gdal2tiles TMS pyramid (tilemapresource.xml plus {z}/{x}/{y}.png) into a TilePack.
+ * Run at build time by the app's packTiles task:
+ * TilePackWriter &lt;pyramid dir&gt; &lt;pack file&gt; [--webp &lt;quality&gt;]
+ * With --webp every tile is re-encoded by the cwebp tool and kept as WebP where that is smaller.
+ */
+public final class TilePackWriter {
+
+    private TilePackWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && !(args.length == 4 && args[2].equals("--webp"))) {
+            System.err.println("usage: TilePackWriter <pyramid dir> <pack file> [--webp <quality>]");
+            System.exit(2);
+        }
+        int webpQuality = args.length == 4 ? Integer.parseInt(args[3]) : -1;
+        long start = System.nanoTime();
+        File out = new File(args[1]);
+        int count = write(new File(args[0]), out, webpQuality);
+        System.out.println("Packed " + count + " tiles into " + out + " (" + out.length() + " bytes) in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    // Returns the number of tiles written; webpQuality < 0 keeps the tiles as they are
+    public static int write(File pyramid, File out, int webpQuality) throws IOException {
+        Element format;
+        Element bounds;
+        try {
+            Document resource = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new File(pyramid, "tilemapresource.xml"));
+            format = (Element) resource.getElementsByTagName("TileFormat").item(0);
+            bounds = (Element) resource.getElementsByTagName("BoundingBox").item(0);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Bad " + pyramid + "/tilemapresource.xml", e);
+        }
+        if (format == null || bounds == null) {
+            throw new IOException(pyramid + "/tilemapresource.xml has no TileFormat or BoundingBox");
+        }
+
+        List<long[]> tiles = new ArrayList<>(); // {key, zoom, x, tms y}
+        int minZoom = Integer.MAX_VALUE;
+        int maxZoom = Integer.MIN_VALUE;
+        for (File zoomDir : listNumbered(pyramid)) {
+            int zoom = Integer.parseInt(zoomDir.getName());
+            for (File columnDir : listNumbered(zoomDir)) {
+                int x = Integer.parseInt(columnDir.getName());
+                File[] files = columnDir.listFiles(File::isFile);
+                if (files == null) {
+                    continue;
+                }
+                for (File file : files) {
+                    String name = file.getName();
+                    int dot = name.indexOf('.');
+                    if (dot <= 0 || !isNumber(name.substring(0, dot))) {
+                        continue;
+                    }
+                    int tmsY = Integer.parseInt(name.substring(0, dot));
+                    int y = (1 << zoom) - 1 - tmsY;
+                    tiles.add(new long[]{TilePack.key(zoom, x, y), zoom, x, tmsY});
+                    minZoom = Math.min(minZoom, zoom);
+                    maxZoom = Math.max(maxZoom, zoom);
+                }
+            }
+        }
+        if (tiles.isEmpty()) {
+            throw new IOException("No tiles under " + pyramid);
+        }
+        tiles.sort(Comparator.comparingLong(tile -> tile[0]));
+
+        String extension = "." + format.getAttribute("extension");
+        byte[][] data = new byte[tiles.size()][];
+        long dataSize = 0;
+        for (int i = 0; i < tiles.size(); i++) {
+            long[] tile = tiles.get(i);
+            File file = new File(pyramid, tile[1] + "/" + tile[2] + "/" + tile[3] + extension);
+            data[i] = webpQuality >= 0 ? smallerAsWebp(file, webpQuality) : Files.readAllBytes(file.toPath());
+            dataSize += data[i].length;
+        }
+        long dataStart = TilePack.HEADER_SIZE + (long) tiles.size() * TilePack.ENTRY_SIZE;
+        if (dataStart + dataSize > Integer.MAX_VALUE) {
+            throw new IOException("Tile pack would exceed 2 GB");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) dataStart).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(TilePack.MAGIC).putInt(TilePack.VERSION).putInt(tiles.size())
+                .putInt(minZoom).putInt(maxZoom).putInt(Integer.parseInt(format.getAttribute("width")));
+        // gdal2tiles writes geodetic degrees here: x is longitude, y is latitude
+        header.position(32);
+        header.putDouble(Double.parseDouble(bounds.getAttribute("maxy")))
+                .putDouble(Double.parseDouble(bounds.getAttribute("maxx")))
+                .putDouble(Double.parseDouble(bounds.getAttribute("miny")))
+                .putDouble(Double.parseDouble(bounds.getAttribute("minx")));
+        long offset = dataStart;
+        for (int i = 0; i < tiles.size(); i++) {
+            header.putLong(tiles.get(i)[0]).putInt((int) offset).putInt(data[i].length);
+            offset += data[i].length;
+        }
+        header.flip();
+
+        File parent = out.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File temp = new File(out.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (byte[] tile : data) {
+                ByteBuffer chunk = ByteBuffer.wrap(tile);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        }
+        if (out.exists() && !out.delete() || !temp.renameTo(out)) {
+            throw new IOException("Cannot move " + temp + " to " + out);
+        }
+        return tiles.size();
+    }
+
+    private static byte[] smallerAsWebp(File file, int quality) throws IOException {
+        byte[] original = Files.readAllBytes(file.toPath());
+        File webp = File.createTempFile("tile", ".webp");
+        try {
+            Process process = new ProcessBuilder("cwebp", "-quiet", "-q", String.valueOf(quality),
+                    file.getPath(), "-o", webp.getPath()).redirectErrorStream(true).start();
+            process.getInputStream().readAllBytes();
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                throw new IOException("cwebp failed on " + file);
+            }
+            byte[] encoded = Files.readAllBytes(webp.toPath());
+            return encoded.length < original.length ? encoded : original;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding " + file, e);
+        } finally {
+            webp.delete();
+        }
+    }
+
+    private static File[] listNumbered(File dir) {
+        File[] children = dir.listFiles(child -> child.isDirectory() && isNumber(child.getName()));
+        return children != null ? children : new File[0];
+    }
+
+    private static boolean isNumber(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.mortarcalculator;
+
+/**
+ * Tile arithmetic for drawing tiles a pyramid does not have: above its maximum zoom a tile is a
+ * crop of the nearest ancestor the pyramid does have, scaled up; inside a gap in the pyramid a
+ * tile can instead be put together from its four children, scaled down. Coordinates are
+ * osmdroid's, with rows counted from the north.
+ */
+public final class TileSynthesis {
+    public interface TileSet {
+        boolean contains(int zoom, int x, int y);
+    }
+
+    // Child order in childMask(): north-west, north-east, south-west, south-east
+    public static final int CHILD_COUNT = 4;
+
+    private TileSynthesis() {
+    }
+
+    // Zoom of the nearest ancestor of the tile that tiles has, looking at most maxLevels up and
+    // not below minZoom; -1 if there is none
+    public static int ancestorZoom(TileSet tiles, int zoom, int x, int y, int minZoom, int maxLevels) {
+        for (int ancestor = zoom - 1; ancestor >= Math.max(minZoom, zoom - maxLevels); ancestor--) {
+            int shift = zoom - ancestor;
+            if (tiles.contains(ancestor, x >> shift, y >> shift)) {
+                return ancestor;
+            }
+        }
+        return -1;
+    }
+
+    // The square of the ancestor tile at ancestorZoom that covers the tile, in pixels of a
+    // tileSize tile: out = {left, top, size}. size is at least one pixel.
+    public static void cropRect(int zoom, int x, int y, int ancestorZoom, int tileSize, int[] out) {
+        int shift = zoom - ancestorZoom;
+        int mask = (1 << shift) - 1;
+        out[0] = (int) ((long) (x & mask) * tileSize >> shift);
+        out[1] = (int) ((long) (y & mask) * tileSize >> shift);
+        out[2] = Math.max(tileSize >> shift, 1);
+    }
+
+    // Bit i set when child i of the tile (see CHILD_COUNT) is in tiles one zoom up
+    public static int childMask(TileSet tiles, int zoom, int x, int y) {
+        int mask = 0;
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            if (tiles.contains(zoom + 1, childX(x, i), childY(y, i))) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    public static int childX(int x, int child) {
+        return 2 * x + (child & 1);
+    }
+
+    public static int childY(int y, int child) {
+        return 2 * y + (child >> 1);
+    }
+}
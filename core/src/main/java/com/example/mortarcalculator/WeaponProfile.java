@@ -0,0 +1,39 @@
+package com.example.mortarcalculator;
+
+// Fixed-velocity, drag-free ballistic model of a weapon
+public final class WeaponProfile {
+    // Squad's mortar: ~1230 m maximum range on flat ground
+    public static final WeaponProfile SQUAD_MORTAR = new WeaponProfile("squad_mortar", 109.890938, 9.8);
+
+    private final String id;
+    private final double velocity;
+    private final double gravity;
+
+    public WeaponProfile(String id, double velocity, double gravity) {
+        this.id = id;
+        this.velocity = velocity;
+        this.gravity = gravity;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public double getGravity() {
+        return gravity;
+    }
+
+    // Flat-ground range at 45 degrees
+    public double getMaxRange() {
+        return velocity * velocity / gravity;
+    }
+
+    // Highest target above the weapon that can still be hit (straight up)
+    public double getMaxHeight() {
+        return velocity * velocity / (2 * gravity);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class AimTrackerTest {
+    private static final WeaponProfile PROFILE = WeaponProfile.SQUAD_MORTAR;
+
+    @Test
+    public void deliversOnlyTheNewestSolution() throws Exception {
+        AimTracker tracker = new AimTracker(PROFILE);
+        try {
+            tracker.setMortars(new double[]{30.50, 30.51}, new double[]{47.80, 47.80}, new double[]{0, 20}, 2);
+            tracker.setElevation(new ElevationSource() {
+                @Override
+                public double getElevation(double lat, double lon) {
+                    return 10.0;
+                }
+
+                @Override
+                public void getElevations(double[] lats, double[] lons, int count, float[] out) {
+                    Arrays.fill(out, 0, count, 10.0f);
+                }
+            });
+            assertNull(tracker.poll());
+
+            for (int i = 0; i < 100; i++) {
+                tracker.aim(30.505 + i * 1e-5, 47.805, i + 1);
+            }
+            AimTracker.Solution solution = await(tracker, 100);
+            assertEquals(30.505 + 99 * 1e-5, solution.lat, 1e-12);
+            assertNull(tracker.poll());
+
+            double[] local = new double[2];
+            GeoMath.toLocal(solution.lat, solution.lon, 30.51, 47.80, local);
+            assertEquals(1, solution.mortar);
+            assertEquals(10.0, solution.targetHeight, 0);
+            assertTrue(solution.heightKnown);
+            assertEquals(Math.hypot(local[0], local[1]), solution.distance, 1e-9);
+            assertEquals(Calculator.calculateMortar(PROFILE, solution.distance, 10.0 - 20).angle, solution.angle, 1e-9);
+            assertEquals(GeoMath.azimuth(30.51, 47.80, solution.lat, solution.lon), solution.azimuth, 1e-9);
+
+            // Out of everyone's reach
+            tracker.aim(31.0, 47.8, 101);
+            solution = await(tracker, 101);
+            assertEquals(-1, solution.mortar);
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    public void unknownTargetHeightIsSolvedLevel() throws Exception {
+        AimTracker tracker = new AimTracker(PROFILE);
+        try {
+            tracker.setMortars(new double[]{30.50}, new double[]{47.80}, new double[]{20}, 1);
+            tracker.setElevation(null);
+            tracker.aim(30.505, 47.805, 1);
+            AimTracker.Solution solution = await(tracker, 1);
+
+            assertEquals(0, solution.mortar);
+            assertTrue(Double.isNaN(solution.targetHeight));
+            assertFalse(solution.heightKnown);
+            assertEquals(Calculator.calculateMortar(PROFILE, solution.distance, 0).angle, solution.angle, 1e-9);
+        } finally {
+            tracker.close();
+        }
+    }
+
+    private static AimTracker.Solution await(AimTracker tracker, long inputNanos) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            AimTracker.Solution solution = tracker.poll();
+            if (solution != null && solution.inputNanos == inputNanos) {
+                return solution;
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("no solution for input " + inputNanos);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ClearanceCheckerTest {
+    private static final WeaponProfile PROFILE = WeaponProfile.SQUAD_MORTAR;
+    private static final int SIZE = 200;
+    private static final double CELL = 10;
+
+    @Test
+    public void matchesPerCellReference() {
+        Random random = new Random(41);
+        float[] heights = new float[SIZE * SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                // Rolling hills with a few sharp towers
+                double h = 40 * Math.sin(col * 0.05) * Math.cos(row * 0.04) + 20 * Math.sin((col + row) * 0.11);
+                heights[row * SIZE + col] = (float) (random.nextInt(40) == 0 ? h + random.nextInt(400) : h);
+            }
+        }
+        heights[5] = Float.NaN;
+        ClearanceChecker checker = new ClearanceChecker(heights, SIZE, SIZE, -1000, -1000, CELL, 30.5, 47.8);
+
+        int[] seen = new int[4];
+        int decided = 0;
+        for (int i = 0; i < 3000; i++) {
+            double x0 = -950 + random.nextDouble() * 1900;
+            double y0 = -950 + random.nextDouble() * 1900;
+            double x1 = -950 + random.nextDouble() * 1900;
+            double y1 = -950 + random.nextDouble() * 1900;
+            double z0 = height(heights, x0, y0);
+            double z1 = height(heights, x1, y1);
+            int result = checker.check(PROFILE, x0, y0, z0, x1, y1, z1);
+            seen[result]++;
+            double distance = Math.hypot(x1 - x0, y1 - y0);
+            Calculator.MortarResult high = Calculator.calculateMortar(PROFILE, distance, z1 - z0);
+            if (!high.isReachable()) {
+                assertEquals(ClearanceChecker.OUT_OF_RANGE, result);
+                continue;
+            }
+            double highMargin = margin(heights, x0, y0, z0, x1, y1, Math.tan(Math.toRadians(high.angle)));
+            double v2 = PROFILE.getVelocity() * PROFILE.getVelocity();
+            double g = PROFILE.getGravity();
+            double root = Math.sqrt(v2 * v2 - g * (g * distance * distance + 2 * (z1 - z0) * v2));
+            double lowMargin = margin(heights, x0, y0, z0, x1, y1, (v2 - root) / (g * distance));
+            // Only judge clear-cut cases: float rounding decides the rest
+            if (Math.abs(highMargin) < 0.5 || Math.abs(lowMargin) < 0.5) {
+                continue;
+            }
+            decided++;
+            int expected = highMargin > 0 ? ClearanceChecker.BLOCKED
+                    : lowMargin > 0 ? ClearanceChecker.HIGH_ARC_ONLY : ClearanceChecker.CLEAR;
+            assertEquals(expected, result);
+        }
+        assertTrue(decided > 1500);
+        assertTrue(seen[ClearanceChecker.CLEAR] > 0 && seen[ClearanceChecker.HIGH_ARC_ONLY] > 0
+                && seen[ClearanceChecker.BLOCKED] > 0);
+    }
+
+    @Test
+    public void batchMatchesSingleChecks() {
+        float[] heights = new float[SIZE * SIZE];
+        for (int col = 0; col < SIZE; col++) {
+            heights[100 * SIZE + col] = 300; // an east-west wall at y = 0
+        }
+        ClearanceChecker checker = new ClearanceChecker(heights, SIZE, SIZE, -1000, -1000, CELL, 30.5, 47.8);
+        double[] x0 = {0, 0, 0};
+        double[] y0 = {-500, -500, -500};
+        double[] z0 = {0, 0, 0};
+        double[] x1 = {0, 0, 300};
+        double[] y1 = {500, -100, -500};
+        double[] z1 = {0, 0, 0};
+        byte[] out = new byte[3];
+        checker.checkAll(PROFILE, x0, y0, z0, x1, y1, z1, 3, out);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(checker.check(PROFILE, x0[i], y0[i], z0[i], x1[i], y1[i], z1[i]), out[i]);
+        }
+        // Over the wall only the high arc gets through; along it nothing is in the way
+        assertEquals(ClearanceChecker.HIGH_ARC_ONLY, out[0]);
+        assertEquals(ClearanceChecker.CLEAR, out[2]);
+    }
+
+    private static double height(float[] heights, double x, double y) {
+        int col = (int) Math.floor((x + 1000) / CELL);
+        int row = (int) Math.floor((y + 1000) / CELL);
+        float h = heights[row * SIZE + col];
+        return Float.isNaN(h) ? 0 : h;
+    }
+
+    // Highest terrain point above the arc (positive: blocked), skipping one cell at each end. Each
+    // cell in the path's bounding box is clipped against the ground track on its own (slab test).
+    private static double margin(float[] heights, double x0, double y0, double z0, double x1, double y1, double tan) {
+        double distance = Math.hypot(x1 - x0, y1 - y0);
+        double dx = (x1 - x0) / distance;
+        double dy = (y1 - y0) / distance;
+        double drop = PROFILE.getGravity() / (2 * PROFILE.getVelocity() * PROFILE.getVelocity()) * (1 + tan * tan);
+        int colMin = (int) Math.floor((Math.min(x0, x1) + 1000) / CELL);
+        int colMax = (int) Math.floor((Math.max(x0, x1) + 1000) / CELL);
+        int rowMin = (int) Math.floor((Math.min(y0, y1) + 1000) / CELL);
+        int rowMax = (int) Math.floor((Math.max(y0, y1) + 1000) / CELL);
+        double worst = Double.NEGATIVE_INFINITY;
+        for (int row = rowMin; row <= rowMax; row++) {
+            for (int col = colMin; col <= colMax; col++) {
+                float h = heights[row * SIZE + col];
+                if (Float.isNaN(h)) {
+                    continue;
+                }
+                double enter = CELL;
+                double exit = distance - CELL;
+                double[] slabX = slab(x0 + 1000, dx, col * CELL, (col + 1) * CELL);
+                double[] slabY = slab(y0 + 1000, dy, row * CELL, (row + 1) * CELL);
+                enter = Math.max(enter, Math.max(slabX[0], slabY[0]));
+                exit = Math.min(exit, Math.min(slabX[1], slabY[1]));
+                if (enter > exit) {
+                    continue;
+                }
+                double low = Math.min(z0 + enter * tan - drop * enter * enter, z0 + exit * tan - drop * exit * exit);
+                worst = Math.max(worst, h - low);
+            }
+        }
+        return worst;
+    }
+
+    private static double[] slab(double start, double direction, double min, double max) {
+        if (direction == 0) {
+            return start >= min && start < max
+                    ? new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}
+                    : new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        }
+        double a = (min - start) / direction;
+        double b = (max - start) / direction;
+        return new double[]{Math.min(a, b), Math.max(a, b)};
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class DSMReaderTest {
+    private static final double PIXEL = 1.0 / 3600;
+
+    @Test
+    public void readsPostsFromStrippedRaster() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.stripped(300, 200, PIXEL));
+        assertEquals(300, reader.getWidth());
+        assertEquals(TestRasters.value(0, 0), reader.getElevation(54.0 - PIXEL / 2, 46.0 + PIXEL / 2), 0);
+        assertEquals(TestRasters.value(150, 42), reader.getElevation(54.0 - 150.5 * PIXEL, 46.0 + 42.5 * PIXEL), 0);
+    }
+
+    @Test
+    public void readsPostsFromTiledRaster() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.tiled(300, 200, 64, PIXEL));
+        assertEquals(TestRasters.value(199, 299), reader.getElevation(54.0 - 199.5 * PIXEL, 46.0 + 299.5 * PIXEL), 0);
+        assertEquals(TestRasters.value(70, 130), reader.getElevation(54.0 - 70.5 * PIXEL, 46.0 + 130.5 * PIXEL), 0);
+    }
+
+    @Test
+    public void outsideRasterIsNaN() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.stripped(300, 200, PIXEL));
+        assertTrue(Double.isNaN(reader.getElevation(54.1, 46.01)));
+        assertTrue(Double.isNaN(reader.getElevation(53.99, 45.9)));
+    }
+
+    @Test
+    public void batchMatchesScalarLookups() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.tiled(300, 200, 64, PIXEL));
+        int count = 1000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        java.util.Random random = new java.util.Random(1);
+        for (int i = 0; i < count; i++) {
+            lats[i] = 54.0 - random.nextDouble() * 220 * PIXEL;
+            lons[i] = 46.0 + random.nextDouble() * 320 * PIXEL;
+        }
+        float[] out = new float[count];
+        reader.getElevations(lats, lons, count, out);
+        for (int i = 0; i < count; i++) {
+            assertEquals(reader.getElevation(lats[i], lons[i]), out[i], 0);
+        }
+    }
+
+    @Test
+    public void profileIncludesBothEnds() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.stripped(300, 200, PIXEL));
+        float[] out = new float[11];
+        double lat0 = 54.0 - 10.5 * PIXEL;
+        double lon0 = 46.0 + 20.5 * PIXEL;
+        double lat1 = 54.0 - 110.5 * PIXEL;
+        double lon1 = 46.0 + 220.5 * PIXEL;
+        reader.getProfile(lat0, lon0, lat1, lon1, out.length, out);
+        assertEquals(TestRasters.value(10, 20), out[0], 0);
+        assertEquals(TestRasters.value(60, 120), out[5], 0);
+        assertEquals(TestRasters.value(110, 220), out[10], 0);
+    }
+
+    @Test
+    public void interpolatedModesReproducePosts() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.tiled(300, 200, 64, PIXEL));
+        for (DSMReader.Interpolation mode : DSMReader.Interpolation.values()) {
+            reader.setInterpolation(mode);
+            assertEquals(mode.name(), TestRasters.value(40, 70), reader.getElevation(54.0 - 40.5 * PIXEL, 46.0 + 70.5 * PIXEL), 1e-3);
+        }
+    }
+
+    @Test
+    public void interpolatedModesFollowLinearTerrainBetweenPosts() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.tiled(300, 200, 64, PIXEL));
+        // value(row, col) = 7 * row + 3 * col - 100 away from the wraparound
+        double row = 40.25;
+        double col = 70.8;
+        double expected = 7 * row + 3 * col - 100;
+        for (DSMReader.Interpolation mode : new DSMReader.Interpolation[]{DSMReader.Interpolation.BILINEAR, DSMReader.Interpolation.BICUBIC}) {
+            reader.setInterpolation(mode);
+            assertEquals(mode.name(), expected, reader.getElevation(54.0 - (row + 0.5) * PIXEL, 46.0 + (col + 0.5) * PIXEL), 1e-3);
+        }
+    }
+
+    @Test
+    public void compressedRastersMatchUncompressed() throws Exception {
+        DSMReader plain = new DSMReader(TestRasters.tiled(300, 200, 64, PIXEL));
+        DSMReader[] compressed = {
+                new DSMReader(TestRasters.compressedTiled(300, 200, 64, PIXEL, TestRasters.DEFLATE, false)),
+                new DSMReader(TestRasters.compressedTiled(300, 200, 64, PIXEL, TestRasters.DEFLATE, true)),
+                new DSMReader(TestRasters.compressedTiled(300, 200, 128, PIXEL, TestRasters.LZW, false)),
+                new DSMReader(TestRasters.compressedStripped(300, 200, 16, PIXEL, TestRasters.LZW, true)),
+                new DSMReader(TestRasters.compressedStripped(300, 200, 1, PIXEL, TestRasters.DEFLATE, true)),
+        };
+        int count = 1000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        java.util.Random random = new java.util.Random(2);
+        for (int i = 0; i < count; i++) {
+            lats[i] = 54.0 - random.nextDouble() * 200 * PIXEL;
+            lons[i] = 46.0 + random.nextDouble() * 300 * PIXEL;
+        }
+        float[] expected = new float[count];
+        float[] out = new float[count];
+        for (DSMReader reader : compressed) {
+            assertTrue(reader.isCompressed());
+            for (int row = 0; row < 200; row++) {
+                for (int col = 0; col < 300; col++) {
+                    assertEquals(row + "," + col, TestRasters.value(row, col), reader.sample(row, col));
+                }
+            }
+            for (DSMReader.Interpolation mode : DSMReader.Interpolation.values()) {
+                plain.setInterpolation(mode);
+                reader.setInterpolation(mode);
+                plain.getElevations(lats, lons, count, expected);
+                reader.getElevations(lats, lons, count, out);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(mode.name(), expected[i], out[i], 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decodedBlocksStayWithinBudget() throws Exception {
+        // 10 x 7 tiles of 32 x 32 samples, 2 KB each; the budget holds the minimum of nine
+        DSMReader reader = new DSMReader(TestRasters.compressedTiled(300, 200, 32, PIXEL, TestRasters.DEFLATE, true), 1);
+        for (int row = 0; row < 200; row++) {
+            for (int col = 0; col < 300; col++) {
+                assertEquals(TestRasters.value(row, col), reader.sample(row, col));
+                assertTrue(reader.getResidentBlockBytes() <= 9 * 32 * 32 * 2);
+            }
+        }
+        // Row-major order walks across ten tiles per tile row, which nine blocks cannot hold
+        assertTrue(reader.getBlockDecodes() > 70);
+        reader.clearBlockCache();
+        assertEquals(0, reader.getResidentBlockBytes());
+    }
+
+    @Test
+    public void missPrefetchesNeighbouringBlocks() throws Exception {
+        DSMReader reader = new DSMReader(TestRasters.compressedTiled(300, 200, 32, PIXEL, TestRasters.LZW, true));
+        reader.setPrefetchExecutor(Runnable::run);
+        assertEquals(TestRasters.value(80, 80), reader.sample(80, 80));
+        assertEquals(9, reader.getBlockDecodes());
+        assertEquals(TestRasters.value(100, 100), reader.sample(100, 100));
+        assertEquals(TestRasters.value(60, 60), reader.sample(60, 60));
+        assertEquals(9, reader.getBlockDecodes());
+
+        reader.clearBlockCache();
+        reader.prefetch(54.0 - 199 * PIXEL, 46.0, 54.0, 46.0 + 299 * PIXEL);
+        assertEquals(9 + 70, reader.getBlockDecodes());
+    }
+
+    @Test
+    public void codecsRejectTruncatedBlocks() throws Exception {
+        byte[] raw = new byte[64 * 64 * 2];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = (byte) (i * 7 % 251);
+        }
+        for (int compression : new int[]{TestRasters.DEFLATE, TestRasters.LZW}) {
+            byte[] encoded = TestRasters.encode(raw, compression);
+            byte[] out = new byte[raw.length];
+            decode(compression, ByteBuffer.wrap(encoded), out, raw.length);
+            assertArrayEquals(raw, out);
+            try {
+                decode(compression, ByteBuffer.wrap(encoded, 0, encoded.length / 2), out, raw.length);
+                fail("truncated block decoded");
+            } catch (IOException expected) {
+                // never padded with zeros
+            }
+            try {
+                decode(compression, ByteBuffer.wrap(encoded), new byte[raw.length + 2], raw.length + 2);
+                fail("short block decoded");
+            } catch (IOException expected) {
+                // ends before the block is full
+            }
+        }
+    }
+
+    @Test
+    public void truncatedBlockReadsAsNoData() throws Exception {
+        // 5 x 4 tiles of 64 x 64; tile 7 covers rows 64-127, columns 128-191
+        DSMReader reader = new DSMReader(TestRasters.truncateBlock(
+                TestRasters.compressedTiled(300, 200, 64, PIXEL, TestRasters.DEFLATE, true), 7));
+        assertEquals(-9999, reader.sample(100, 150));
+        assertTrue(Double.isNaN(reader.getElevation(54.0 - 100.5 * PIXEL, 46.0 + 150.5 * PIXEL)));
+        assertEquals(TestRasters.value(100, 100), reader.sample(100, 100));
+        assertEquals(1, reader.getCorruptBlocks());
+        // Not decoded again
+        reader.sample(70, 130);
+        assertEquals(1, reader.getCorruptBlocks());
+    }
+
+    @Test
+    public void rejectsUncompressedBlocksPastTheEnd() throws Exception {
+        for (ByteBuffer tiff : new ByteBuffer[]{TestRasters.stripped(300, 200, PIXEL), TestRasters.tiled(300, 200, 64, PIXEL)}) {
+            tiff.limit(tiff.limit() - 1);
+            try {
+                new DSMReader(tiff);
+                fail("raster opened with its last block cut short");
+            } catch (IOException expected) {
+                // checked when opened, not on the lookup that reaches the block
+            }
+        }
+    }
+
+    private static void decode(int compression, ByteBuffer in, byte[] out, int length) throws IOException {
+        if (compression == TestRasters.LZW) {
+            TiffCodec.lzw(in, out, length);
+        } else {
+            TiffCodec.inflate(in, out, length);
+        }
+    }
+}
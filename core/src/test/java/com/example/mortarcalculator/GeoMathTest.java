@@ -0,0 +1,23 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class GeoMathTest {
+    @Test
+    public void localOffsetIsEastNorthInMetres() {
+        double[] local = new double[2];
+        GeoMath.toLocal(30.51, 47.81, 30.5, 47.8, local);
+        assertEquals(0.01 * 111320 * Math.cos(Math.toRadians(30.5)), local[0], 1e-6);
+        assertEquals(0.01 * 111320, local[1], 1e-6);
+    }
+
+    @Test
+    public void azimuthIsClockwiseFromNorth() {
+        assertEquals(0.0, GeoMath.azimuth(30.5, 47.8, 30.6, 47.8), 1e-9);
+        assertEquals(90.0, GeoMath.azimuth(0.0, 47.8, 0.0, 47.9), 1e-9);
+        assertEquals(180.0, GeoMath.azimuth(30.5, 47.8, 30.4, 47.8), 1e-9);
+        assertEquals(270.0, GeoMath.azimuth(0.0, 47.8, 0.0, 47.7), 1e-9);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+
+public class HeightmapGridTest {
+    @Test
+    public void roundTripsThroughCacheFile() throws Exception {
+        int size = 10;
+        short[] samples = new short[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                samples[row * size + col] = (short) (row * 10 + col);
+            }
+        }
+        File file = File.createTempFile("heightmap", ".hmap");
+        file.deleteOnExit();
+        HeightmapGrid.write(file, size, size, samples, 31.0, 30.0, 48.0, 47.0, 2.0f, -5.0f);
+
+        HeightmapGrid grid = HeightmapGrid.open(file);
+        assertEquals(size, grid.getWidth());
+        // Centre of pixel (row 3, col 4)
+        assertEquals((34 * 2.0) - 5.0, grid.getElevation(31.0 - 0.35, 47.0 + 0.45), 1e-9);
+        // Halfway between pixel centres of columns 4 and 5 in row 3
+        assertEquals((34.5 * 2.0) - 5.0, grid.getElevation(31.0 - 0.35, 47.0 + 0.5), 1e-9);
+        assertTrue(Double.isNaN(grid.getElevation(31.5, 47.5)));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketsCoverTheirLowerBounds() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 1000, 123456789, Long.MAX_VALUE / 3}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value + " below its bucket", LatencyHistogram.lowerBound(bucket) <= value);
+            assertTrue(value + " above its bucket", LatencyHistogram.lowerBound(bucket + 1) > value);
+        }
+    }
+
+    @Test
+    public void quantilesWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500.0, histogram.getMean(), 1e-9);
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.quantile(0.5), 500000 * 0.125);
+        assertEquals(990000, histogram.quantile(0.99), 990000 * 0.125);
+        assertEquals(1000000, histogram.quantile(1.0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.quantile(0.5));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LocalProjectionTest {
+    @Test
+    public void equirectangularMatchesGeoMath() {
+        Random random = new Random(5);
+        LocalProjection projection = new LocalProjection(30.5, 47.8, LocalProjection.Model.EQUIRECTANGULAR);
+        double[] expected = new double[2];
+        double[] actual = new double[4];
+        for (int i = 0; i < 1000; i++) {
+            double lat = 30.5 + (random.nextDouble() - 0.5) * 0.05;
+            double lon = 47.8 + (random.nextDouble() - 0.5) * 0.05;
+            GeoMath.toLocal(lat, lon, 30.5, 47.8, expected);
+            projection.project(lat, lon, actual, 2);
+            assertEquals(expected[0], actual[2], 1e-9);
+            assertEquals(expected[1], actual[3], 1e-9);
+            assertEquals(GeoMath.azimuth(30.5, 47.8, lat, lon), projection.azimuth(lat, lon), 1e-9);
+        }
+    }
+
+    @Test
+    public void batchMatchesSinglePoints() {
+        Random random = new Random(6);
+        int count = 257;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 60.1 + random.nextDouble() * 0.03;
+            lons[i] = 24.9 + random.nextDouble() * 0.03;
+        }
+        for (LocalProjection.Model model : LocalProjection.Model.values()) {
+            LocalProjection projection = new LocalProjection(60.11, 24.91, model);
+            double[] east = new double[count];
+            double[] north = new double[count];
+            projection.projectAll(lats, lons, count, east, north);
+            double[] point = new double[2];
+            for (int i = 0; i < count; i++) {
+                projection.project(lats[i], lons[i], point, 0);
+                assertEquals(point[0], east[i], 0);
+                assertEquals(point[1], north[i], 0);
+            }
+        }
+    }
+
+    // Tangent-plane distance against the ellipsoidal geodesic (Vincenty) within mortar range
+    @Test
+    public void ellipsoidalTracksGeodesicDistance() {
+        Random random = new Random(7);
+        double[] local = new double[2];
+        double worstEllipsoidal = 0;
+        double worstEquirectangular = 0;
+        for (int i = 0; i < 2000; i++) {
+            double originLat = -70 + random.nextDouble() * 140;
+            double originLon = -180 + random.nextDouble() * 360;
+            double lat = originLat + (random.nextDouble() - 0.5) * 0.025;
+            double lon = originLon + (random.nextDouble() - 0.5) * 0.025;
+            double geodesic = vincentyDistance(originLat, originLon, lat, lon);
+
+            new LocalProjection(originLat, originLon, LocalProjection.Model.ELLIPSOIDAL).project(lat, lon, local, 0);
+            worstEllipsoidal = Math.max(worstEllipsoidal, Math.abs(Math.hypot(local[0], local[1]) - geodesic));
+            new LocalProjection(originLat, originLon, LocalProjection.Model.EQUIRECTANGULAR).project(lat, lon, local, 0);
+            worstEquirectangular = Math.max(worstEquirectangular,
+                    Math.abs(Math.hypot(local[0], local[1]) - geodesic) / geodesic);
+        }
+        assertTrue("ellipsoidal error " + worstEllipsoidal + " m", worstEllipsoidal < 0.05);
+        // The spherical 111320 m/deg model is off by up to about 1% away from the equator
+        assertTrue("equirectangular error " + worstEquirectangular, worstEquirectangular < 0.012);
+    }
+
+    private static double vincentyDistance(double lat1, double lon1, double lat2, double lon2) {
+        double a = 6378137.0;
+        double f = 1 / 298.257223563;
+        double b = a * (1 - f);
+        double u1 = Math.atan((1 - f) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - f) * Math.tan(Math.toRadians(lat2)));
+        double l = Math.toRadians(lon2 - lon1);
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+        double lambda = l;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cosSqAlpha;
+        double cos2SigmaM;
+        double previous;
+        do {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            sinSigma = Math.sqrt(Math.pow(cosU2 * sinLambda, 2)
+                    + Math.pow(cosU1 * sinU2 - sinU1 * cosU2 * cosLambda, 2));
+            if (sinSigma == 0) {
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+            double c = f / 16 * cosSqAlpha * (4 + f * (4 - 3 * cosSqAlpha));
+            previous = lambda;
+            lambda = l + (1 - c) * f * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+        } while (Math.abs(lambda - previous) > 1e-12);
+        double uSq = cosSqAlpha * (a * a - b * b) / (b * b);
+        double bigA = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double bigB = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = bigB * sinSigma * (cos2SigmaM + bigB / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - bigB / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return b * bigA * (sigma - deltaSigma);
+    }
+}
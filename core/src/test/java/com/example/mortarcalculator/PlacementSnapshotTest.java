@@ -0,0 +1,44 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class PlacementSnapshotTest {
+
+    @Test
+    public void roundTripsThroughBytes() throws IOException {
+        PlacementSnapshot snapshot = new PlacementSnapshot("карта-1", 14.5, 30.51, 47.82, 9, 1,
+                new long[]{3, 7, 8, -1}, new double[]{30.5, 30.52, 30.53, 0}, new double[]{47.8, 47.81, 47.83, 0},
+                new double[]{12.5, -3, 40, 0}, 3,
+                new double[]{30.6}, new double[]{47.9}, new double[]{101.25}, 1);
+        byte[] bytes = snapshot.toBytes();
+        PlacementSnapshot restored = PlacementSnapshot.fromBytes(bytes);
+
+        assertEquals("карта-1", restored.getMapId());
+        assertEquals(14.5, restored.getZoom(), 0);
+        assertEquals(30.51, restored.getCenterLat(), 0);
+        assertEquals(47.82, restored.getCenterLon(), 0);
+        assertEquals(9, restored.getNextMortarId());
+        assertEquals(1, restored.getSelected());
+        assertEquals(3, restored.getMortarCount());
+        assertEquals(8, restored.getMortarId(2));
+        assertEquals("[30.5, 30.52, 30.53]", Arrays.toString(restored.getMortarLats()));
+        assertEquals("[47.8, 47.81, 47.83]", Arrays.toString(restored.getMortarLons()));
+        assertEquals(-3, restored.getMortarHeight(1), 0);
+        assertEquals(1, restored.getTargetCount());
+        assertEquals(30.6, restored.getTargetLats()[0], 0);
+        assertEquals(47.9, restored.getTargetLons()[0], 0);
+        assertEquals(101.25, restored.getTargetHeight(0), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedSnapshots() throws IOException {
+        byte[] bytes = new PlacementSnapshot("m", 10, 0, 0, 1, -1, new long[]{0}, new double[]{1}, new double[]{2},
+                new double[]{3}, 1, new double[0], new double[0], new double[0], 0).toBytes();
+        PlacementSnapshot.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
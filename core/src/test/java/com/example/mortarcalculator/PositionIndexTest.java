@@ -0,0 +1,98 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class PositionIndexTest {
+    private static final double ORIGIN_LAT = 30.5;
+    private static final double ORIGIN_LON = 47.8;
+
+    @Test
+    public void queriesMatchLinearScan() {
+        Random random = new Random(11);
+        PositionIndex index = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+        for (int i = 0; i < 300; i++) {
+            index.add(ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.1, ORIGIN_LON + (random.nextDouble() - 0.5) * 0.1);
+        }
+        int[] found = new int[index.size()];
+        for (int query = 0; query < 500; query++) {
+            double x = (random.nextDouble() - 0.5) * 12000;
+            double y = (random.nextDouble() - 0.5) * 12000;
+            double radius = query % 2 == 0 ? 100 + random.nextDouble() * 400 : 5000;
+            assertEquals(linearNearest(index, x, y, radius), index.nearest(x, y, radius));
+
+            int count = index.withinRange(x, y, radius, found);
+            int[] actual = Arrays.copyOf(found, count);
+            Arrays.sort(actual);
+            assertEquals(Arrays.toString(linearWithin(index, x, y, radius)), Arrays.toString(actual));
+        }
+    }
+
+    @Test
+    public void removeShiftsSlotsLikeAList() {
+        PositionIndex index = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+        index.add(30.50, 47.80);
+        index.add(30.51, 47.80);
+        index.add(30.52, 47.80);
+        index.remove(0);
+        assertEquals(2, index.size());
+        assertEquals(30.51, index.getLatitude(0), 0);
+        assertEquals(0, index.nearest(index.toX(47.80), index.toY(30.51), 10));
+        assertEquals(1, index.nearest(index.toX(47.80), index.toY(30.52), 10));
+        assertEquals(-1, index.nearest(index.toX(47.80), index.toY(30.50), 10));
+
+        index.clear();
+        assertEquals(-1, index.nearest(0, 0, 1e6));
+    }
+
+    @Test
+    public void addAllMatchesRepeatedAdd() {
+        Random random = new Random(5);
+        int count = 40;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        PositionIndex one = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+        for (int i = 0; i < count; i++) {
+            lats[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.05;
+            lons[i] = ORIGIN_LON + (random.nextDouble() - 0.5) * 0.05;
+            one.add(lats[i], lons[i]);
+        }
+        PositionIndex bulk = new PositionIndex(ORIGIN_LAT, ORIGIN_LON);
+        bulk.add(lats[0], lons[0]);
+        bulk.addAll(Arrays.copyOfRange(lats, 1, count), Arrays.copyOfRange(lons, 1, count), count - 1);
+        assertEquals(count, bulk.size());
+        for (int query = 0; query < 200; query++) {
+            double x = (random.nextDouble() - 0.5) * 6000;
+            double y = (random.nextDouble() - 0.5) * 6000;
+            assertEquals(one.nearest(x, y, 800), bulk.nearest(x, y, 800));
+        }
+    }
+
+    private static int linearNearest(PositionIndex index, double x, double y, double radius) {
+        int best = -1;
+        double bestDistance = radius;
+        for (int slot = 0; slot < index.size(); slot++) {
+            double distance = Math.hypot(index.getX(slot) - x, index.getY(slot) - y);
+            if (distance < bestDistance || (distance == bestDistance && best < 0)) {
+                bestDistance = distance;
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    private static int[] linearWithin(PositionIndex index, double x, double y, double radius) {
+        return IntStream.range(0, index.size())
+                .filter(slot -> {
+                    double dx = index.getX(slot) - x;
+                    double dy = index.getY(slot) - y;
+                    return dx * dx + dy * dy <= radius * radius;
+                })
+                .toArray();
+    }
+}
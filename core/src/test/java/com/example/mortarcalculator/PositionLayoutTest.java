@@ -0,0 +1,38 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PositionLayoutTest {
+    private static final double MAP_SIZE = 256 * Math.pow(2, 16);
+
+    @Test
+    public void worldPixelsFollowWebMercator() {
+        assertEquals(MAP_SIZE / 2, PositionLayout.worldX(0, MAP_SIZE), 1e-6);
+        assertEquals(MAP_SIZE / 2, PositionLayout.worldY(0, MAP_SIZE), 1e-6);
+        assertEquals(0, PositionLayout.worldX(-180, MAP_SIZE), 1e-6);
+        assertEquals(0, PositionLayout.worldY(85.05112878, MAP_SIZE), 1e-3);
+    }
+
+    @Test
+    public void layoutIsRelativeToTheAnchor() {
+        PositionIndex positions = new PositionIndex(30.5, 47.8);
+        positions.add(30.5, 47.8);
+        positions.add(30.51, 47.81);
+        PositionLayout layout = new PositionLayout(MAP_SIZE);
+        layout.build(positions, 30.5, 47.8, 1000);
+
+        assertEquals(2, layout.size());
+        assertEquals(0, layout.getX(0), 0);
+        assertEquals(0, layout.getY(0), 0);
+        assertEquals(PositionLayout.worldX(47.81, MAP_SIZE) - PositionLayout.worldX(47.8, MAP_SIZE), layout.getX(1), 1e-3);
+        // North is up: y decreases
+        assertEquals(PositionLayout.worldY(30.51, MAP_SIZE) - PositionLayout.worldY(30.5, MAP_SIZE), layout.getY(1), 1e-3);
+
+        // The ring radius spans the same pixels as 1000 m of latitude
+        double degrees = 1000 / (Math.PI * 6378137.0 / 180);
+        double expected = PositionLayout.worldY(30.5 - degrees / 2, MAP_SIZE) - PositionLayout.worldY(30.5 + degrees / 2, MAP_SIZE);
+        assertEquals(expected, layout.getRingRadius(0), expected * 1e-4);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+public class RangeTableTest {
+    private static final WeaponProfile PROFILE = WeaponProfile.SQUAD_MORTAR;
+    // Angle and flight time error allowed against the closed form: what the table is built for
+    private static final double MAX_ANGLE_ERROR = RangeTable.ANGLE_TOLERANCE;
+    private static final double MAX_TIME_ERROR = RangeTable.TIME_TOLERANCE;
+
+    @Test
+    public void closedFormMatchesKnownSolutions() {
+        // Flat ground: high arc reaches 45 degrees exactly at maximum range
+        Calculator.MortarResult result = Calculator.calculateMortar(PROFILE, PROFILE.getMaxRange(), 0);
+        assertEquals(45.0, result.angle, 1e-6);
+        // tan(theta) = (v^2 + sqrt(v^4 - g^2 d^2)) / (g d) on flat ground
+        double v2 = PROFILE.getVelocity() * PROFILE.getVelocity();
+        double g = PROFILE.getGravity();
+        double expected = Math.toDegrees(Math.atan((v2 + Math.sqrt(v2 * v2 - g * g * 500 * 500)) / (g * 500)));
+        assertEquals(expected, Calculator.calculateMortar(PROFILE, 500, 0).angle, 1e-9);
+        assertFalse(Calculator.calculateMortar(PROFILE, PROFILE.getMaxRange() + 1, 0).isReachable());
+        assertFalse(Calculator.calculateMortar(PROFILE, 100, PROFILE.getMaxHeight() + 1).isReachable());
+    }
+
+    @Test
+    public void interpolationStaysWithinErrorBound() {
+        RangeTable table = RangeTable.build(PROFILE, 300, 5, 5);
+        Random random = new Random(17);
+        Calculator.MortarResult fromTable = new Calculator.MortarResult();
+        Calculator.MortarResult exact = new Calculator.MortarResult();
+        double worstAngle = 0;
+        double worstTime = 0;
+        for (int i = 0; i < 200000; i++) {
+            double distance = random.nextDouble() * ReachMask.reach(PROFILE, 350) * 1.05;
+            double heightDiff = (random.nextDouble() - 0.5) * 700;
+            boolean reachable = table.solve(distance, heightDiff, fromTable);
+            Calculator.solve(PROFILE.getVelocity(), PROFILE.getGravity(), distance, heightDiff, exact);
+            assertEquals(exact.isReachable(), reachable);
+            if (reachable) {
+                worstAngle = Math.max(worstAngle, Math.abs(fromTable.angle - exact.angle));
+                worstTime = Math.max(worstTime, Math.abs(fromTable.time - exact.time));
+            }
+        }
+        assertTrue("angle error " + worstAngle, worstAngle <= MAX_ANGLE_ERROR);
+        assertTrue("time error " + worstTime, worstTime <= MAX_TIME_ERROR);
+    }
+
+    @Test
+    public void roundTripsThroughCacheFile() throws Exception {
+        RangeTable table = RangeTable.build(PROFILE, 100, 10, 10);
+        File file = File.createTempFile("range", ".rtab");
+        file.deleteOnExit();
+        table.write(file);
+
+        RangeTable loaded = RangeTable.read(file);
+        assertTrue(loaded.matches(PROFILE));
+        Calculator.MortarResult expected = new Calculator.MortarResult();
+        Calculator.MortarResult actual = new Calculator.MortarResult();
+        table.solve(734.5, 12.25, expected);
+        loaded.solve(734.5, 12.25, actual);
+        assertEquals(expected.angle, actual.angle, 0);
+        assertEquals(expected.time, actual.time, 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ReachMaskTest {
+    private static final WeaponProfile PROFILE = WeaponProfile.SQUAD_MORTAR;
+
+    @Test
+    public void cellsMatchPerPointSolutions() {
+        ElevationSource terrain = slope();
+        double mortarHeight = 60;
+        double radius = ReachMask.reach(PROFILE, 100);
+        ReachMask mask = new ReachMask(30.5, 47.8, mortarHeight, radius, 25, LocalProjection.Model.ELLIPSOIDAL);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        mask.compute(pool, PROFILE, null, terrain);
+        pool.shutdown();
+
+        LocalProjection projection = new LocalProjection(30.5, 47.8, LocalProjection.Model.ELLIPSOIDAL);
+        double[] local = new double[2];
+        int size = mask.getSize();
+        double cellLat = (mask.getNorth() - mask.getSouth()) / size;
+        double cellLon = (mask.getEast() - mask.getWest()) / size;
+        int reachable = 0;
+        boolean beyondFlatRange = false;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                double lat = mask.getNorth() - (row + 0.5) * cellLat;
+                double lon = mask.getWest() + (col + 0.5) * cellLon;
+                projection.project(lat, lon, local, 0);
+                double distance = Math.hypot(local[0], local[1]);
+                Calculator.MortarResult expected = Calculator.calculateMortar(PROFILE, distance,
+                        terrain.getElevation(lat, lon) - mortarHeight);
+                boolean hit = distance <= radius && expected.isReachable();
+                assertEquals(hit, mask.getCell(row, col) != ReachMask.UNREACHABLE);
+                if (hit) {
+                    reachable++;
+                    assertEquals(expected.angle, ReachMask.toAngle(mask.getCell(row, col)), 0.2);
+                    beyondFlatRange |= distance > PROFILE.getMaxRange();
+                }
+            }
+        }
+        assertEquals(reachable, mask.getReachableCount());
+        // Downhill cells reach past the flat-ground range
+        assertTrue(beyondFlatRange);
+        assertTrue(mask.getMinAngle() < 45 && mask.getMaxAngle() > 85);
+    }
+
+    @Test
+    public void reachGrowsWithDrop() {
+        assertEquals(PROFILE.getMaxRange(), ReachMask.reach(PROFILE, 0), 1e-9);
+        assertTrue(ReachMask.reach(PROFILE, 300) > PROFILE.getMaxRange() * 1.2);
+    }
+
+    // Falls 1 m per 25 m towards the east, 60 m at the mortar
+    private static ElevationSource slope() {
+        return new ElevationSource() {
+            @Override
+            public double getElevation(double lat, double lon) {
+                return 60 - (lon - 47.8) * GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(30.5)) / 25;
+            }
+
+            @Override
+            public void getElevations(double[] lats, double[] lons, int count, float[] out) {
+                for (int i = 0; i < count; i++) {
+                    out[i] = (float) getElevation(lats[i], lons[i]);
+                }
+            }
+        };
+    }
+}
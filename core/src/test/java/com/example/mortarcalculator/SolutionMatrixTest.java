@@ -0,0 +1,121 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SolutionMatrixTest {
+    private static final WeaponProfile PROFILE = WeaponProfile.SQUAD_MORTAR;
+
+    @Test
+    public void matchesPerPairSolutions() {
+        Random random = new Random(19);
+        int mortars = 23;
+        int targets = 17;
+        double[] mortarLats = new double[mortars];
+        double[] mortarLons = new double[mortars];
+        double[] mortarHeights = new double[mortars];
+        double[] targetLats = new double[targets];
+        double[] targetLons = new double[targets];
+        double[] targetHeights = new double[targets];
+        for (int m = 0; m < mortars; m++) {
+            mortarLats[m] = 30.5 + random.nextDouble() * 0.02;
+            mortarLons[m] = 47.8 + random.nextDouble() * 0.02;
+            mortarHeights[m] = random.nextDouble() * 50;
+        }
+        for (int t = 0; t < targets; t++) {
+            targetLats[t] = 30.5 + random.nextDouble() * 0.02;
+            targetLons[t] = 47.8 + random.nextDouble() * 0.02;
+            targetHeights[t] = random.nextDouble() * 50;
+        }
+
+        SolutionMatrix matrix = new SolutionMatrix(mortarLats, mortarLons, mortarHeights, mortars,
+                targetLats, targetLons, targetHeights, targets);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        matrix.compute(pool, PROFILE, null);
+        pool.shutdown();
+
+        double[] local = new double[2];
+        for (int m = 0; m < mortars; m++) {
+            for (int t = 0; t < targets; t++) {
+                GeoMath.toLocal(targetLats[t], targetLons[t], mortarLats[m], mortarLons[m], local);
+                double distance = Math.hypot(local[0], local[1]);
+                Calculator.MortarResult expected = Calculator.calculateMortar(PROFILE, distance,
+                        targetHeights[t] - mortarHeights[m]);
+                assertEquals(distance, matrix.getDistance(m, t), 1e-3);
+                assertEquals(GeoMath.azimuth(mortarLats[m], mortarLons[m], targetLats[t], targetLons[t]),
+                        matrix.getAzimuth(m, t), 1e-3);
+                assertEquals(expected.isReachable(), matrix.isReachable(m, t));
+                if (expected.isReachable()) {
+                    assertEquals(expected.angle, matrix.getAngle(m, t), 1e-4);
+                    assertEquals(expected.time, matrix.getTime(m, t), 1e-4);
+                }
+            }
+        }
+
+        for (int t = 0; t < targets; t++) {
+            int best = matrix.closestReachable(t);
+            for (int m = 0; m < mortars; m++) {
+                if (matrix.isReachable(m, t)) {
+                    assertTrue(matrix.getDistance(best, t) <= matrix.getDistance(m, t));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void prefersMortarsWithClearArcs() {
+        // A 5 km east-west wall 300 m north of the origin, between the near mortar and the target
+        int size = 200;
+        float[] heights = new float[size * size];
+        for (int col = 0; col < size; col++) {
+            heights[130 * size + col] = 5000;
+        }
+        ClearanceChecker checker = new ClearanceChecker(heights, size, size, -1000, -1000, 10, 30.5, 47.8);
+        double[] mortarLats = {30.5, 30.5 + 600 / GeoMath.METERS_PER_DEGREE};
+        double[] mortarLons = {47.8, 47.8 + 500 / (GeoMath.METERS_PER_DEGREE * Math.cos(Math.toRadians(30.5)))};
+        double targetLat = 30.5 + 400 / GeoMath.METERS_PER_DEGREE;
+        SolutionMatrix matrix = new SolutionMatrix(mortarLats, mortarLons, new double[2], 2,
+                new double[]{targetLat}, new double[]{47.8}, new double[1], 1);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        matrix.compute(pool, PROFILE, null, checker);
+        pool.shutdown();
+
+        assertTrue(matrix.isTerrainChecked());
+        assertEquals(ClearanceChecker.BLOCKED, matrix.getClearance(0, 0));
+        assertEquals(ClearanceChecker.CLEAR, matrix.getClearance(1, 0));
+        assertTrue(matrix.getDistance(0, 0) < matrix.getDistance(1, 0));
+        assertEquals(1, matrix.closestReachable(0));
+    }
+
+    @Test
+    public void unknownHeightsSolveLevelWithoutTerrainCheck() {
+        // The same wall as above, in front of the near mortar, but the target's height is unknown
+        int size = 200;
+        float[] heights = new float[size * size];
+        for (int col = 0; col < size; col++) {
+            heights[130 * size + col] = 5000;
+        }
+        ClearanceChecker checker = new ClearanceChecker(heights, size, size, -1000, -1000, 10, 30.5, 47.8);
+        double targetLat = 30.5 + 400 / GeoMath.METERS_PER_DEGREE;
+        SolutionMatrix matrix = new SolutionMatrix(new double[]{30.5, 30.5}, new double[]{47.8, 47.801},
+                new double[]{40, Double.NaN}, 2, new double[]{targetLat, targetLat}, new double[]{47.8, 47.8},
+                new double[]{Double.NaN, 25}, 2);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        matrix.compute(pool, PROFILE, null, checker);
+        pool.shutdown();
+
+        assertFalse(matrix.isHeightKnown(0, 0));
+        assertFalse(matrix.isHeightKnown(1, 1));
+        assertTrue(matrix.isHeightKnown(0, 1));
+        assertEquals(Calculator.calculateMortar(PROFILE, matrix.getDistance(0, 0), 0).angle, matrix.getAngle(0, 0), 1e-4);
+        assertEquals(Calculator.calculateMortar(PROFILE, matrix.getDistance(1, 1), 0).angle, matrix.getAngle(1, 1), 1e-4);
+        assertEquals(ClearanceChecker.CLEAR, matrix.getClearance(0, 0));
+        assertEquals(ClearanceChecker.BLOCKED, matrix.getClearance(0, 1));
+    }
+}
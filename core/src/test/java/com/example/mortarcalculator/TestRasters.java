@@ -0,0 +1,222 @@
+package com.example.mortarcalculator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+// Builds small in-memory GeoTIFFs laid out like the ALOS DSM tiles.
+final class TestRasters {
+    static final double ORIGIN_LAT = 54.0;
+    static final double ORIGIN_LON = 46.0;
+    static final int NONE = 1;
+    static final int LZW = 5;
+    static final int DEFLATE = 8;
+
+    private TestRasters() {
+    }
+
+    static short value(int row, int col) {
+        return (short) ((row * 7 + col * 3) % 2000 - 100);
+    }
+
+    // One-row strips, like the 3600x3600 ALOS rasters.
+    static ByteBuffer stripped(int width, int height, double pixelSize) {
+        return build(width, height, width, 1, false, pixelSize, NONE, false);
+    }
+
+    static ByteBuffer tiled(int width, int height, int tileSize, double pixelSize) {
+        return build(width, height, tileSize, tileSize, true, pixelSize, NONE, false);
+    }
+
+    // compression is LZW or DEFLATE; predictor adds horizontal differencing (TIFF predictor 2)
+    static ByteBuffer compressedStripped(int width, int height, int rowsPerStrip, double pixelSize,
+                                         int compression, boolean predictor) {
+        return build(width, height, width, rowsPerStrip, false, pixelSize, compression, predictor);
+    }
+
+    static ByteBuffer compressedTiled(int width, int height, int tileSize, double pixelSize,
+                                      int compression, boolean predictor) {
+        return build(width, height, tileSize, tileSize, true, pixelSize, compression, predictor);
+    }
+
+    // Cuts the stored byte count of one block of a compressedStripped/compressedTiled raster in half,
+    // as if the file had been truncated inside it
+    static ByteBuffer truncateBlock(ByteBuffer tiff, int block) {
+        int ifd = tiff.getInt(4);
+        int entries = tiff.getShort(ifd);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            int tag = tiff.getShort(entry);
+            if (tag == 279 || tag == 325) {
+                int counts = tiff.getInt(entry + 8);
+                tiff.putInt(counts + block * 4, tiff.getInt(counts + block * 4) / 2);
+            }
+        }
+        return tiff;
+    }
+
+    private static ByteBuffer build(int width, int height, int blockWidth, int blockHeight, boolean tiled,
+                                    double pixelSize, int compression, boolean predictor) {
+        int across = (width + blockWidth - 1) / blockWidth;
+        int down = (height + blockHeight - 1) / blockHeight;
+        int blocks = across * down;
+        byte[][] data = new byte[blocks][];
+        int dataSize = 0;
+        for (int b = 0; b < blocks; b++) {
+            data[b] = encode(block(b, across, blockWidth, blockHeight, width, height, predictor), compression);
+            dataSize += data[b].length;
+        }
+        int entries = predictor ? 13 : 12;
+        int ifd = 8;
+        int extra = ifd + 2 + entries * 12 + 4;
+        int offsetsPos = extra;
+        int countsPos = offsetsPos + blocks * 4;
+        int scalePos = countsPos + blocks * 4;
+        int tiePos = scalePos + 3 * 8;
+        int dataPos = tiePos + 6 * 8;
+        ByteBuffer buf = ByteBuffer.allocate(dataPos + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifd);
+        buf.position(ifd);
+        buf.putShort((short) entries);
+        entry(buf, 256, 4, 1, width);
+        entry(buf, 257, 4, 1, height);
+        entry(buf, 258, 3, 1, 16);
+        entry(buf, 259, 3, 1, compression);
+        entry(buf, 277, 3, 1, 1);
+        entry(buf, 339, 3, 1, 2);
+        if (tiled) {
+            entry(buf, 322, 4, 1, blockWidth);
+            entry(buf, 323, 4, 1, blockHeight);
+            entry(buf, 324, 4, blocks, blocks == 1 ? dataPos : offsetsPos);
+            entry(buf, 325, 4, blocks, blocks == 1 ? data[0].length : countsPos);
+        } else {
+            entry(buf, 273, 4, blocks, blocks == 1 ? dataPos : offsetsPos);
+            entry(buf, 278, 4, 1, blockHeight);
+            entry(buf, 279, 4, blocks, blocks == 1 ? data[0].length : countsPos);
+            entry(buf, 284, 3, 1, 1);
+        }
+        if (predictor) {
+            entry(buf, 317, 3, 1, 2);
+        }
+        entry(buf, 33550, 12, 3, scalePos);
+        entry(buf, 33922, 12, 6, tiePos);
+        buf.putInt(0);
+        int position = dataPos;
+        for (int b = 0; b < blocks; b++) {
+            buf.putInt(offsetsPos + b * 4, position);
+            buf.putInt(countsPos + b * 4, data[b].length);
+            buf.position(position);
+            buf.put(data[b]);
+            position += data[b].length;
+        }
+        buf.putDouble(scalePos, pixelSize).putDouble(scalePos + 8, pixelSize).putDouble(scalePos + 16, 0);
+        buf.putDouble(tiePos + 24, ORIGIN_LON).putDouble(tiePos + 32, ORIGIN_LAT);
+        buf.rewind();
+        return buf;
+    }
+
+    // Little-endian samples of one strip or tile, padded with zeros past the raster edge
+    private static byte[] block(int b, int across, int blockWidth, int blockHeight, int width, int height,
+                                boolean predictor) {
+        ByteBuffer out = ByteBuffer.allocate(blockWidth * blockHeight * 2).order(ByteOrder.LITTLE_ENDIAN);
+        int top = (b / across) * blockHeight;
+        int left = (b % across) * blockWidth;
+        for (int r = 0; r < blockHeight; r++) {
+            short previous = 0;
+            for (int c = 0; c < blockWidth; c++) {
+                int row = top + r;
+                int col = left + c;
+                short v = row < height && col < width ? value(row, col) : 0;
+                out.putShort((short) (predictor ? v - previous : v));
+                previous = v;
+            }
+        }
+        return out.array();
+    }
+
+    static byte[] encode(byte[] raw, int compression) {
+        if (compression == DEFLATE) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[raw.length + 1024];
+            int length = deflater.deflate(out);
+            deflater.end();
+            return Arrays.copyOf(out, length);
+        }
+        return compression == LZW ? lzw(raw) : raw;
+    }
+
+    // TIFF LZW: MSB-first codes from 9 to 12 bits, a clear code before the table fills. The encoder
+    // widens one code later than the decoder, which lags one table entry behind ("early change").
+    static byte[] lzw(byte[] raw) {
+        BitWriter out = new BitWriter();
+        int[] table = new int[4096 * 256];
+        int next = 258;
+        int codeLength = 9;
+        out.write(256, codeLength);
+        int current = raw[0] & 0xFF;
+        for (int i = 1; i < raw.length; i++) {
+            int b = raw[i] & 0xFF;
+            int code = table[current * 256 + b];
+            if (code != 0) {
+                current = code;
+                continue;
+            }
+            out.write(current, codeLength);
+            table[current * 256 + b] = next++;
+            if (next == 512 || next == 1024 || next == 2048) {
+                codeLength++;
+            }
+            if (next == 4094) {
+                out.write(256, codeLength);
+                Arrays.fill(table, 0);
+                next = 258;
+                codeLength = 9;
+            }
+            current = b;
+        }
+        out.write(current, codeLength);
+        next++;
+        if (next == 512 || next == 1024 || next == 2048) {
+            codeLength++;
+        }
+        out.write(257, codeLength);
+        return out.toByteArray();
+    }
+
+    private static final class BitWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int buffer;
+        private int count;
+
+        void write(int code, int length) {
+            buffer = (buffer << length) | code;
+            count += length;
+            while (count >= 8) {
+                bytes.write(buffer >>> (count - 8));
+                count -= 8;
+            }
+            buffer &= (1 << count) - 1;
+        }
+
+        byte[] toByteArray() {
+            if (count > 0) {
+                bytes.write(buffer << (8 - count));
+                count = 0;
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static void entry(ByteBuffer buf, int tag, int type, int count, int value) {
+        buf.putShort((short) tag).putShort((short) type).putInt(count);
+        if (type == 3 && count == 1) {
+            buf.putShort((short) value).putShort((short) 0);
+        } else {
+            buf.putInt(value);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TilePackTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void packedTilesMatchThePyramid() throws IOException {
+        File pyramid = folder.newFolder("tiles");
+        Files.writeString(new File(pyramid, "tilemapresource.xml").toPath(),
+                "<?xml version=\"1.0\"?><TileMap><BoundingBox minx=\"46.0\" miny=\"53.0\" maxx=\"47.0\" maxy=\"54.0\"/>"
+                        + "<TileFormat width=\"256\" height=\"256\" mime-type=\"image/png\" extension=\"png\"/></TileMap>");
+        Random random = new Random(3);
+        byte[][][][] written = new byte[4][][][];
+        for (int zoom = 1; zoom <= 3; zoom++) {
+            int side = 1 << zoom;
+            written[zoom] = new byte[side][side][];
+            for (int x = 0; x < side; x++) {
+                File column = new File(pyramid, zoom + "/" + x);
+                column.mkdirs();
+                for (int tmsY = 0; tmsY < side; tmsY++) {
+                    if ((x + tmsY) % 3 == 0) {
+                        continue; // holes, like the edges of a real pyramid
+                    }
+                    byte[] tile = new byte[1 + random.nextInt(2000)];
+                    random.nextBytes(tile);
+                    Files.write(new File(column, tmsY + ".png").toPath(), tile);
+                    written[zoom][x][tmsY] = tile;
+                }
+            }
+        }
+        File packFile = new File(folder.getRoot(), "tiles.pack");
+        int count = TilePackWriter.write(pyramid, packFile, -1);
+
+        TilePack pack = TilePack.open(packFile);
+        assertEquals(count, pack.size());
+        assertEquals(1, pack.getMinZoom());
+        assertEquals(3, pack.getMaxZoom());
+        assertEquals(256, pack.getTileSize());
+        assertEquals(54.0, pack.getNorth(), 0);
+        assertEquals(46.0, pack.getWest(), 0);
+        byte[] buffer = new byte[2000];
+        for (int zoom = 1; zoom <= 3; zoom++) {
+            int side = 1 << zoom;
+            for (int x = 0; x < side; x++) {
+                for (int tmsY = 0; tmsY < side; tmsY++) {
+                    int entry = pack.find(zoom, x, side - 1 - tmsY);
+                    byte[] expected = written[zoom][x][tmsY];
+                    if (expected == null) {
+                        assertEquals(-1, entry);
+                        continue;
+                    }
+                    assertEquals(expected.length, pack.getLength(entry));
+                    pack.read(entry, buffer);
+                    assertArrayEquals(expected, Arrays.copyOf(buffer, expected.length));
+                }
+            }
+        }
+        assertEquals(-1, pack.find(4, 0, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new TilePack(ByteBuffer.allocate(128));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mortarcalculator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class TileSynthesisTest {
+    // A pyramid with zooms 8-12 over one zoom-8 tile, missing zoom 10
+    private static final TileSynthesis.TileSet PYRAMID = (zoom, x, y) ->
+            zoom >= 8 && zoom <= 12 && zoom != 10 && x >> (zoom - 8) == 160 && y >> (zoom - 8) == 80;
+
+    @Test
+    public void findsNearestAncestorAboveTheMaximumZoom() {
+        int x = (160 << 7) + 37;
+        int y = (80 << 7) + 101;
+        assertEquals(12, TileSynthesis.ancestorZoom(PYRAMID, 13, x >> 2, y >> 2, 8, 6));
+        assertEquals(12, TileSynthesis.ancestorZoom(PYRAMID, 15, x, y, 8, 6));
+        // Not further up than asked
+        assertEquals(-1, TileSynthesis.ancestorZoom(PYRAMID, 15, x, y, 8, 2));
+        // Outside the pyramid
+        assertEquals(-1, TileSynthesis.ancestorZoom(PYRAMID, 15, 0, 0, 8, 6));
+    }
+
+    @Test
+    public void skipsGapsInThePyramid() {
+        assertEquals(9, TileSynthesis.ancestorZoom(PYRAMID, 10, 160 << 2, (80 << 2) + 3, 8, 6));
+        assertEquals(9, TileSynthesis.ancestorZoom(PYRAMID, 10, 160 << 2, (80 << 2) + 3, 9, 6));
+        assertEquals(-1, TileSynthesis.ancestorZoom(PYRAMID, 10, 160 << 2, (80 << 2) + 3, 10, 6));
+    }
+
+    @Test
+    public void cropCoversTheTileInsideItsAncestor() {
+        int[] rect = new int[3];
+        // Zoom 13 tile (5, 6) is the south-west quarter of zoom 12 tile (2, 3)
+        TileSynthesis.cropRect(13, 5, 7, 12, 256, rect);
+        assertArrayEquals(new int[]{128, 128, 128}, rect);
+        TileSynthesis.cropRect(13, 4, 6, 12, 256, rect);
+        assertArrayEquals(new int[]{0, 0, 128}, rect);
+        // Three levels up: an eighth of the ancestor per side
+        TileSynthesis.cropRect(15, 8 * 100 + 3, 8 * 50 + 7, 12, 256, rect);
+        assertArrayEquals(new int[]{96, 224, 32}, rect);
+        // Never below one pixel
+        TileSynthesis.cropRect(22, 1023, 0, 12, 256, rect);
+        assertArrayEquals(new int[]{255, 0, 1}, rect);
+    }
+
+    @Test
+    public void childMaskListsTheChildrenPresent() {
+        Set<Long> present = new HashSet<>();
+        present.add(TilePack.key(11, 20, 30));
+        present.add(TilePack.key(11, 21, 31));
+        TileSynthesis.TileSet tiles = (zoom, x, y) -> present.contains(TilePack.key(zoom, x, y));
+        assertEquals(0b1001, TileSynthesis.childMask(tiles, 10, 10, 15));
+        assertEquals(0, TileSynthesis.childMask(tiles, 10, 11, 15));
+        // The gap at zoom 10 can be filled from zoom 11
+        assertEquals(0b1111, TileSynthesis.childMask(PYRAMID, 10, 160 << 2, 80 << 2));
+        for (int child = 0; child < TileSynthesis.CHILD_COUNT; child++) {
+            assertEquals(5, TileSynthesis.childX(5, child) >> 1);
+            assertEquals(5, TileSynthesis.childY(5, child) >> 1);
+        }
+        assertEquals(11, TileSynthesis.childX(5, 1));
+        assertEquals(11, TileSynthesis.childY(5, 2));
+    }
+}